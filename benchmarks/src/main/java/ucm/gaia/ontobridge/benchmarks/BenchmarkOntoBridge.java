@@ -0,0 +1,35 @@
+/**
+ * OntoBride library.
+ * GAIA - Group for Artifical Intelligence Applications
+ * Departamento de Ingeniería del Software e Inteligencia Artificial
+ * Universidad Complutense de Madrid
+ *
+ * Licensed under the terms of the GNU Library or Lesser General Public License (LGPL)
+ *
+ * This software is a subproject of the jCOLIBRI framework
+ * http://sourceforge.net/projects/jcolibri-cbr/
+ * http://gaia.fdi.ucm.es/projects/jcolibri/
+ *
+ * File: BenchmarkOntoBridge.java
+ * 18/10/2026
+ */
+package ucm.gaia.ontobridge.benchmarks;
+
+import ucm.gaia.ontobridge.OntoBridge;
+
+/**
+ * OntoBridge that exposes the computation of the class depths to the benchmarks
+ */
+public class BenchmarkOntoBridge extends OntoBridge {
+
+	@Override
+	public void preCalculateProfs()
+	{
+		beginRead();
+		try {
+			super.preCalculateProfs();
+		} finally {
+			endRead();
+		}
+	}
+}
@@ -0,0 +1,47 @@
+/**
+ * OntoBride library.
+ * GAIA - Group for Artifical Intelligence Applications
+ * Departamento de Ingeniería del Software e Inteligencia Artificial
+ * Universidad Complutense de Madrid
+ *
+ * Licensed under the terms of the GNU Library or Lesser General Public License (LGPL)
+ *
+ * This software is a subproject of the jCOLIBRI framework
+ * http://sourceforge.net/projects/jcolibri-cbr/
+ * http://gaia.fdi.ucm.es/projects/jcolibri/
+ *
+ * File: BenchmarkRunner.java
+ * 18/10/2026
+ */
+package ucm.gaia.ontobridge.benchmarks;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the JMH command line options, adding the GC profiler so the results report
+ * the allocation rate (gc.alloc.rate and gc.alloc.rate.norm, bytes per operation) next to the throughput.<br>
+ * Example: java -jar target/benchmarks.jar QueryBenchmark -p dataset=restaurant
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws Exception
+	{
+		CommandLineOptions cmd = new CommandLineOptions(args);
+		if(cmd.shouldHelp() || cmd.shouldList() || cmd.shouldListWithParams() 
+				|| cmd.shouldListProfilers() || cmd.shouldListResultFormats())
+		{
+			Main.main(args);
+			return;
+		}
+		Options options = new OptionsBuilder()
+				.parent(cmd)
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(options).run();
+	}
+}
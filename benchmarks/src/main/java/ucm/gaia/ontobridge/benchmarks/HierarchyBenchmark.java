@@ -0,0 +1,63 @@
+/**
+ * OntoBride library.
+ * GAIA - Group for Artifical Intelligence Applications
+ * Departamento de Ingeniería del Software e Inteligencia Artificial
+ * Universidad Complutense de Madrid
+ *
+ * Licensed under the terms of the GNU Library or Lesser General Public License (LGPL)
+ *
+ * This software is a subproject of the jCOLIBRI framework
+ * http://sourceforge.net/projects/jcolibri-cbr/
+ * http://gaia.fdi.ucm.es/projects/jcolibri/
+ *
+ * File: HierarchyBenchmark.java
+ * 18/10/2026
+ */
+package ucm.gaia.ontobridge.benchmarks;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Depth computations: building the hierarchy index and the least common subsumers of individuals
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HierarchyBenchmark {
+
+	@Benchmark
+	public int preCalculateProfs(OntologyState s)
+	{
+		s.ob.preCalculateProfs();
+		return s.ob.getMaxProf();
+	}
+
+	@Benchmark
+	public Set<String> LCS(OntologyState s)
+	{
+		return s.ob.LCS(s.instance1, s.instance2);
+	}
+
+	@Benchmark
+	public int maxProfLCS(OntologyState s)
+	{
+		return s.ob.maxProfLCS(s.instance1, s.instance2);
+	}
+
+	@Benchmark
+	public int[] maxProfLCSMany(OntologyState s)
+	{
+		return s.ob.maxProfLCS(s.instance1, s.instances);
+	}
+}
@@ -0,0 +1,118 @@
+/**
+ * OntoBride library.
+ * GAIA - Group for Artifical Intelligence Applications
+ * Departamento de Ingeniería del Software e Inteligencia Artificial
+ * Universidad Complutense de Madrid
+ *
+ * Licensed under the terms of the GNU Library or Lesser General Public License (LGPL)
+ *
+ * This software is a subproject of the jCOLIBRI framework
+ * http://sourceforge.net/projects/jcolibri-cbr/
+ * http://gaia.fdi.ucm.es/projects/jcolibri/
+ *
+ * File: Ontologies.java
+ * 18/10/2026
+ */
+package ucm.gaia.ontobridge.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.mindswap.pellet.PelletOptions;
+
+import ucm.gaia.ontobridge.OntoBridge;
+import ucm.gaia.ontobridge.OntologyDocument;
+import ucm.gaia.ontobridge.util.OntologyGenerator;
+
+/**
+ * Data sets of the benchmarks.<br>
+ * "restaurant" and "fotos" are the ontologies bundled with the library. They are copied from the classpath
+ * into a temporary directory, so they are read from local files as in the examples.<br>
+ * "synthetic-N" is an ontology written by OntologyGenerator with N classes and N/2 individuals.
+ */
+final class Ontologies {
+
+	static final String RESTAURANT = "restaurant";
+	static final String FOTOS = "fotos";
+	static final String SYNTHETIC = "synthetic-";
+
+	static final String GAIA_NS = "http://gaia.fdi.ucm.es/ontologies/";
+	static final int BRANCHING = 4;
+	static final double MULTIPLE_INHERITANCE = 0.05;
+	static final double PROPERTY_DENSITY = 1;
+
+	private static final String[] RESTAURANT_IMPORTS = {"calendar", "price", "address", "contact-details"};
+
+	private static File _dir;
+
+	static {
+		// PELLET prints the progress of the classification to the standard output
+		PelletOptions.USE_CLASSIFICATION_MONITOR = PelletOptions.MonitorType.NONE;
+	}
+
+	private Ontologies()
+	{
+	}
+
+	/**
+	 * Loads a data set
+	 * @param ob initialized OntoBridge
+	 * @param dataset name of the data set
+	 */
+	static void load(OntoBridge ob, String dataset) throws IOException
+	{
+		List<OntologyDocument> subOntologies = new ArrayList<OntologyDocument>();
+		if(RESTAURANT.equals(dataset))
+			for(String name : RESTAURANT_IMPORTS)
+				subOntologies.add(document(name));
+		ob.loadOntology(document(dataset), subOntologies, false);
+	}
+
+	/**
+	 * Returns the document of a data set, creating its local file the first time
+	 */
+	static synchronized OntologyDocument document(String dataset) throws IOException
+	{
+		if(_dir == null)
+		{
+			_dir = Files.createTempDirectory("ontobridge-benchmarks").toFile();
+			_dir.deleteOnExit();
+		}
+		File file = new File(_dir, dataset + ".owl");
+		if(!file.exists())
+		{
+			if(dataset.startsWith(SYNTHETIC))
+			{
+				int classes = Integer.parseInt(dataset.substring(SYNTHETIC.length()));
+				new OntologyGenerator(GAIA_NS + dataset + ".owl")
+						.setClasses(classes)
+						.setBranching(BRANCHING)
+						.setMultipleInheritance(MULTIPLE_INHERITANCE)
+						.setIndividuals(classes / 2)
+						.setPropertyDensity(PROPERTY_DENSITY)
+						.write(file);
+			}
+			else
+				copy(file, "/" + dataset + ".owl");
+			file.deleteOnExit();
+		}
+		return new OntologyDocument(GAIA_NS + dataset + ".owl", file.toURI().toString());
+	}
+
+	private static void copy(File file, String resource) throws IOException
+	{
+		InputStream in = Ontologies.class.getResourceAsStream(resource);
+		if(in == null)
+			throw new IllegalArgumentException("Unknown data set: " + resource);
+		try {
+			Files.copy(in, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			in.close();
+		}
+	}
+}
@@ -0,0 +1,120 @@
+/**
+ * OntoBride library.
+ * GAIA - Group for Artifical Intelligence Applications
+ * Departamento de Ingeniería del Software e Inteligencia Artificial
+ * Universidad Complutense de Madrid
+ *
+ * Licensed under the terms of the GNU Library or Lesser General Public License (LGPL)
+ *
+ * This software is a subproject of the jCOLIBRI framework
+ * http://sourceforge.net/projects/jcolibri-cbr/
+ * http://gaia.fdi.ucm.es/projects/jcolibri/
+ *
+ * File: OntologyState.java
+ * 18/10/2026
+ */
+package ucm.gaia.ontobridge.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import ucm.gaia.ontobridge.OntoBridge;
+
+/**
+ * Ontology loaded with the PELLET reasoner once per trial, shared by the threads of a benchmark.<br>
+ * The arguments of the measured calls are chosen from the loaded ontology, so every data set exercises
+ * the same paths: the deepest class, the root class above it and the two deepest individuals.
+ * Other scales of the synthetic ontology can be selected with the JMH option -p dataset=synthetic-N.
+ */
+@State(Scope.Benchmark)
+public class OntologyState {
+
+	@Param({Ontologies.RESTAURANT, Ontologies.FOTOS, Ontologies.SYNTHETIC + "1000"})
+	public String dataset;
+
+	@Param({"true", "false"})
+	public boolean inference;
+
+	public BenchmarkOntoBridge ob;
+
+	/** Deepest class of the ontology */
+	public String deepClass;
+	/** Short name of deepClass */
+	public String deepClassShortName;
+	/** Root class that is a superclass of deepClass */
+	public String rootClass;
+	/** The two deepest individuals */
+	public String instance1;
+	public String instance2;
+	/** Root class of instance1 */
+	public String instanceRoot;
+	/** Individuals used by the LCS of one instance against many */
+	public List<String> instances;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException
+	{
+		ob = new BenchmarkOntoBridge();
+		ob.initWithPelletReasoner();
+		Ontologies.load(ob, dataset);
+
+		int maxProf = -1;
+		for(Iterator<String> iter = ob.listAllClasses(); iter.hasNext();)
+		{
+			String c = iter.next();
+			int prof = ob.profConcept(c);
+			if(prof > maxProf)
+			{
+				maxProf = prof;
+				deepClass = c;
+			}
+		}
+		deepClassShortName = ob.getShortName(deepClass);
+		rootClass = rootOf(deepClass, true);
+
+		instances = new ArrayList<String>();
+		for(Iterator<String> iter = ob.listInstances(rootClass); iter.hasNext();)
+			instances.add(iter.next());
+		if(instances.isEmpty())
+			for(Iterator<String> roots = ob.listRootClasses(); roots.hasNext();)
+				for(Iterator<String> iter = ob.listInstances(roots.next()); iter.hasNext();)
+					instances.add(iter.next());
+		if(instances.size() < 2)
+			throw new IllegalStateException("The data set has less than two individuals: " + dataset);
+		int[] profs = ob.profInstance(instances);
+		int first = 0, second = 1;
+		for(int i = 1; i < profs.length; i++)
+			if(profs[i] > profs[first])
+			{
+				second = first;
+				first = i;
+			}
+			else if(i != first && profs[i] > profs[second])
+				second = i;
+		instance1 = instances.get(first);
+		instance2 = instances.get(second);
+		instanceRoot = rootOf(instance1, false);
+
+		if(!inference)
+			ob.setInference(false);
+	}
+
+	private String rootOf(String resource, boolean isClass)
+	{
+		for(Iterator<String> iter = ob.listRootClasses(); iter.hasNext();)
+		{
+			String root = iter.next();
+			if(isClass ? ob.isSubClassOf(resource, root) : ob.isInstanceOf(resource, root))
+				return root;
+		}
+		throw new IllegalStateException("No root class above " + resource);
+	}
+}
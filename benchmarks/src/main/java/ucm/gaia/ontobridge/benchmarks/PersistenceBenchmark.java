@@ -0,0 +1,100 @@
+/**
+ * OntoBride library.
+ * GAIA - Group for Artifical Intelligence Applications
+ * Departamento de Ingeniería del Software e Inteligencia Artificial
+ * Universidad Complutense de Madrid
+ *
+ * Licensed under the terms of the GNU Library or Lesser General Public License (LGPL)
+ *
+ * This software is a subproject of the jCOLIBRI framework
+ * http://sourceforge.net/projects/jcolibri-cbr/
+ * http://gaia.fdi.ucm.es/projects/jcolibri/
+ *
+ * File: PersistenceBenchmark.java
+ * 18/10/2026
+ */
+package ucm.gaia.ontobridge.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ucm.gaia.ontobridge.OntoBridge;
+import ucm.gaia.ontobridge.SerializationFormat;
+
+/**
+ * Loading and saving whole ontologies. Loading includes the classification done by loadOntology.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class PersistenceBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class Load {
+
+		@Param({Ontologies.RESTAURANT, Ontologies.FOTOS, Ontologies.SYNTHETIC + "1000"})
+		public String dataset;
+
+		@Param({"true", "false"})
+		public boolean reasoner;
+	}
+
+	@State(Scope.Benchmark)
+	public static class Save {
+
+		@Param({"RDF_XML_ABBREV", "RDF_XML", "TURTLE", "N_TRIPLES"})
+		public SerializationFormat format;
+	}
+
+	@Benchmark
+	public OntoBridge loadOntology(Load l) throws IOException
+	{
+		OntoBridge ob = new OntoBridge();
+		if(l.reasoner)
+			ob.initWithPelletReasoner();
+		else
+			ob.initWithOutReasoner();
+		Ontologies.load(ob, l.dataset);
+		return ob;
+	}
+
+	@Benchmark
+	public long save(OntologyState s, Save f) throws IOException
+	{
+		CountingOutputStream out = new CountingOutputStream();
+		s.ob.save(out, f.format);
+		return out.count;
+	}
+
+	/**
+	 * Discards the output, so only the serialization is measured
+	 */
+	private static class CountingOutputStream extends OutputStream
+	{
+		long count = 0;
+
+		public void write(int b)
+		{
+			count++;
+		}
+
+		public void write(byte[] b, int off, int len)
+		{
+			count += len;
+		}
+	}
+}
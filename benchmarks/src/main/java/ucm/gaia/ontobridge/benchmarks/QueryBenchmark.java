@@ -0,0 +1,88 @@
+/**
+ * OntoBride library.
+ * GAIA - Group for Artifical Intelligence Applications
+ * Departamento de Ingeniería del Software e Inteligencia Artificial
+ * Universidad Complutense de Madrid
+ *
+ * Licensed under the terms of the GNU Library or Lesser General Public License (LGPL)
+ *
+ * This software is a subproject of the jCOLIBRI framework
+ * http://sourceforge.net/projects/jcolibri-cbr/
+ * http://gaia.fdi.ucm.es/projects/jcolibri/
+ *
+ * File: QueryBenchmark.java
+ * 18/10/2026
+ */
+package ucm.gaia.ontobridge.benchmarks;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Navigation of the ontology: subclasses, instances, membership tests and name conversions.
+ * The iterators are consumed, as the callers do.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryBenchmark {
+
+	@Benchmark
+	public void listDirectSubClasses(OntologyState s, Blackhole bh)
+	{
+		consume(s.ob.listSubClasses(s.rootClass, true), bh);
+	}
+
+	@Benchmark
+	public void listAllSubClasses(OntologyState s, Blackhole bh)
+	{
+		consume(s.ob.listSubClasses(s.rootClass, false), bh);
+	}
+
+	@Benchmark
+	public void listInstances(OntologyState s, Blackhole bh)
+	{
+		consume(s.ob.listInstances(s.instanceRoot), bh);
+	}
+
+	@Benchmark
+	public boolean isSubClassOf(OntologyState s)
+	{
+		return s.ob.isSubClassOf(s.deepClass, s.rootClass);
+	}
+
+	@Benchmark
+	public boolean isInstanceOf(OntologyState s)
+	{
+		return s.ob.isInstanceOf(s.instance1, s.instanceRoot);
+	}
+
+	@Benchmark
+	public String getShortName(OntologyState s)
+	{
+		return s.ob.getShortName(s.deepClass);
+	}
+
+	@Benchmark
+	public String getURI(OntologyState s)
+	{
+		return s.ob.getURI(s.deepClassShortName);
+	}
+
+	static void consume(Iterator<?> iter, Blackhole bh)
+	{
+		while(iter.hasNext())
+			bh.consume(iter.next());
+	}
+}
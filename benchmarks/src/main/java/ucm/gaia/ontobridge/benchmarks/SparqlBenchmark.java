@@ -0,0 +1,93 @@
+/**
+ * OntoBride library.
+ * GAIA - Group for Artifical Intelligence Applications
+ * Departamento de Ingeniería del Software e Inteligencia Artificial
+ * Universidad Complutense de Madrid
+ *
+ * Licensed under the terms of the GNU Library or Lesser General Public License (LGPL)
+ *
+ * This software is a subproject of the jCOLIBRI framework
+ * http://sourceforge.net/projects/jcolibri-cbr/
+ * http://gaia.fdi.ucm.es/projects/jcolibri/
+ *
+ * File: SparqlBenchmark.java
+ * 18/10/2026
+ */
+package ucm.gaia.ontobridge.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ucm.gaia.ontobridge.SPARQL;
+
+import com.hp.hpl.jena.rdf.model.Model;
+
+/**
+ * The SPARQL exec* methods. The queries ask for the individuals of a root class, so with inference
+ * they are answered by the reasoner.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SparqlBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class Queries {
+
+		SPARQL sparql;
+		String select;
+		String ask;
+		String construct;
+		String describe;
+
+		@Setup(Level.Trial)
+		public void setUp(OntologyState s)
+		{
+			sparql = new SPARQL(s.ob);
+			String root = "<" + s.instanceRoot + ">";
+			String instance = "<" + s.instance1 + ">";
+			select = "SELECT ?x WHERE { ?x a " + root + " }";
+			ask = "ASK { " + instance + " a " + root + " }";
+			construct = "CONSTRUCT { ?x a " + root + " } WHERE { ?x a " + root + " }";
+			describe = "DESCRIBE " + instance;
+		}
+	}
+
+	@Benchmark
+	public void execSelectQuery(Queries q, Blackhole bh)
+	{
+		QueryBenchmark.consume(q.sparql.execSelectQuery(q.select), bh);
+	}
+
+	@Benchmark
+	public boolean execAskQuery(Queries q)
+	{
+		return q.sparql.execAskQuery(q.ask);
+	}
+
+	@Benchmark
+	public Model execConstructQuery(Queries q)
+	{
+		return q.sparql.execConstructQuery(q.construct);
+	}
+
+	@Benchmark
+	public Model execDescribeQuery(Queries q)
+	{
+		return q.sparql.execDescribeQuery(q.describe);
+	}
+}
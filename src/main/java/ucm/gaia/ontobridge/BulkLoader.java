@@ -0,0 +1,172 @@
+/**
+ * OntoBride library.
+ * GAIA - Group for Artifical Intelligence Applications
+ * Departamento de Ingeniería del Software e Inteligencia Artificial
+ * Universidad Complutense de Madrid
+ *
+ * Licensed under the terms of the GNU Library or Lesser General Public License (LGPL)
+ *
+ * This software is a subproject of the jCOLIBRI framework
+ * http://sourceforge.net/projects/jcolibri-cbr/
+ * http://gaia.fdi.ucm.es/projects/jcolibri/
+ *
+ * File: BulkLoader.java
+ * 18/10/2026
+ */
+package ucm.gaia.ontobridge;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import org.openjena.atlas.lib.Sink;
+import org.openjena.riot.Lang;
+import org.openjena.riot.RiotReader;
+
+import com.hp.hpl.jena.graph.Graph;
+import com.hp.hpl.jena.graph.Triple;
+
+/**
+ * Streams the statements of a document into a graph in batches.<br>
+ * The document is parsed with the RIOT streaming parsers, so only the current batch is kept in memory.
+ * Every batch is added with a single bulk update, so the listeners of the graph (and the reasoner)
+ * are notified once per batch instead of once per statement.
+ */
+class BulkLoader implements Sink<Triple> {
+
+	private final Graph _graph;
+	private final Triple[] _batch;
+	private final LoadListener _listener;
+	private int _size = 0;
+	private long _count = 0;
+	private long _start;
+	private CountingInputStream _in;
+
+	/**
+	 * @param graph graph where the statements are added
+	 * @param batchSize number of statements added at once
+	 * @param listener listener notified after every batch, or null
+	 */
+	BulkLoader(Graph graph, int batchSize, LoadListener listener)
+	{
+		if(batchSize <= 0)
+			throw new IllegalArgumentException("Invalid batch size: " + batchSize);
+		_graph = graph;
+		_batch = new Triple[batchSize];
+		_listener = listener;
+	}
+
+	/**
+	 * Returns the parser language of a format
+	 */
+	static Lang lang(SerializationFormat format)
+	{
+		switch(format)
+		{
+			case N_TRIPLES:
+				return Lang.NTRIPLES;
+			case TURTLE:
+				return Lang.TURTLE;
+			case RDF_XML:
+			case RDF_XML_ABBREV:
+				return Lang.RDFXML;
+			default:
+				throw new IllegalArgumentException("Format cannot be streamed: " + format);
+		}
+	}
+
+	/**
+	 * Parses a document and adds its statements to the graph
+	 * @return the number of statements added
+	 */
+	long load(InputStream in, SerializationFormat format, String baseURI)
+	{
+		_start = System.nanoTime();
+		_in = new CountingInputStream(in);
+		RiotReader.parseTriples(_in, lang(format), baseURI, this);
+		flush();
+		return _count;
+	}
+
+	/**
+	 * Number of statements added so far
+	 */
+	long getCount()
+	{
+		return _count;
+	}
+
+	/**
+	 * Milliseconds since the load started
+	 */
+	long getElapsedMillis()
+	{
+		return (System.nanoTime() - _start) / 1000000;
+	}
+
+	public void send(Triple t)
+	{
+		_batch[_size++] = t;
+		if(_size == _batch.length)
+			flush();
+	}
+
+	public void flush()
+	{
+		if(_size == 0)
+			return;
+		_graph.getBulkUpdateHandler().add(_size == _batch.length ? _batch : Arrays.copyOf(_batch, _size));
+		_count += _size;
+		Arrays.fill(_batch, 0, _size, null);
+		_size = 0;
+		if(_listener != null)
+			_listener.loaded(_count, _in.getCount(), getElapsedMillis());
+	}
+
+	public void close()
+	{
+		flush();
+	}
+
+	/**
+	 * Stream that counts the bytes read
+	 */
+	private static class CountingInputStream extends FilterInputStream
+	{
+		private long _count = 0;
+
+		CountingInputStream(InputStream in)
+		{
+			super(in);
+		}
+
+		long getCount()
+		{
+			return _count;
+		}
+
+		public int read() throws IOException
+		{
+			int b = super.read();
+			if(b >= 0)
+				_count++;
+			return b;
+		}
+
+		public int read(byte[] b, int off, int len) throws IOException
+		{
+			int n = super.read(b, off, len);
+			if(n > 0)
+				_count += n;
+			return n;
+		}
+
+		public long skip(long n) throws IOException
+		{
+			long skipped = super.skip(n);
+			_count += skipped;
+			return skipped;
+		}
+	}
+}
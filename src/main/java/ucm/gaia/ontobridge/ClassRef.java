@@ -0,0 +1,77 @@
+/**
+ * OntoBride library.
+ * GAIA - Group for Artifical Intelligence Applications
+ * Departamento de Ingeniería del Software e Inteligencia Artificial
+ * Universidad Complutense de Madrid
+ *
+ * Licensed under the terms of the GNU Library or Lesser General Public License (LGPL)
+ *
+ * This software is a subproject of the jCOLIBRI framework
+ * http://sourceforge.net/projects/jcolibri-cbr/
+ * http://gaia.fdi.ucm.es/projects/jcolibri/
+ *
+ * File: ClassRef.java
+ * 18/10/2026
+ */
+package ucm.gaia.ontobridge;
+
+import com.hp.hpl.jena.ontology.OntClass;
+import com.hp.hpl.jena.rdf.model.Resource;
+
+/**
+ * Handle to a class of the ontology.
+ * It remembers its id in the hierarchy index of OntoBridge.
+ */
+public class ClassRef extends ResourceRef {
+
+	private OntClass _class;
+	/** Id of the class in the last index used. Replaced as a whole so threads see a consistent pair. */
+	private volatile IndexedId _indexed;
+
+	ClassRef(Resource resource)
+	{
+		super(resource);
+	}
+
+	ClassRef(Resource resource, HierarchyIndex index, int id)
+	{
+		super(resource);
+		_indexed = new IndexedId(index, id);
+	}
+
+	/**
+	 * Returns the JENA class of this handle
+	 */
+	public OntClass getOntClass()
+	{
+		if(_class == null)
+			_class = _resource.as(OntClass.class);
+		return _class;
+	}
+
+	/**
+	 * Returns the id of the class in the given index, or HierarchyIndex.NONE if it is not indexed.
+	 */
+	int hierarchyId(HierarchyIndex index)
+	{
+		IndexedId indexed = _indexed;
+		if(indexed == null || indexed.index != index)
+		{
+			indexed = new IndexedId(index, _resource.isURIResource() ? index.id(_resource.getURI()) : HierarchyIndex.NONE);
+			_indexed = indexed;
+		}
+		return indexed.id;
+	}
+
+	private static class IndexedId
+	{
+		final HierarchyIndex index;
+		final int id;
+
+		IndexedId(HierarchyIndex index, int id)
+		{
+			this.index = index;
+			this.id = id;
+		}
+	}
+}
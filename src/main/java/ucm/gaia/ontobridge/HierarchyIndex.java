@@ -0,0 +1,781 @@
+/**
+ * OntoBride library.
+ * GAIA - Group for Artifical Intelligence Applications
+ * Departamento de Ingeniería del Software e Inteligencia Artificial
+ * Universidad Complutense de Madrid
+ *
+ * Licensed under the terms of the GNU Library or Lesser General Public License (LGPL)
+ *
+ * This software is a subproject of the jCOLIBRI framework
+ * http://sourceforge.net/projects/jcolibri-cbr/
+ * http://gaia.fdi.ucm.es/projects/jcolibri/
+ *
+ * File: HierarchyIndex.java
+ * 18/10/2026
+ */
+package ucm.gaia.ontobridge;
+
+import com.hp.hpl.jena.ontology.OntClass;
+import com.hp.hpl.jena.ontology.OntModel;
+import com.hp.hpl.jena.rdf.model.RDFNode;
+import com.hp.hpl.jena.rdf.model.Resource;
+import com.hp.hpl.jena.rdf.model.Statement;
+import com.hp.hpl.jena.rdf.model.StmtIterator;
+import com.hp.hpl.jena.util.iterator.ExtendedIterator;
+import com.hp.hpl.jena.vocabulary.OWL;
+import com.hp.hpl.jena.vocabulary.RDFS;
+import com.hp.hpl.jena.vocabulary.ReasonerVocabulary;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Compact, read-only index of the named class hierarchy of an ontology model.<br>
+ * Every named class receives an int id. Depths and direct parent/child adjacency
+ * are stored as primitive arrays, so that depth and sub/super class queries do not
+ * need to go through the reasoner once the index has been built.<br>
+ * The index is built in a single pass over the classified taxonomy
+ * (the direct subclass statements published by the reasoner) or, when the model
+ * has no reasoner, over the asserted rdfs:subClassOf statements.
+ * Anonymous class expressions are not part of the index.
+ */
+public class HierarchyIndex {
+
+	/** Id returned for unknown classes */
+	public static final int NONE = -1;
+
+	private final String[] _uris;
+	private final HashMap<String,Integer> _ids;
+	private final int[] _depth;
+	private final int[] _parentStart;
+	private final int[] _parents;
+	private final int[] _childStart;
+	private final int[] _children;
+	private final int _thing;
+	private final int _nothing;
+	private final int _maxDepth;
+	/** Sorted ancestor closures (including the class itself), computed on demand by any thread */
+	private final AtomicReferenceArray<int[]> _ancestorClosure;
+
+	private HierarchyIndex(List<String> uris, HashMap<String,Integer> ids, IntPairs edges, int thing, int nothing)
+	{
+		int n = uris.size();
+		_uris = uris.toArray(new String[n]);
+		_ids = ids;
+		_thing = thing;
+		_nothing = nothing;
+
+		// Edges are sorted by child, so the parents table is filled in order
+		edges.sortAndDedup();
+		_parentStart = new int[n+1];
+		_parents = new int[edges.size()];
+		for(int e=0; e<edges.size(); e++)
+			_parentStart[edges.first(e)+1]++;
+		for(int i=0; i<n; i++)
+			_parentStart[i+1] += _parentStart[i];
+		for(int e=0; e<edges.size(); e++)
+			_parents[e] = edges.second(e);
+
+		_childStart = new int[n+1];
+		_children = new int[_parents.length];
+		fillChildren();
+
+		_depth = new int[n];
+		computeDepths();
+		_maxDepth = computeMaxDepth();
+		_ancestorClosure = new AtomicReferenceArray<int[]>(n);
+	}
+
+	/**
+	 * Creates an index from its stored tables. Depths are not computed again.
+	 */
+	private HierarchyIndex(String[] uris, int[] parentStart, int[] parents, int[] depth, int thing, int nothing)
+	{
+		int n = uris.length;
+		_uris = uris;
+		_ids = new HashMap<String,Integer>(n*2);
+		for(int i=0; i<n; i++)
+			_ids.put(uris[i], i);
+		_thing = thing;
+		_nothing = nothing;
+		_parentStart = parentStart;
+		_parents = parents;
+		_childStart = new int[n+1];
+		_children = new int[parents.length];
+		fillChildren();
+		_depth = depth;
+		_maxDepth = computeMaxDepth();
+		_ancestorClosure = new AtomicReferenceArray<int[]>(n);
+	}
+
+	/**
+	 * Fills the children table inverting the parents table
+	 */
+	private void fillChildren()
+	{
+		int n = _uris.length;
+		for(int k=0; k<_parents.length; k++)
+			_childStart[_parents[k]+1]++;
+		for(int i=0; i<n; i++)
+			_childStart[i+1] += _childStart[i];
+		int[] fill = Arrays.copyOf(_childStart, n);
+		for(int c=0; c<n; c++)
+			for(int k=_parentStart[c]; k<_parentStart[c+1]; k++)
+				_children[fill[_parents[k]]++] = c;
+	}
+
+	/**
+	 * Assigns to every class the length of the longest path from the hierarchy root.
+	 * owl:Thing has depth 0 and the root classes depth 1.
+	 */
+	private void computeDepths()
+	{
+		int n = _uris.length;
+		int[] pending = new int[n];
+		int[] queue = new int[n];
+		int head = 0, tail = 0;
+		for(int i=0; i<n; i++)
+		{
+			pending[i] = _parentStart[i+1] - _parentStart[i];
+			if(pending[i] == 0)
+			{
+				_depth[i] = (i == _thing) ? 0 : 1;
+				queue[tail++] = i;
+			}
+		}
+		while(head < tail)
+		{
+			int c = queue[head++];
+			for(int k=_childStart[c]; k<_childStart[c+1]; k++)
+			{
+				int child = _children[k];
+				if(_depth[c]+1 > _depth[child])
+					_depth[child] = _depth[c]+1;
+				if(--pending[child] == 0)
+					queue[tail++] = child;
+			}
+		}
+		// Classes in subclass cycles (equivalent classes) hang from their deepest visited parent
+		if(tail < n)
+			for(int i=0; i<n; i++)
+				if(pending[i] > 0)
+					for(int k=_parentStart[i]; k<_parentStart[i+1]; k++)
+						_depth[i] = Math.max(_depth[i], Math.max(1, _depth[_parents[k]]+1));
+	}
+
+	/**
+	 * Returns the maximum depth, not counting owl:Nothing
+	 */
+	private int computeMaxDepth()
+	{
+		int n = _uris.length;
+		int max = 0;
+		for(int i=0; i<n; i++)
+			if(i != _nothing && _depth[i] > max)
+				max = _depth[i];
+		return max;
+	}
+
+	/**
+	 * Builds the index of the given model.
+	 * @param model ontology model, with or without reasoner.
+	 */
+	public static HierarchyIndex build(OntModel model)
+	{
+		ArrayList<String> uris = new ArrayList<String>();
+		HashMap<String,Integer> ids = new HashMap<String,Integer>();
+		IntPairs edges = new IntPairs();
+
+		int thing = intern(OWL.Thing.getURI(), uris, ids);
+
+		boolean inferred = false;
+		if(model.getSpecification().getReasoner() != null)
+		{
+			StmtIterator si = model.listStatements(null, ReasonerVocabulary.directSubClassOf, (RDFNode)null);
+			while(si.hasNext())
+			{
+				Statement st = si.nextStatement();
+				if(addEdge(st, uris, ids, edges))
+					inferred = true;
+			}
+		}
+
+		if(!inferred)
+		{
+			// No classified taxonomy available: use the asserted hierarchy
+			for(ExtendedIterator<OntClass> iter = model.listClasses(); iter.hasNext();)
+			{
+				OntClass c = iter.next();
+				if(c.isURIResource())
+					intern(c.getURI(), uris, ids);
+			}
+			StmtIterator si = model.listStatements(null, RDFS.subClassOf, (RDFNode)null);
+			while(si.hasNext())
+			{
+				Statement st = si.nextStatement();
+				if(!st.getObject().equals(OWL.Thing))
+					addEdge(st, uris, ids, edges);
+			}
+			edges = reduce(edges, uris.size());
+		}
+
+		Integer nothing = ids.get(OWL.Nothing.getURI());
+		return new HierarchyIndex(uris, ids, edges, thing, nothing == null ? NONE : nothing);
+	}
+
+	private static int intern(String uri, List<String> uris, HashMap<String,Integer> ids)
+	{
+		Integer id = ids.get(uri);
+		if(id == null)
+		{
+			id = uris.size();
+			uris.add(uri);
+			ids.put(uri, id);
+		}
+		return id;
+	}
+
+	private static boolean addEdge(Statement st, List<String> uris, HashMap<String,Integer> ids, IntPairs edges)
+	{
+		Resource sub = st.getSubject();
+		RDFNode sup = st.getObject();
+		if(!sub.isURIResource() || !sup.isURIResource() || sub.equals(sup))
+			return false;
+		edges.add(intern(sub.getURI(), uris, ids), intern(((Resource)sup).getURI(), uris, ids));
+		return true;
+	}
+
+	/**
+	 * Removes the asserted edges that are implied by other edges (transitive reduction),
+	 * so only direct parents are kept.
+	 */
+	private static IntPairs reduce(IntPairs edges, int n)
+	{
+		edges.sortAndDedup();
+		int[] start = new int[n+1];
+		for(int e=0; e<edges.size(); e++)
+			start[edges.first(e)+1]++;
+		for(int i=0; i<n; i++)
+			start[i+1] += start[i];
+
+		IntPairs res = new IntPairs();
+		int[] mark = new int[n];
+		int[] stack = new int[n];
+		int stamp = 0;
+		for(int c=0; c<n; c++)
+		{
+			if(start[c+1]-start[c] < 2)
+			{
+				for(int e=start[c]; e<start[c+1]; e++)
+					res.add(c, edges.second(e));
+				continue;
+			}
+			// Mark every ancestor reachable through another parent
+			stamp++;
+			int sp = 0;
+			for(int e=start[c]; e<start[c+1]; e++)
+			{
+				int p = edges.second(e);
+				for(int f=start[p]; f<start[p+1]; f++)
+				{
+					int a = edges.second(f);
+					if(mark[a] != stamp && a != c)
+					{
+						mark[a] = stamp;
+						stack[sp++] = a;
+					}
+				}
+			}
+			while(sp > 0)
+			{
+				int a = stack[--sp];
+				for(int f=start[a]; f<start[a+1]; f++)
+				{
+					int b = edges.second(f);
+					if(mark[b] != stamp && b != c)
+					{
+						mark[b] = stamp;
+						stack[sp++] = b;
+					}
+				}
+			}
+			int kept = 0;
+			for(int e=start[c]; e<start[c+1]; e++)
+				if(mark[edges.second(e)] != stamp)
+				{
+					res.add(c, edges.second(e));
+					kept++;
+				}
+			// Parents that subsume each other (cycles) are all kept
+			if(kept == 0)
+				for(int e=start[c]; e<start[c+1]; e++)
+					res.add(c, edges.second(e));
+		}
+		return res;
+	}
+
+	/**************************************************************/
+	/*                    Incremental updates                     */
+	/**************************************************************/
+
+	/**
+	 * Returns a copy of the index where a class without subclasses has the given direct parents.
+	 * The class is added to the index if it is not indexed yet (with the next free id, so the ids
+	 * of the other classes do not change).<br>
+	 * As the class has no subclasses, only its depth and the depth of owl:Nothing can change, 
+	 * and the hierarchy is not traversed again. Parents implied by other parents are discarded.
+	 * If owl:Nothing is placed under the leaf classes (classified taxonomy), it is moved accordingly.
+	 * @param uri class to update
+	 * @param parentUris URIs of the superclasses of the class
+	 * @return the updated index, or null if the class has subclasses, is owl:Thing or owl:Nothing,
+	 *         or some parent is not indexed, so the index must be built again
+	 */
+	public HierarchyIndex withLeaf(String uri, Collection<String> parentUris)
+	{
+		int n = _uris.length;
+		int id = id(uri);
+		if(id == _thing || (id != NONE && id == _nothing))
+			return null;
+		if(id != NONE)
+			for(int k=_childStart[id]; k<_childStart[id+1]; k++)
+				if(_children[k] != _nothing)
+					return null;
+
+		// Direct parents
+		int[] candidates = new int[parentUris.size()];
+		int count = 0;
+		for(String parentUri : parentUris)
+		{
+			int p = id(parentUri);
+			if(p == NONE)
+				return null;
+			if(p != id && p != _nothing)
+				candidates[count++] = p;
+		}
+		Arrays.sort(candidates, 0, count);
+		int[] parents = new int[count];
+		int direct = 0;
+		for(int i=0; i<count; i++)
+		{
+			int p = candidates[i];
+			if(i > 0 && p == candidates[i-1])
+				continue;
+			boolean implied = false;
+			for(int j=0; j<count && !implied; j++)
+				if(candidates[j] != p && isAncestor(p, candidates[j]) && !isAncestor(candidates[j], p))
+					implied = true;
+			if(!implied)
+				parents[direct++] = p;
+		}
+		parents = Arrays.copyOf(parents, direct);
+
+		int size = (id == NONE) ? n+1 : n;
+		String[] uris = (id == NONE) ? Arrays.copyOf(_uris, size) : _uris;
+		if(id == NONE)
+		{
+			id = n;
+			uris[id] = uri;
+		}
+		int[] oldParents = (id < n) ? directParents(id) : new int[0];
+
+		// owl:Nothing hangs from the classes without other subclasses
+		int[] nothingParents = null;
+		if(_nothing != NONE && _parentStart[_nothing+1] > _parentStart[_nothing])
+		{
+			IntPairs kept = new IntPairs();
+			for(int k=_parentStart[_nothing]; k<_parentStart[_nothing+1]; k++)
+				if(Arrays.binarySearch(parents, _parents[k]) < 0)
+					kept.add(_nothing, _parents[k]);
+			kept.add(_nothing, id);
+			for(int p : oldParents)
+				if(Arrays.binarySearch(parents, p) < 0 && p != _thing && onlyChild(p, id))
+					kept.add(_nothing, p);
+			kept.sortAndDedup();
+			nothingParents = new int[kept.size()];
+			for(int e=0; e<kept.size(); e++)
+				nothingParents[e] = kept.second(e);
+		}
+
+		int[] parentStart = new int[size+1];
+		int total = 0;
+		for(int c=0; c<size; c++)
+		{
+			parentStart[c] = total;
+			if(c == id)
+				total += parents.length;
+			else if(c == _nothing && nothingParents != null)
+				total += nothingParents.length;
+			else
+				total += _parentStart[c+1] - _parentStart[c];
+		}
+		parentStart[size] = total;
+		int[] allParents = new int[total];
+		for(int c=0; c<size; c++)
+		{
+			if(c == id)
+				System.arraycopy(parents, 0, allParents, parentStart[c], parents.length);
+			else if(c == _nothing && nothingParents != null)
+				System.arraycopy(nothingParents, 0, allParents, parentStart[c], nothingParents.length);
+			else
+				System.arraycopy(_parents, _parentStart[c], allParents, parentStart[c], _parentStart[c+1] - _parentStart[c]);
+		}
+
+		int[] depth = Arrays.copyOf(_depth, size);
+		depth[id] = 1;
+		for(int p : parents)
+			depth[id] = Math.max(depth[id], _depth[p]+1);
+		if(nothingParents != null)
+		{
+			depth[_nothing] = 1;
+			for(int p : nothingParents)
+				depth[_nothing] = Math.max(depth[_nothing], depth[p]+1);
+		}
+		return new HierarchyIndex(uris, parentStart, allParents, depth, _thing, _nothing);
+	}
+
+	/**
+	 * Checks if a class is a (direct or indirect) superclass of other
+	 */
+	private boolean isAncestor(int ancestor, int id)
+	{
+		return Arrays.binarySearch(ancestorClosure(id), ancestor) >= 0 && ancestor != id;
+	}
+
+	/**
+	 * Checks if a class has no subclasses other than the given one and owl:Nothing
+	 */
+	private boolean onlyChild(int parent, int child)
+	{
+		for(int k=_childStart[parent]; k<_childStart[parent+1]; k++)
+			if(_children[k] != child && _children[k] != _nothing)
+				return false;
+		return true;
+	}
+
+	/**************************************************************/
+	/*                    Persistence                             */
+	/**************************************************************/
+
+	/**
+	 * Writes the tables of the index: class URIs, direct parents and depths.
+	 */
+	public void write(DataOutput out) throws IOException
+	{
+		out.writeInt(_uris.length);
+		for(String uri : _uris)
+			out.writeUTF(uri);
+		writeInts(out, _parentStart);
+		writeInts(out, _parents);
+		writeInts(out, _depth);
+		out.writeInt(_thing);
+		out.writeInt(_nothing);
+	}
+
+	/**
+	 * Reads an index written by write(). Nothing is computed again except the children table.
+	 */
+	public static HierarchyIndex read(DataInput in) throws IOException
+	{
+		String[] uris = new String[in.readInt()];
+		for(int i=0; i<uris.length; i++)
+			uris[i] = in.readUTF();
+		int[] parentStart = readInts(in);
+		int[] parents = readInts(in);
+		int[] depth = readInts(in);
+		int thing = in.readInt();
+		int nothing = in.readInt();
+		if(parentStart.length != uris.length+1 || depth.length != uris.length
+				|| parentStart[uris.length] != parents.length || thing < 0 || thing >= uris.length)
+			throw new IOException("Corrupted hierarchy index");
+		return new HierarchyIndex(uris, parentStart, parents, depth, thing, nothing);
+	}
+
+	private static void writeInts(DataOutput out, int[] values) throws IOException
+	{
+		out.writeInt(values.length);
+		for(int v : values)
+			out.writeInt(v);
+	}
+
+	private static int[] readInts(DataInput in) throws IOException
+	{
+		int[] values = new int[in.readInt()];
+		for(int i=0; i<values.length; i++)
+			values[i] = in.readInt();
+		return values;
+	}
+
+	/**************************************************************/
+	/*                    Query methods                           */
+	/**************************************************************/
+
+	/**
+	 * Number of classes in the index
+	 */
+	public int size()
+	{
+		return _uris.length;
+	}
+
+	/**
+	 * Returns the id of a class or NONE if the class is not indexed.
+	 * @param uri full URI of the class
+	 */
+	public int id(String uri)
+	{
+		Integer id = _ids.get(uri);
+		return (id == null) ? NONE : id;
+	}
+
+	/**
+	 * Returns the URI of a class id
+	 */
+	public String uri(int id)
+	{
+		return _uris[id];
+	}
+
+	/**
+	 * Returns the id of owl:Thing
+	 */
+	public int thing()
+	{
+		return _thing;
+	}
+
+	/**
+	 * Returns the id of owl:Nothing or NONE if the reasoner did not report it.
+	 */
+	public int nothing()
+	{
+		return _nothing;
+	}
+
+	/**
+	 * Returns the depth of a class. owl:Thing has depth 0.
+	 */
+	public int depth(int id)
+	{
+		return _depth[id];
+	}
+
+	/**
+	 * Returns the maximum depth of the hierarchy (owl:Nothing is not counted).
+	 */
+	public int maxDepth()
+	{
+		return _maxDepth;
+	}
+
+	/**
+	 * Returns the ids of the direct superclasses of a class
+	 */
+	public int[] directParents(int id)
+	{
+		return Arrays.copyOfRange(_parents, _parentStart[id], _parentStart[id+1]);
+	}
+
+	/**
+	 * Returns the ids of the direct subclasses of a class
+	 */
+	public int[] directChildren(int id)
+	{
+		return Arrays.copyOfRange(_children, _childStart[id], _childStart[id+1]);
+	}
+
+	/**
+	 * Returns the ids of all the (direct and indirect) superclasses of a class
+	 */
+	public int[] ancestors(int id)
+	{
+		return closure(id, _parentStart, _parents);
+	}
+
+	/**
+	 * Returns the ids of all the (direct and indirect) subclasses of a class
+	 */
+	public int[] descendants(int id)
+	{
+		return closure(id, _childStart, _children);
+	}
+
+	private int[] closure(int id, int[] start, int[] adj)
+	{
+		boolean[] visited = new boolean[_uris.length];
+		int[] res = new int[_uris.length];
+		int head = 0, tail = 0;
+		visited[id] = true;
+		res[tail++] = id;
+		while(head < tail)
+		{
+			int c = res[head++];
+			for(int k=start[c]; k<start[c+1]; k++)
+				if(!visited[adj[k]])
+				{
+					visited[adj[k]] = true;
+					res[tail++] = adj[k];
+				}
+		}
+		return Arrays.copyOfRange(res, 1, tail);
+	}
+
+	/**
+	 * Returns the sorted ids of a class and all its superclasses.
+	 * The returned array is shared and must not be modified.
+	 */
+	int[] ancestorClosure(int id)
+	{
+		int[] res = _ancestorClosure.get(id);
+		if(res == null)
+		{
+			int[] anc = ancestors(id);
+			res = Arrays.copyOf(anc, anc.length+1);
+			res[anc.length] = id;
+			Arrays.sort(res);
+			_ancestorClosure.set(id, res);
+		}
+		return res;
+	}
+
+	/**
+	 * Returns the sorted ids of the given classes and all their superclasses.
+	 * owl:Thing is always included.
+	 * @param ids classes
+	 * @param count number of valid entries in ids
+	 */
+	public int[] closure(int[] ids, int count)
+	{
+		// owl:Thing has id 0, so it is the first element of any closure containing it
+		if(count == 1 && ancestorClosure(ids[0])[0] == _thing)
+			return ancestorClosure(ids[0]);
+		int total = 1;
+		for(int i=0; i<count; i++)
+			total += ancestorClosure(ids[i]).length;
+		int[] all = new int[total];
+		int pos = 0;
+		all[pos++] = _thing;
+		for(int i=0; i<count; i++)
+		{
+			int[] anc = ancestorClosure(ids[i]);
+			System.arraycopy(anc, 0, all, pos, anc.length);
+			pos += anc.length;
+		}
+		Arrays.sort(all);
+		int w = 0;
+		for(int r=0; r<all.length; r++)
+			if(w == 0 || all[r] != all[w-1])
+				all[w++] = all[r];
+		return (w == all.length) ? all : Arrays.copyOf(all, w);
+	}
+
+	/**
+	 * Returns the maximum depth of the classes shared by two sorted closures,
+	 * or Integer.MIN_VALUE if they have no common class.
+	 */
+	public int maxCommonDepth(int[] closure1, int[] closure2)
+	{
+		int max = Integer.MIN_VALUE;
+		int i = 0, j = 0;
+		while(i < closure1.length && j < closure2.length)
+		{
+			if(closure1[i] < closure2[j])
+				i++;
+			else if(closure1[i] > closure2[j])
+				j++;
+			else
+			{
+				if(_depth[closure1[i]] > max)
+					max = _depth[closure1[i]];
+				i++;
+				j++;
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * Returns the deepest classes shared by two sorted closures (the Least Common Subsumers).
+	 */
+	public int[] deepestCommon(int[] closure1, int[] closure2)
+	{
+		int max = maxCommonDepth(closure1, closure2);
+		int[] res = new int[Math.min(closure1.length, closure2.length)];
+		int count = 0;
+		int i = 0, j = 0;
+		while(i < closure1.length && j < closure2.length)
+		{
+			if(closure1[i] < closure2[j])
+				i++;
+			else if(closure1[i] > closure2[j])
+				j++;
+			else
+			{
+				if(_depth[closure1[i]] == max)
+					res[count++] = closure1[i];
+				i++;
+				j++;
+			}
+		}
+		return Arrays.copyOf(res, count);
+	}
+
+	/**
+	 * Converts a list of ids into their URIs
+	 */
+	public List<String> uris(int[] ids)
+	{
+		ArrayList<String> list = new ArrayList<String>(ids.length);
+		for(int id : ids)
+			list.add(_uris[id]);
+		return list;
+	}
+
+
+	/**
+	 * Growable list of (child, parent) int pairs
+	 */
+	private static class IntPairs
+	{
+		private long[] _data = new long[64];
+		private int _size = 0;
+
+		void add(int first, int second)
+		{
+			if(_size == _data.length)
+				_data = Arrays.copyOf(_data, _size*2);
+			_data[_size++] = ((long)first << 32) | (second & 0xFFFFFFFFL);
+		}
+
+		int size()
+		{
+			return _size;
+		}
+
+		int first(int i)
+		{
+			return (int)(_data[i] >>> 32);
+		}
+
+		int second(int i)
+		{
+			return (int)_data[i];
+		}
+
+		void sortAndDedup()
+		{
+			Arrays.sort(_data, 0, _size);
+			int w = 0;
+			for(int r=0; r<_size; r++)
+				if(w == 0 || _data[r] != _data[w-1])
+					_data[w++] = _data[r];
+			_size = w;
+		}
+	}
+}
@@ -0,0 +1,271 @@
+/**
+ * OntoBride library.
+ * GAIA - Group for Artifical Intelligence Applications
+ * Departamento de Ingeniería del Software e Inteligencia Artificial
+ * Universidad Complutense de Madrid
+ *
+ * Licensed under the terms of the GNU Library or Lesser General Public License (LGPL)
+ *
+ * This software is a subproject of the jCOLIBRI framework
+ * http://sourceforge.net/projects/jcolibri-cbr/
+ * http://gaia.fdi.ucm.es/projects/jcolibri/
+ *
+ * File: InferenceCache.java
+ * 18/10/2026
+ */
+package ucm.gaia.ontobridge;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.hp.hpl.jena.graph.Graph;
+import com.hp.hpl.jena.ontology.OntDocumentManager;
+import com.hp.hpl.jena.ontology.OntModel;
+import com.hp.hpl.jena.reasoner.Reasoner;
+
+import org.mindswap.pellet.PelletOptions;
+import org.mindswap.pellet.jena.PelletReasoner;
+
+import ucm.gaia.ontobridge.util.BinaryGraph;
+
+/**
+ * Directory where the inferred closure of the loaded ontologies is stored, so the reasoner
+ * does not have to classify and realize them again when the same documents are loaded.<br>
+ * Every entry is a file named by a SHA-256 key computed from the content of the documents
+ * (main ontology, sub-ontologies and imports) and the configuration of the reasoner, including the 
+ * global options of PELLET. Changing
+ * any document or the reasoner produces a different key, so stale entries are never used.<br>
+ * An entry contains the tables of the HierarchyIndex (classes, direct parents and depths) and
+ * the asserted and inferred statements in the format of BinaryGraph, compressed with gzip.
+ * See OntoBridge.setInferenceCache().
+ */
+public class InferenceCache {
+
+	private static final int MAGIC = 0x4F424943;
+	private static final int FORMAT_VERSION = 2;
+	private static final String SUFFIX = ".obc";
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private final File _directory;
+
+	/**
+	 * Creates a cache stored in the given directory. The directory is created when the first entry is written.
+	 */
+	public InferenceCache(File directory)
+	{
+		_directory = directory;
+	}
+
+	/**
+	 * Returns the directory of the cache
+	 */
+	public File getDirectory()
+	{
+		return _directory;
+	}
+
+	/**
+	 * Returns the file of an entry
+	 */
+	public File getFile(String key)
+	{
+		return new File(_directory, key + SUFFIX);
+	}
+
+	/**
+	 * Returns true if there is an entry for the key
+	 */
+	public boolean contains(String key)
+	{
+		return getFile(key).isFile();
+	}
+
+	/**
+	 * Deletes every entry of the cache
+	 */
+	public void clear()
+	{
+		File[] files = _directory.listFiles();
+		if(files == null)
+			return;
+		for(File f : files)
+			if(f.getName().endsWith(SUFFIX))
+				f.delete();
+	}
+
+	/**************************************************************/
+	/*                         Keys                               */
+	/**************************************************************/
+
+	/**
+	 * Computes the key of the documents loaded in a model.
+	 * The model must contain the documents already read, so their imports are known.
+	 * @param model model with the reasoner whose configuration is part of the key
+	 * @param mainOntology main ontology document
+	 * @param subOntologies documents used by the main ontology
+	 * @param loadSubOntologies if the sub-ontologies were loaded into the model
+	 * @throws IOException if a document cannot be read
+	 */
+	public String key(OntModel model, OntologyDocument mainOntology, Collection<OntologyDocument> subOntologies,
+			boolean loadSubOntologies) throws IOException
+	{
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+		update(digest, "OntoBridge " + FORMAT_VERSION);
+
+		//Reasoner configuration
+		Reasoner reasoner = model.getSpecification().getReasoner();
+		if(reasoner != null)
+		{
+			update(digest, reasoner.getClass().getName());
+			update(digest, String.valueOf(reasoner.getClass().getPackage().getImplementationVersion()));
+			if(reasoner instanceof PelletReasoner)
+				updateOptions(digest);
+		}
+		update(digest, model.getProfile().getClass().getName());
+		update(digest, String.valueOf(loadSubOntologies));
+
+		//Documents, in loading order
+		Set<String> urls = new LinkedHashSet<String>();
+		urls.add(mainOntology.getURL());
+		for(OntologyDocument od : subOntologies)
+			urls.add(od.getURL());
+		for(Object uri : model.listImportedOntologyURIs(true))
+			urls.add((String)uri);
+
+		OntDocumentManager dm = model.getDocumentManager();
+		byte[] buffer = new byte[8192];
+		for(String url : urls)
+		{
+			update(digest, url);
+			String location = dm.doAltURLMapping(url);
+			InputStream in = dm.getFileManager().open(location);
+			if(in == null)
+				throw new FileNotFoundException(location);
+			try {
+				for(int n = in.read(buffer); n >= 0; n = in.read(buffer))
+					digest.update(buffer, 0, n);
+			} finally {
+				in.close();
+			}
+		}
+
+		StringBuilder key = new StringBuilder();
+		for(byte b : digest.digest())
+			key.append(String.format("%02x", b & 0xFF));
+		return key.toString();
+	}
+
+	/**
+	 * Adds the PELLET options to the key. They are static fields, so every one that holds a 
+	 * value is included except the progress monitor, which does not change the inferences.
+	 */
+	private static void updateOptions(MessageDigest digest) throws IOException
+	{
+		for(Field field : PelletOptions.class.getFields())
+		{
+			int modifiers = field.getModifiers();
+			Class<?> type = field.getType();
+			if(!Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers) || "USE_CLASSIFICATION_MONITOR".equals(field.getName()))
+				continue;
+			if(!type.isPrimitive() && !type.isEnum() && type != String.class)
+				continue;
+			try {
+				update(digest, field.getName() + "=" + field.get(null));
+			} catch (IllegalAccessException e) {
+				throw new IOException(e);
+			}
+		}
+	}
+
+	private static void update(MessageDigest digest, String value)
+	{
+		digest.update(value.getBytes(UTF8));
+		digest.update((byte)0);
+	}
+
+	/**************************************************************/
+	/*                    Reading and writing                     */
+	/**************************************************************/
+
+	/**
+	 * Stores the closure of a model and its hierarchy index. The entry is written to a
+	 * temporary file and then renamed, so readers never see an incomplete entry.
+	 * @param closure graph with the asserted and inferred statements
+	 */
+	public void write(String key, Graph closure, HierarchyIndex index) throws IOException
+	{
+		_directory.mkdirs();
+		File tmp = File.createTempFile(key, ".tmp", _directory);
+		try {
+			DataOutputStream out = new DataOutputStream(new GZIPOutputStream(
+					new BufferedOutputStream(new FileOutputStream(tmp), 1 << 16), 1 << 16));
+			try {
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT_VERSION);
+				out.writeUTF(key);
+				index.write(out);
+				BinaryGraph.write(closure, null, Channels.newChannel(out));
+			} finally {
+				out.close();
+			}
+			Files.move(tmp.toPath(), getFile(key).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			tmp.delete();
+		}
+	}
+
+	/**
+	 * Reads an entry.
+	 * @param into graph where the stored statements are added
+	 * @return the stored hierarchy index, or null if there is no entry for the key
+	 * @throws IOException if the entry cannot be read or it is not valid
+	 */
+	public HierarchyIndex read(String key, Graph into) throws IOException
+	{
+		File file = getFile(key);
+		if(!file.isFile())
+			return null;
+		DataInputStream in = new DataInputStream(new GZIPInputStream(
+				new BufferedInputStream(new FileInputStream(file), 1 << 16), 1 << 16));
+		try {
+			if(in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || !key.equals(in.readUTF()))
+				throw new IOException("Not a valid inference cache entry: " + file);
+			HierarchyIndex index = HierarchyIndex.read(in);
+			BinaryGraph.read(Channels.newChannel(in), into, null);
+			return index;
+		} finally {
+			in.close();
+		}
+	}
+
+	public String toString()
+	{
+		return "InferenceCache " + _directory;
+	}
+}
@@ -0,0 +1,42 @@
+/**
+ * OntoBride library.
+ * GAIA - Group for Artifical Intelligence Applications
+ * Departamento de Ingeniería del Software e Inteligencia Artificial
+ * Universidad Complutense de Madrid
+ *
+ * Licensed under the terms of the GNU Library or Lesser General Public License (LGPL)
+ *
+ * This software is a subproject of the jCOLIBRI framework
+ * http://sourceforge.net/projects/jcolibri-cbr/
+ * http://gaia.fdi.ucm.es/projects/jcolibri/
+ *
+ * File: InstanceRef.java
+ * 18/10/2026
+ */
+package ucm.gaia.ontobridge;
+
+import com.hp.hpl.jena.ontology.OntResource;
+import com.hp.hpl.jena.rdf.model.Resource;
+
+/**
+ * Handle to an instance of the ontology.
+ */
+public class InstanceRef extends ResourceRef {
+
+	private OntResource _instance;
+
+	InstanceRef(Resource resource)
+	{
+		super(resource);
+	}
+
+	/**
+	 * Returns the JENA resource of this handle as an ontology resource
+	 */
+	public OntResource getOntResource()
+	{
+		if(_instance == null)
+			_instance = _resource.as(OntResource.class);
+		return _instance;
+	}
+}
@@ -0,0 +1,168 @@
+/**
+ * OntoBride library.
+ * GAIA - Group for Artifical Intelligence Applications
+ * Departamento de Ingeniería del Software e Inteligencia Artificial
+ * Universidad Complutense de Madrid
+ *
+ * Licensed under the terms of the GNU Library or Lesser General Public License (LGPL)
+ *
+ * This software is a subproject of the jCOLIBRI framework
+ * http://sourceforge.net/projects/jcolibri-cbr/
+ * http://gaia.fdi.ucm.es/projects/jcolibri/
+ *
+ * File: LatencyHistogram.java
+ * 18/10/2026
+ */
+package ucm.gaia.ontobridge;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of latencies with a bounded relative error.<br>
+ * Values are counted in buckets: 8 buckets for every power of two, so percentiles are 
+ * accurate to 12.5% whatever the range of the values. Recording a value is lock free and
+ * does not allocate memory. The getters read the current values, so they can be used while
+ * other threads record.
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+	private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_BUCKETS;
+
+	private final AtomicLongArray _buckets = new AtomicLongArray(BUCKETS);
+	private final AtomicLong _count = new AtomicLong();
+	private final AtomicLong _total = new AtomicLong();
+	private final AtomicLong _max = new AtomicLong();
+
+	/**
+	 * Adds a value
+	 * @param nanos latency in nanoseconds. Negative values are counted as 0.
+	 */
+	public void record(long nanos)
+	{
+		if(nanos < 0)
+			nanos = 0;
+		_buckets.incrementAndGet(bucket(nanos));
+		_count.incrementAndGet();
+		_total.addAndGet(nanos);
+		long max = _max.get();
+		while(nanos > max && !_max.compareAndSet(max, nanos))
+			max = _max.get();
+	}
+
+	/**
+	 * Values below 2^SUB_BITS have their own bucket. Other values are indexed by 
+	 * the position of their highest bit and the SUB_BITS bits that follow it.
+	 */
+	private static int bucket(long value)
+	{
+		if(value < SUB_BUCKETS)
+			return (int)value;
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+		return (shift + 1) * SUB_BUCKETS + (int)((value >>> shift) & (SUB_BUCKETS - 1));
+	}
+
+	/**
+	 * Largest value counted in a bucket
+	 */
+	private static long upperBound(int bucket)
+	{
+		if(bucket < SUB_BUCKETS)
+			return bucket;
+		int shift = bucket / SUB_BUCKETS - 1;
+		long low = ((long)(SUB_BUCKETS + bucket % SUB_BUCKETS)) << shift;
+		return low + (1L << shift) - 1;
+	}
+
+	/**
+	 * Discards the recorded values
+	 */
+	public void reset()
+	{
+		for(int i = 0; i < BUCKETS; i++)
+			_buckets.set(i, 0);
+		_count.set(0);
+		_total.set(0);
+		_max.set(0);
+	}
+
+	/**
+	 * Number of recorded values
+	 */
+	public long getCount()
+	{
+		return _count.get();
+	}
+
+	/**
+	 * Sum of the recorded values, in milliseconds
+	 */
+	public double getTotalMillis()
+	{
+		return _total.get() / 1e6;
+	}
+
+	/**
+	 * Mean of the recorded values, in milliseconds
+	 */
+	public double getMeanMillis()
+	{
+		long count = _count.get();
+		return (count == 0) ? 0 : _total.get() / 1e6 / count;
+	}
+
+	/**
+	 * Largest recorded value, in milliseconds
+	 */
+	public double getMaxMillis()
+	{
+		return _max.get() / 1e6;
+	}
+
+	public double getMedianMillis()
+	{
+		return percentile(0.5) / 1e6;
+	}
+
+	public double getPercentile90Millis()
+	{
+		return percentile(0.9) / 1e6;
+	}
+
+	public double getPercentile99Millis()
+	{
+		return percentile(0.99) / 1e6;
+	}
+
+	/**
+	 * Returns the value below which a fraction of the recorded values are, in nanoseconds.
+	 * It is never larger than the largest recorded value.
+	 * @param fraction between 0 and 1
+	 */
+	public long percentile(double fraction)
+	{
+		long count = 0;
+		long[] buckets = new long[BUCKETS];
+		for(int i = 0; i < BUCKETS; i++)
+			count += buckets[i] = _buckets.get(i);
+		if(count == 0)
+			return 0;
+		long rank = Math.max(1, (long)Math.ceil(fraction * count));
+		long seen = 0;
+		for(int i = 0; i < BUCKETS; i++)
+		{
+			seen += buckets[i];
+			if(seen >= rank)
+				return Math.min(upperBound(i), _max.get());
+		}
+		return _max.get();
+	}
+
+	public String toString()
+	{
+		return String.format("count=%d mean=%.3fms p50=%.3fms p90=%.3fms p99=%.3fms max=%.3fms", 
+				getCount(), getMeanMillis(), getMedianMillis(), getPercentile90Millis(), getPercentile99Millis(), getMaxMillis());
+	}
+}
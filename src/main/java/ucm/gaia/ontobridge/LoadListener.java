@@ -0,0 +1,31 @@
+/**
+ * OntoBride library.
+ * GAIA - Group for Artifical Intelligence Applications
+ * Departamento de Ingeniería del Software e Inteligencia Artificial
+ * Universidad Complutense de Madrid
+ *
+ * Licensed under the terms of the GNU Library or Lesser General Public License (LGPL)
+ *
+ * This software is a subproject of the jCOLIBRI framework
+ * http://sourceforge.net/projects/jcolibri-cbr/
+ * http://gaia.fdi.ucm.es/projects/jcolibri/
+ *
+ * File: LoadListener.java
+ * 18/10/2026
+ */
+package ucm.gaia.ontobridge;
+
+/**
+ * Receives the progress of a bulk load (see OntoBridge.loadInstances()).
+ * It is invoked by the loading thread after every batch of statements is added to the model.
+ */
+public interface LoadListener {
+
+	/**
+	 * A batch of statements has been added to the model
+	 * @param statements statements added so far
+	 * @param bytes bytes of the document read so far (uncompressed bytes if the file is compressed)
+	 * @param elapsedMillis milliseconds since the load started
+	 */
+	public void loaded(long statements, long bytes, long elapsedMillis);
+}
@@ -0,0 +1,155 @@
+/**
+ * OntoBride library.
+ * GAIA - Group for Artifical Intelligence Applications
+ * Departamento de Ingeniería del Software e Inteligencia Artificial
+ * Universidad Complutense de Madrid
+ *
+ * Licensed under the terms of the GNU Library or Lesser General Public License (LGPL)
+ *
+ * This software is a subproject of the jCOLIBRI framework
+ * http://sourceforge.net/projects/jcolibri-cbr/
+ * http://gaia.fdi.ucm.es/projects/jcolibri/
+ *
+ * File: MetricsRegistry.java
+ * 18/10/2026
+ */
+package ucm.gaia.ontobridge;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+/**
+ * Keeps a latency histogram for every operation of an OntoBridge object:
+ * <pre>
+ * MetricsRegistry metrics = new MetricsRegistry();
+ * ob.setMetrics(metrics);
+ * metrics.registerMBean(ob, "restaurant");
+ * ...
+ * LogManager.getLogger().info(metrics);
+ * </pre>
+ * The same registry can be shared by several OntoBridge objects; their operations are added together.
+ */
+public class MetricsRegistry implements OntologyMetrics {
+
+	/** Domain of the names of the registered MBeans */
+	public static final String JMX_DOMAIN = "ucm.gaia.ontobridge";
+
+	private final ConcurrentHashMap<String, LatencyHistogram> _histograms = new ConcurrentHashMap<String, LatencyHistogram>();
+
+	public void record(String operation, long nanos)
+	{
+		LatencyHistogram histogram = _histograms.get(operation);
+		if(histogram == null)
+		{
+			LatencyHistogram created = new LatencyHistogram();
+			histogram = _histograms.putIfAbsent(operation, created);
+			if(histogram == null)
+				histogram = created;
+		}
+		histogram.record(nanos);
+	}
+
+	/**
+	 * Returns the histogram of an operation, or null if it has not been recorded
+	 */
+	public LatencyHistogram getHistogram(String operation)
+	{
+		return _histograms.get(operation);
+	}
+
+	/**
+	 * Returns the histograms of the recorded operations sorted by name
+	 */
+	public Map<String, LatencyHistogram> getHistograms()
+	{
+		return new TreeMap<String, LatencyHistogram>(_histograms);
+	}
+
+	/**
+	 * Discards every recorded operation
+	 */
+	public void reset()
+	{
+		_histograms.clear();
+	}
+
+	/**
+	 * Registers an MBean that exports the operations of this registry and the size of an ontology
+	 * in the platform MBean server, with name ucm.gaia.ontobridge:type=Metrics,name=<i>name</i>
+	 * @param ob ontology whose size is reported
+	 * @param name name that identifies the ontology
+	 * @return the name of the MBean
+	 */
+	public ObjectName registerMBean(OntoBridge ob, String name) throws JMException
+	{
+		ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=Metrics,name=" + ObjectName.quote(name));
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		server.registerMBean(new StandardMBean(new Bean(ob), OntologyMetricsMXBean.class, true), objectName);
+		return objectName;
+	}
+
+	/**
+	 * Unregisters an MBean registered with registerMBean()
+	 */
+	public static void unregisterMBean(ObjectName objectName) throws JMException
+	{
+		ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+	}
+
+	/**
+	 * One line per operation
+	 */
+	public String toString()
+	{
+		StringBuilder sb = new StringBuilder("OntoBridge metrics:");
+		for(Map.Entry<String, LatencyHistogram> e : getHistograms().entrySet())
+			sb.append("\n  ").append(e.getKey()).append(": ").append(e.getValue());
+		return sb.toString();
+	}
+
+	/**
+	 * MBean of an ontology. The size of the ontology is the one stored by the OntoBridge object at the end
+	 * of its last change, so the threads of JMX never read the model.
+	 */
+	private class Bean implements OntologyMetricsMXBean
+	{
+		private final OntoBridge _ob;
+
+		Bean(OntoBridge ob)
+		{
+			_ob = ob;
+		}
+
+		public Map<String, LatencyHistogram> getOperations()
+		{
+			return getHistograms();
+		}
+
+		public long getTriples()
+		{
+			return _ob.getTripleCount();
+		}
+
+		public int getClasses()
+		{
+			return _ob.getClassCount();
+		}
+
+		public int getIndividuals()
+		{
+			return _ob.getIndividualCount();
+		}
+
+		public void reset()
+		{
+			MetricsRegistry.this.reset();
+		}
+	}
+}
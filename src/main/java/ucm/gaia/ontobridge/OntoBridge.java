@@ -18,21 +18,56 @@
  */
 package ucm.gaia.ontobridge;
 
+import com.hp.hpl.jena.graph.Factory;
+import com.hp.hpl.jena.graph.Graph;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
 import com.hp.hpl.jena.ontology.*;
 import com.hp.hpl.jena.rdf.model.*;
+import com.hp.hpl.jena.reasoner.InfGraph;
 import com.hp.hpl.jena.reasoner.ReasonerRegistry;
 import com.hp.hpl.jena.reasoner.ValidityReport;
+import com.hp.hpl.jena.util.FileManager;
+import com.hp.hpl.jena.util.iterator.ExtendedIterator;
 import com.hp.hpl.jena.util.iterator.Filter;
+import com.hp.hpl.jena.util.iterator.Map1;
+import com.hp.hpl.jena.vocabulary.OWL;
 import com.hp.hpl.jena.vocabulary.RDF;
 import com.hp.hpl.jena.vocabulary.RDFS;
 import com.hp.hpl.jena.vocabulary.ReasonerVocabulary;
 import org.apache.logging.log4j.LogManager;
+import org.mindswap.pellet.PelletOptions;
+import org.mindswap.pellet.jena.PelletInfGraph;
 import org.mindswap.pellet.jena.PelletReasonerFactory;
 import ucm.gaia.ontobridge.exceptions.NoLocalFileException;
+import ucm.gaia.ontobridge.util.BinaryGraph;
+import ucm.gaia.ontobridge.util.LRUCache;
+import ucm.gaia.ontobridge.util.ModelChangeCounter;
+import ucm.gaia.ontobridge.util.ModelChangeForwarder;
+import ucm.gaia.ontobridge.util.NoLock;
+import ucm.gaia.ontobridge.util.StreamingGraphWriter;
 import ucm.gaia.ontobridge.util.ToStringIterator;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Main OntoBridge Class<br>
@@ -43,6 +78,14 @@ import java.util.*;
  * Input parameters of the methods use URIs (or the qualified short representation) for
  * pointing to the ontology elements.<br>
  * Conversion between URIs and JENA objects is managed automatically
+ * <br>
+ * By default an OntoBridge object must be used by a single thread. Objects created with
+ * <code>new OntoBridge(true)</code> can be shared: methods that only read the ontology run 
+ * concurrently and methods that modify it (loading, creation, deletion, setInference...) 
+ * are executed one at a time, waiting for the readers. In this mode the listing methods 
+ * return iterators over a copy of the results, and the reasoner is prepared after every 
+ * modification so readers never trigger the classification. 
+ * See getLock() for code that uses the JENA model directly.
  * 
  * 
  * @author Juan A. Recio García
@@ -64,10 +107,19 @@ public class OntoBridge {
 	protected OntModel backupModel = null;
 
 	/**
-     * Creates an OntoBridge object.
-     * Currentlly it does nothing.
+     * Creates an OntoBridge object to be used by a single thread.
      */
-	public OntoBridge(){}
+	public OntoBridge(){
+		this(false);
+	}
+	
+	/**
+	 * Creates an OntoBridge object.
+	 * @param concurrent if true the object can be shared by several threads
+	 */
+	public OntoBridge(boolean concurrent){
+		lock = concurrent ? new ReentrantReadWriteLock() : NoLock.INSTANCE;
+	}
 	
 	
 	public void credits() {
@@ -81,8 +133,59 @@ public class OntoBridge {
 	 * Inits the OntoBridge with the PELLET Reasoner
 	 */
 	public void initWithPelletReasoner() {
-		credits();
-		ONT_MODEL = ModelFactory.createOntologyModel(PelletReasonerFactory.THE_SPEC);
+		Operation op = beginWrite("initWithPelletReasoner");
+		try {
+			credits();
+			if(cacheForwarder != null)
+				leaveInferenceCache();
+			if(backupModel == null)
+				discardMaterialization();
+			ONT_MODEL = ModelFactory.createOntologyModel(withOwnDocumentManager(PelletReasonerFactory.THE_SPEC));
+			invalidateResources();
+		} finally {
+			endWrite(op);
+		}
+	}
+	
+	/**
+	 * Inits the OntoBridge with the PELLET Reasoner, checking that the changes are processed incrementally.<br>
+	 * In incremental mode the instances and property values added with the insertion methods are passed 
+	 * directly to the knowledge base of PELLET, which checks the consistency of the changes incrementally, 
+	 * instead of loading and classifying the whole ontology again at the next inferred query.
+	 * Deletions and changes of classes or properties still load the knowledge base again.<br>
+	 * This method does not change any global setting: incremental mode is enabled for the whole process
+	 * by enableIncrementalPellet().
+	 * @param incremental if true the changes of instances must be processed incrementally
+	 * @throws IllegalStateException if incremental processing is requested and enableIncrementalPellet() 
+	 *         has not been called
+	 */
+	public void initWithPelletReasoner(boolean incremental) {
+		if(incremental && !isIncrementalPellet())
+			throw new IllegalStateException("Incremental processing is not enabled: call OntoBridge.enableIncrementalPellet() at startup");
+		initWithPelletReasoner();
+	}
+	
+	/**
+	 * Enables the incremental processing of changes in every PELLET model of the process.<br>
+	 * The PELLET options that enable it are global and they are read by the knowledge bases while they reason,
+	 * so they cannot be set for a single model and they cannot be disabled safely. Knowledge bases created 
+	 * without them fail once they are set, so this method must be called at startup, before any PELLET 
+	 * model is created.
+	 */
+	public static synchronized void enableIncrementalPellet()
+	{
+		PelletOptions.USE_COMPLETION_QUEUE = true;
+		PelletOptions.USE_INCREMENTAL_CONSISTENCY = true;
+		PelletOptions.PROCESS_JENA_UPDATES_INCREMENTALLY = true;
+	}
+	
+	/**
+	 * Returns true if the PELLET options of incremental processing are set
+	 */
+	public static boolean isIncrementalPellet()
+	{
+		return PelletOptions.USE_COMPLETION_QUEUE && PelletOptions.USE_INCREMENTAL_CONSISTENCY 
+				&& PelletOptions.PROCESS_JENA_UPDATES_INCREMENTALLY;
 	}
 	
 	/**
@@ -119,60 +222,181 @@ public class OntoBridge {
 		ONT_MODEL = ModelFactory.createOntologyModel(spec);
 	}*/
 
+	/**
+	 * Returns a copy of a model specification with its own document manager, so the locations and hooks set 
+	 * while loading the documents do not change the global document manager shared by the other models.
+	 * The new manager starts with the locations and the import settings of the global one.
+	 */
+	private static OntModelSpec withOwnDocumentManager(OntModelSpec spec)
+	{
+		OntDocumentManager global = OntDocumentManager.getInstance();
+		OntDocumentManager dm = new OntDocumentManager(new FileManager(global.getFileManager()), "");
+		dm.setProcessImports(global.getProcessImports());
+		dm.setCacheModels(global.getCacheModels());
+		OntModelSpec copy = new OntModelSpec(spec);
+		copy.setDocumentManager(dm);
+		return copy;
+	}
+	
 	/**
 	 * Inits the OntoBridge without reasoner.
 	 * That way, this class doesn't use any inferred knowledge of the ontology
 	 */
 	public void initWithOutReasoner()
 	{
-		credits();
-		ONT_MODEL = ModelFactory.createOntologyModel(OntModelSpec.OWL_MEM);
+		Operation op = beginWrite("initWithOutReasoner");
+		try {
+			credits();
+			if(cacheForwarder != null)
+				leaveInferenceCache();
+			if(backupModel == null)
+				discardMaterialization();
+			ONT_MODEL = ModelFactory.createOntologyModel(withOwnDocumentManager(OntModelSpec.OWL_MEM));
+			invalidateResources();
+		} finally {
+			endWrite(op);
+		}
 	}
 	
 	
 	/**
 	 * Enables or disables the inference. This method should be only used for performance reasons. 
-	 * When disabling inference, current model is validated, backed-up and finally a new model is created without attached reasoner.
-	 * If inference is enabled again the back-up model is restored.
+	 * When disabling inference, the inferred model is materialized into a new model without attached reasoner.
+	 * The materialized model is kept, so later toggles do not copy it again while the inferred model
+	 * does not change. If inference is enabled again the inferred model is restored.
+	 * Both toggles are O(1) except the first time inference is disabled after a change.
 	 * This method does not distinguish if the object was initializated without reasoner. If so, this method is unusefull.
 	 * Any change performed in the ontology when inference is disabled will not be maintained when inference is enabled again, 
-	 * because this method creates a copy of the current model.
+	 * because this method works over a copy of the current model.
 	 * @param enabled Indicates if inference is enabled
 	 */
 	public void setInference(boolean enabled)
 	{
-		if(enabled)
-		{
-			if(backupModel != null)
+		Operation op = beginWrite("setInference");
+		try {
+			// Pending changes of the hierarchy refer to the current model
+			if(!changedLeaves.isEmpty())
+				invalidateHierarchy();
+			if(cacheForwarder != null)
 			{
-				ONT_MODEL = backupModel;
-				backupModel = null;
+				//The closure restored from the cache behaves as the inferred model
+				if(enabled)
+					LogManager.getLogger().warn("Inference already enabled.");
+				else
+				{
+					//From now on the copy is used as if inference had been disabled
+					materializedModel.unregister(cacheForwarder);
+					cacheForwarder = null;
+				}
 			}
-			else
-				LogManager.getLogger().warn("Inference already enabled.");
-		}
-		else
-		{
-			if(backupModel == null)
+			else if(enabled)
 			{
-				//Validate the model (classify instances)
-				ONT_MODEL.validate();
-				//Backup model
-				backupModel = ONT_MODEL;
-				//Create a plain model with asserted and infered information (a-box + t-box)
-				Model plain = ModelFactory.createModelForGraph( ONT_MODEL.getGraph() );
-				//Create a new model without reasoner
-				ONT_MODEL = ModelFactory.createOntologyModel( OntModelSpec.OWL_MEM);
-				//Copy plain model into the model without reasoner
-				ONT_MODEL.add(plain);
-				//Copy ns prefixes
-				ONT_MODEL.setNsPrefixes(backupModel.getNsPrefixMap());
+				if(backupModel != null)
+				{
+					// Changes done without inference are lost, so the copy cannot be reused
+					if(materializedChanges.isChanged())
+						discardMaterialization();
+					else
+						materializedHierarchy = hierarchy;
+					ONT_MODEL = backupModel;
+					backupModel = null;
+					hierarchy = inferenceHierarchy;
+					inferenceHierarchy = null;
+					invalidateInstances();
+					invalidateResources();
+				}
+				else
+					LogManager.getLogger().warn("Inference already enabled.");
 			}
 			else
-				LogManager.getLogger().warn("Inference already disabled.");
+			{
+				if(backupModel == null)
+				{
+					// The copy is stale if the inferred model changed since it was made
+					if(materializedModel != null && inferenceChanges != null && inferenceChanges.isChanged())
+						discardMaterialization();
+					if(materializedModel == null)
+						materialize();
+					//Backup model
+					backupModel = ONT_MODEL;
+					inferenceHierarchy = hierarchy;
+					ONT_MODEL = materializedModel;
+					hierarchy = materializedHierarchy;
+					invalidateInstances();
+					invalidateResources();
+				}
+				else
+					LogManager.getLogger().warn("Inference already disabled.");
+			}
+		} finally {
+			endWrite(op);
 		}
 	}
 	
+	/** Copy of the inferred model used while inference is disabled */
+	protected OntModel materializedModel = null;
+	
+	/** Hierarchy indexes of the model that is not active */
+	private HierarchyIndex materializedHierarchy = null;
+	private HierarchyIndex inferenceHierarchy = null;
+	
+	/** Changes of the inferred model since it was materialized */
+	private ModelChangeCounter inferenceChanges = null;
+	
+	/** Changes of the materialized model since it was created */
+	private ModelChangeCounter materializedChanges = null;
+	
+	/**
+	 * Copies the asserted and inferred statements of the current model into a new model without reasoner
+	 */
+	protected void materialize()
+	{
+		//Classify and realize the model so the whole closure is available
+		prepareReasoner();
+		//Copy the asserted and infered information (a-box + t-box) straight into a memory graph
+		Graph plain = Factory.createGraphMem();
+		plain.getBulkUpdateHandler().add(ONT_MODEL.getGraph().find(Node.ANY, Node.ANY, Node.ANY));
+		useMaterialization(plain, null);
+	}
+	
+	/**
+	 * Uses a graph with the statements of the current model as its materialized copy
+	 * @param plain graph with the asserted and inferred statements
+	 * @param index hierarchy index of the copy, or null to build it when needed
+	 */
+	private void useMaterialization(Graph plain, HierarchyIndex index)
+	{
+		//Create a new model without reasoner over the copy, reading the documents as the inferred model
+		OntModelSpec spec = new OntModelSpec(OntModelSpec.OWL_MEM);
+		spec.setDocumentManager(ONT_MODEL.getDocumentManager());
+		materializedModel = ModelFactory.createOntologyModel(spec, ModelFactory.createModelForGraph(plain));
+		//Copy ns prefixes
+		materializedModel.setNsPrefixes(ONT_MODEL.getNsPrefixMap());
+		materializedHierarchy = index;
+		materializedChanges = new ModelChangeCounter();
+		materializedModel.register(materializedChanges);
+		inferenceChanges = new ModelChangeCounter();
+		ONT_MODEL.register(inferenceChanges);
+	}
+	
+	/**
+	 * Discards the materialized copy of the inferred model
+	 */
+	protected void discardMaterialization()
+	{
+		if(materializedModel == null)
+			return;
+		if(backupModel != null)
+			backupModel.unregister(inferenceChanges);
+		else if(ONT_MODEL != null)
+			ONT_MODEL.unregister(inferenceChanges);
+		materializedModel.unregister(materializedChanges);
+		materializedModel = null;
+		materializedHierarchy = null;
+		materializedChanges = null;
+		inferenceChanges = null;
+	}
+	
 	/**
 	 * Loads an ontology using the initialized reasoner
 	 * @param mainOntology Main ontology document
@@ -182,303 +406,2252 @@ public class OntoBridge {
 	 */
 	public void loadOntology(OntologyDocument mainOntology, Collection<OntologyDocument> subOntologies, boolean loadSubOntologies)
 	{
-		//Configure local copies of the ontologies
-		OntDocumentManager dm = ONT_MODEL.getDocumentManager();
-		
+		loadOntology(mainOntology, subOntologies, loadSubOntologies, null);
+	}
+	
+	/**
+	 * Loads an ontology using the initialized reasoner, parsing the documents concurrently.
+	 * The main ontology and the sub-ontologies are parsed at the same time into separate graphs in the given pool, 
+	 * and then they are merged into the model in the same order, with the same imports and namespace prefixes, 
+	 * as the documents read one after another. The parsed sub-ontologies are used to resolve the imports.
+	 * If the sub-ontologies are not loaded, only the ones imported by the main ontology are parsed, once the
+	 * main ontology has been parsed.
+	 * @param mainOntology Main ontology document
+	 * @param subOntologies Collection of ontology documents used by the main ontology
+	 * @param loadSubOntologies Indicates if the reasoner must load the subOntologies. 
+	 *        If loaded, their content is included in the reasoning graph of the main ontology graph.
+	 * @param pool pool where the documents are parsed, or null to read them one after another
+	 */
+	public void loadOntology(OntologyDocument mainOntology, Collection<OntologyDocument> subOntologies, boolean loadSubOntologies, ForkJoinPool pool)
+	{
+		Operation op = beginWrite("loadOntology");
+		OntologyRepository.Installation installed = null;
 		try {
-			if(mainOntology.hasAltLocalFile())
-				dm.addAltEntry(mainOntology.getURL(), mainOntology.getLocalfile());
-		} catch (NoLocalFileException e) {
-			LogManager.getLogger().error(e);
-		}
+			//Configure local copies of the ontologies
+			OntDocumentManager dm = ONT_MODEL.getDocumentManager();
+			OntologyRepository repo = repository;
+			if(repo != null)
+				installed = repo.install(dm);
 		
-		for(OntologyDocument od : subOntologies)
-		{
 			try {
-			if(od.hasAltLocalFile())
-				dm.addAltEntry(od.getURL(), od.getLocalfile());
+				if(mainOntology.hasAltLocalFile())
+					dm.addAltEntry(mainOntology.getURL(), mainOntology.getLocalfile());
 			} catch (NoLocalFileException e) {
 				LogManager.getLogger().error(e);
 			}
-		}
 		
-		LogManager.getLogger().info("Loading Main Ontology: "+mainOntology.getURL());
-		ONT_MODEL.read(mainOntology.getURL());	
-		BASE_NS = (String)ONT_MODEL.getNsPrefixMap().get("");
-		
-		if(loadSubOntologies)
 			for(OntologyDocument od : subOntologies)
 			{
-				LogManager.getLogger().info("Loading Sub-Ontology: "+od.getURL());
-				ONT_MODEL.read(od.getURL());
+				try {
+				if(od.hasAltLocalFile())
+					dm.addAltEntry(od.getURL(), od.getLocalfile());
+				} catch (NoLocalFileException e) {
+					LogManager.getLogger().error(e);
+				}
 			}
 		
+			invalidateResources();
+			pendingSubOntologies = Collections.emptyMap();
+			long phase = System.nanoTime();
+			if(pool != null)
+				readConcurrently(mainOntology, subOntologies, loadSubOntologies, pool);
+			else
+			{
+				LogManager.getLogger().info("Loading Main Ontology: "+mainOntology.getURL());
+				ONT_MODEL.read(mainOntology.getURL());	
+				BASE_NS = (String)ONT_MODEL.getNsPrefixMap().get("");
 		
-		LogManager.getLogger().info("Loading Complete");
-		//Print Namespaces
-		LogManager.getLogger().info( "Base Namespace: "+ BASE_NS );
-		LogManager.getLogger().info( "Namespaces loaded: " + ONT_MODEL.getNsPrefixMap() );
-		
-		preCalculateProfs();
-		
-	}
-
-	/**************************************************************/
-	/****************      Depth methods   ************************/
-	/**************************************************************/
-
-	protected HashMap<String, Integer> profs = new HashMap<String,Integer>();
-	protected int maxDepth = 0;
-	
-	protected void preCalculateProfs()
-	{
-		profs.clear();
+				if(loadSubOntologies)
+					for(OntologyDocument od : subOntologies)
+					{
+						LogManager.getLogger().info("Loading Sub-Ontology: "+od.getURL());
+						ONT_MODEL.read(od.getURL());
+					}
+			}
+			if(installed != null)
+			{
+				installed.uninstall();
+				installed = null;
+			}
 		
-		String thing = getThingURI();
-		profs.put(thing, new Integer(0));
 		
-		HashSet<String> subclasses = new HashSet<String>();
+			LogManager.getLogger().info("Loading Complete");
+			//Print Namespaces
+			LogManager.getLogger().info( "Base Namespace: "+ BASE_NS );
+			LogManager.getLogger().info( "Namespaces loaded: " + ONT_MODEL.getNsPrefixMap() );
+			phase = record("loadOntology.parse", phase);
 		
-		Iterator<String> iter = this.listRootClasses();
-		boolean cont = true;
-		int i = 1;
-		while(cont)
-		{
-			subclasses  = new HashSet<String>();
-			while(iter.hasNext())
+			InferenceCache cache = inferenceCache;
+			if(cache != null && backupModel == null && ONT_MODEL.getGraph() instanceof InfGraph)
 			{
-				String _class = iter.next();
-				profs.put(_class, new Integer(i));
-					
-				Iterator<String> aux = this.listSubClasses(_class,true);
-				while(aux.hasNext())
-					subclasses.add(aux.next());	
+				String key = cacheKey(cache, mainOntology, subOntologies, loadSubOntologies);
+				if(key != null && restoreInference(cache, key))
+					return;
+				calculateProfs(phase);
+				if(key != null)
+					storeInference(cache, key);
 			}
-			cont = !subclasses.isEmpty();
-			iter = subclasses.iterator();
-			i++;
+			else
+				calculateProfs(phase);
+		} finally {
+			if(installed != null)
+				installed.uninstall();
+			endWrite(op);
 		}
-		maxDepth = i-2;
 	}
 	
-	public int profConcept(String _class)
-	{
-		if(!_class.contains("#"))
-			_class = getURI(_class);
-		return profs.get(_class);
-	}
-	public int profInstance(String instance)
+	/**
+	 * Calculates the depths of the classes of a loaded ontology. If metrics are set, the ontology is
+	 * classified first so the classification and the depths are measured separately.
+	 * @param start start of the phase
+	 * @return end of the phase
+	 */
+	private long calculateProfs(long start)
 	{
-		int res = Integer.MAX_VALUE;
-		for(Iterator<String> iter = listDeclaredBelongingClasses(instance); iter.hasNext();)
+		if(metrics != null)
 		{
-			int prof = profConcept(iter.next());
-			if(prof<res)
-				res = prof;
+			classify();
+			start = record("loadOntology.classification", start);
 		}
-		return res+1;
+		preCalculateProfs();
+		return record("loadOntology.preCalculateProfs", start);
 	}
 	
-	public int getMaxProf()
+	/** Repository of local documents, or null if not used */
+	private volatile OntologyRepository repository = null;
+	
+	/**
+	 * Sets the repository where loadOntology() looks for the documents and their imports.
+	 * The local files given in the OntologyDocument objects take precedence over the repository.
+	 * @param repository the repository, or null to stop using it
+	 */
+	public void setRepository(OntologyRepository repository)
 	{
-		return maxDepth;
+		this.repository = repository;
 	}
 	
-	
 	/**
-	 * Returns the maximum profundity of the Least Common Subsumers of two instances.
+	 * Returns the repository of local documents, or null if it is not used
 	 */
-	public int maxProfLCS(String instance1, String instance2)
+	public OntologyRepository getRepository()
 	{
-		Set<String> parents1 = new HashSet<String>();	
-		for(Iterator<String> iter = listBelongingClasses(instance1);iter.hasNext(); )
-			parents1.add(iter.next());
-		
-
-		Set<String> parents2 = new HashSet<String>();	
-		for(Iterator<String> iter = listBelongingClasses(instance2);iter.hasNext(); )
-			parents2.add(iter.next());	
+		return repository;
+	}
 
-		int maxProf = Integer.MIN_VALUE;
+	/**
+	 * Parses the documents concurrently and merges them into the model as ONT_MODEL.read() does.
+	 * The sub-ontologies are parsed into the import model maker of the model specification, where the
+	 * document manager looks for the imported models before reading them.
+	 */
+	private void readConcurrently(OntologyDocument mainOntology, Collection<OntologyDocument> subOntologies, boolean loadSubOntologies, ForkJoinPool pool)
+	{
+		OntDocumentManager dm = ONT_MODEL.getDocumentManager();
+		ModelMaker maker = ONT_MODEL.getSpecification().getImportModelMaker();
+		
+		Model main = ModelFactory.createDefaultModel();
+		ForkJoinTask<?> mainTask = pool.submit(parse(dm, mainOntology.getURL(), main));
+		Map<String,Model> subs = new LinkedHashMap<String,Model>();
+		Map<String,ForkJoinTask<?>> tasks = new LinkedHashMap<String,ForkJoinTask<?>>();
+		if(loadSubOntologies)
+			parseSubOntologies(subOntologies, null, mainOntology.getURL(), pool, subs, tasks);
+		try {
+			mainTask.join();
+		} catch (RuntimeException e) {
+			//Nothing is merged: the parsed sub-ontologies must not be found by later imports
+			for(ForkJoinTask<?> task : tasks.values())
+				task.cancel(false);
+			for(Map.Entry<String,ForkJoinTask<?>> task : tasks.entrySet())
+			{
+				task.getValue().quietlyJoin();
+				maker.removeModel(task.getKey());
+			}
+			throw e;
+		}
+		//Without loading them, only the sub-ontologies imported by the main ontology are read
+		if(!loadSubOntologies && dm.getProcessImports())
+			parseSubOntologies(subOntologies, imports(main), mainOntology.getURL(), pool, subs, tasks);
 		
-		parents1.retainAll(parents2);
-		for(String c: parents1)
+		for(Map.Entry<String,ForkJoinTask<?>> task : tasks.entrySet())
 		{
-			int pc = this.profConcept(c);
-			if(pc>maxProf)
-				maxProf = pc;
+			try {
+				task.getValue().join();
+			} catch (RuntimeException e) {
+				//The document is read again when it is imported or loaded, failing as in serial loading
+				LogManager.getLogger().warn("Error parsing "+task.getKey()+": "+e);
+				maker.removeModel(task.getKey());
+				subs.remove(task.getKey());
+			}
 		}
-		return maxProf;
+		
+		LogManager.getLogger().info("Loading Main Ontology: "+mainOntology.getURL());
+		merge(mainOntology.getURL(), main);
+		BASE_NS = ONT_MODEL.getNsPrefixMap().get("");
+		
+		if(loadSubOntologies)
+			for(OntologyDocument od : subOntologies)
+			{
+				LogManager.getLogger().info("Loading Sub-Ontology: "+od.getURL());
+				Model sub = subs.get(od.getURL());
+				if(sub != null)
+					merge(od.getURL(), sub);
+				else
+					ONT_MODEL.read(od.getURL());
+			}
 	}
 	
 	/**
-	 * Returns a set with the Least Common Subsumers of two instances. 
+	 * Submits the parsing of the sub-ontologies that are not in the import model maker yet
+	 * @param only URLs of the sub-ontologies to parse, or null to parse all of them
+	 * @param subs receives the model of every sub-ontology, parsed or found in the maker
+	 * @param tasks receives the task that parses every new model
 	 */
-	public Set<String> LCS(String instance1, String instance2)
+	private void parseSubOntologies(Collection<OntologyDocument> subOntologies, Set<String> only, String mainURL, ForkJoinPool pool,
+			Map<String,Model> subs, Map<String,ForkJoinTask<?>> tasks)
 	{
-		Set<String> parents1 = new HashSet<String>();	
-		for(Iterator<String> iter = listBelongingClasses(instance1);iter.hasNext(); )
-			parents1.add(iter.next());
-		
-
-		Set<String> parents2 = new HashSet<String>();	
-		for(Iterator<String> iter = listBelongingClasses(instance2);iter.hasNext(); )
-			parents2.add(iter.next());	
-		
-		Set<String> res = new HashSet<String>();
-		int maxProf = Integer.MIN_VALUE;
-		
-		parents1.retainAll(parents2);
-		for(String c: parents1)
+		OntDocumentManager dm = ONT_MODEL.getDocumentManager();
+		ModelMaker maker = ONT_MODEL.getSpecification().getImportModelMaker();
+		for(OntologyDocument od : subOntologies)
 		{
-			int pc = this.profConcept(c);
-			if(pc>maxProf)
+			String url = od.getURL();
+			if(subs.containsKey(url) || url.equals(mainURL) || (only != null && !only.contains(url)))
+				continue;
+			if(maker.hasModel(url))
+				subs.put(url, maker.getModel(url));
+			else
 			{
-				res.clear();
-				res.add(c);
-				maxProf = pc;
+				Model sub = maker.createModel(url);
+				subs.put(url, sub);
+				tasks.put(url, pool.submit(parse(dm, url, sub)));
 			}
-			else if(pc==maxProf)
+		}
+	}
+	
+	/**
+	 * Returns the URIs of the ontologies imported by a parsed document
+	 */
+	private Set<String> imports(Model document)
+	{
+		Set<String> res = new HashSet<String>();
+		NodeIterator iter = document.listObjectsOfProperty(ONT_MODEL.getProfile().IMPORTS());
+		try {
+			while(iter.hasNext())
 			{
-				res.add(c);
-				maxProf = pc;
+				RDFNode node = iter.nextNode();
+				if(node.isURIResource())
+					res.add(((Resource)node).getURI());
 			}
-			
+		} finally {
+			iter.close();
 		}
 		return res;
 	}
 	
+	/**
+	 * Reads a document as the document manager does, invoking its read hook
+	 */
+	private static Runnable parse(final OntDocumentManager dm, final String url, final Model into)
+	{
+		return new Runnable() {
+			public void run() {
+				long start = System.nanoTime();
+				OntDocumentManager.ReadHook hook = dm.getReadHook();
+				String source = hook.beforeRead(into, url, dm);
+				dm.getFileManager().readModel(into, source, url, null);
+				hook.afterRead(into, source, dm);
+				LogManager.getLogger().info("Parsed "+url+" in "+(System.nanoTime()-start)/1000000+" ms");
+			}};
+	}
+	
+	/**
+	 * Adds a parsed document to the model, doing the same steps as OntModel.read(url)
+	 */
+	private void merge(String url, Model document)
+	{
+		ONT_MODEL.addLoadedImport(url);
+		ONT_MODEL.add(document);
+		ONT_MODEL.setNsPrefixes(document);
+		ONT_MODEL.getDocumentManager().addModel(url, ONT_MODEL);
+		ONT_MODEL.loadImports();
+		ONT_MODEL.rebind();
+	}
+
 	/**************************************************************/
-	/*      Functions for listing Classes of the Ontology         */
+	/*                Lazy sub-ontologies                         */
 	/**************************************************************/
 	
+	/** Sub-ontologies registered by loadOntologyLazily() and not read yet: URL -> prefixes of its namespace. Never modified, it is replaced. */
+	private volatile Map<String,String[]> pendingSubOntologies = Collections.emptyMap();
+	
 	/**
-	 * Lists all the no anonymous classes of the ontology
+	 * Loads an ontology reading its sub-ontologies on demand.<br>
+	 * The main ontology (and its imports) is read as in loadOntology(mainOntology, subOntologies, false),
+	 * and the sub-ontologies are only registered. A sub-ontology is read, as loadOntology(mainOntology, subOntologies, true)
+	 * would do, the first time a lookup touches its namespace: a name resolved by obtainOntResource() (listInstances() and the
+	 * other methods that receive names), or a SPARQL query that contains the URL of the sub-ontology.
+	 * The namespace of a sub-ontology is any URI that starts by its URL followed by '#' or '/', and the qualified
+	 * names that use a prefix of that namespace.<br>
+	 * Short names, that have no namespace, are looked up in the ontology first; if they are not found, all the pending
+	 * sub-ontologies are read and the name is looked up again.<br>
+	 * In a concurrent object a method that is already reading the ontology cannot read the sub-ontologies, so the methods
+	 * that receive names and the SPARQL queries read them before acquiring the read lock.
+	 * @param mainOntology Main ontology document
+	 * @param subOntologies Collection of ontology documents used by the main ontology
 	 */
-	public Iterator<String> listAllClasses()
+	public void loadOntologyLazily(OntologyDocument mainOntology, Collection<OntologyDocument> subOntologies)
 	{
-		return new ToStringIterator<String>(ONT_MODEL.listClasses().filterDrop(new Filter() {
-            public boolean accept( Object o ) {
-                return ((Resource) o).isAnon();
-            }} )
-        );
+		Operation op = beginWrite("loadOntologyLazily");
+		try {
+			loadOntology(mainOntology, subOntologies, false);
+			Map<String,String[]> pending = new LinkedHashMap<String,String[]>();
+			for(OntologyDocument od : subOntologies)
+				if(!ONT_MODEL.hasLoadedImport(od.getURL()))
+					pending.put(od.getURL(), null);
+			pendingSubOntologies = namespacePrefixes(pending.keySet());
+			LogManager.getLogger().info("Sub-Ontologies registered: "+pending.keySet());
+		} finally {
+			endWrite(op);
+		}
 	}
-
+	
 	/**
-	 * Lists all the classes of the ontology including anonymous classes
+	 * Returns the URLs of the sub-ontologies registered by loadOntologyLazily() that have not been read yet
 	 */
-	public Iterator<String> listAllandAnonClasses()
+	public List<String> listPendingSubOntologies()
 	{
-		return new ToStringIterator<String>(ONT_MODEL.listClasses());
+		return new ArrayList<String>(pendingSubOntologies.keySet());
 	}
 	
 	/**
-	 * Lists the enumerated classes of the ontology
+	 * Reads all the sub-ontologies registered by loadOntologyLazily() that have not been read yet
 	 */
-	public Iterator<String> listEnumeratedClasses()
+	public void loadPendingSubOntologies()
 	{
-		return new ToStringIterator<String>(ONT_MODEL.listEnumeratedClasses().filterDrop( new Filter() {
-            public boolean accept( Object o ) {
-                return ((Resource) o).isAnon();
-            }} )
-        );
+		Map<String,String[]> pending = pendingSubOntologies;
+		if(!pending.isEmpty())
+			loadSubOntologies(pending.keySet());
 	}
 	
 	/**
-	 * Lists the union classes of the ontology
+	 * Reads the pending sub-ontologies whose namespace contains a name (URI or qualified name).
+	 * A short name is looked up in the ontology first: the sub-ontologies of the URI it resolves to are read,
+	 * or all the pending sub-ontologies if it is not found.
+	 * It does nothing if the thread is reading the ontology, because the write lock cannot be acquired.
 	 */
-	public Iterator<String> listUnionClasses()
+	protected void loadSubOntologiesOf(String name)
+	{
+		Map<String,String[]> pending = pendingSubOntologies;
+		if(pending.isEmpty() || name == null || isReading())
+			return;
+		List<String> touched;
+		if(isShortName(name))
+		{
+			String uri = findURI(name);
+			touched = (uri == null) ? new ArrayList<String>(pending.keySet()) : pendingOf(uri, pending);
+		}
+		else
+			touched = pendingOf(name, pending);
+		if(touched != null)
+			loadSubOntologies(touched);
+	}
+	
+	/**
+	 * Returns the pending sub-ontologies whose namespace contains a name, or null if there are none
+	 */
+	private List<String> pendingOf(String name, Map<String,String[]> pending)
 	{
-		return new ToStringIterator<String>(ONT_MODEL.listUnionClasses().filterDrop( new Filter() {
-            public boolean accept( Object o ) {
-                return ((Resource) o).isAnon();
-            }} )
-        );
+		List<String> touched = null;
+		for(Map.Entry<String,String[]> entry : pending.entrySet())
+			if(inNamespace(name, entry.getKey(), entry.getValue()))
+			{
+				if(touched == null)
+					touched = new ArrayList<String>();
+				touched.add(entry.getKey());
+			}
+		return touched;
 	}
 	
 	/**
-	 * Lists the complement classes of the ontology
+	 * Reads the pending sub-ontologies whose namespace contains any of the names
 	 */
-	public Iterator<String> listComplementClasses()
+	protected void loadSubOntologiesOf(Collection<String> names)
 	{
-		return new ToStringIterator<String>(ONT_MODEL.listComplementClasses().filterDrop( new Filter() {
-            public boolean accept( Object o ) {
-                return ((Resource) o).isAnon();
-            }} )
-        );
+		if(pendingSubOntologies.isEmpty())
+			return;
+		for(String name : names)
+			loadSubOntologiesOf(name);
 	}
 	
 	/**
-	 * Lists the intersection classes of the ontology
+	 * Returns true if the current thread holds the read lock, so it cannot acquire the write lock
 	 */
-	public Iterator<String> listIntersectionClasses()
+	private boolean isReading()
 	{
-		return new ToStringIterator<String>(ONT_MODEL.listIntersectionClasses().filterDrop( new Filter() {
-            public boolean accept( Object o ) {
-                return ((Resource) o).isAnon();
-            }} )
-        );
+		return lock instanceof ReentrantReadWriteLock && ((ReentrantReadWriteLock)lock).getReadHoldCount() > 0;
 	}
 	
 	/**
-	 * Lists the restrictions of the ontology
+	 * Returns true if a name has no namespace: it is neither a URI nor a qualified name
 	 */
-	public Iterator<String> listRestrictions()
+	private static boolean isShortName(String name)
+	{
+		return name.indexOf(':') < 0 && name.indexOf('#') < 0 && name.indexOf('/') < 0;
+	}
+	
+	/**
+	 * Returns the URI a name resolves to, or null if it is not found in the ontology
+	 */
+	private String findURI(String name)
+	{
+		beginRead();
+		try {
+			OntResource res = resources.get(name, resourceLoader);
+			return (res == null) ? null : res.getURI();
+		} finally {
+			endRead();
+		}
+	}
+	
+	/**
+	 * Reads the pending sub-ontologies whose URL appears in a SPARQL query. 
+	 * As the query declares the prefixes it uses, the URLs of the namespaces it touches are always in the text.
+	 */
+	protected void loadSubOntologiesOfQuery(String queryStr)
+	{
+		Map<String,String[]> pending = pendingSubOntologies;
+		if(pending.isEmpty())
+			return;
+		List<String> touched = null;
+		for(String url : pending.keySet())
+			if(queryStr.contains(url))
+			{
+				if(touched == null)
+					touched = new ArrayList<String>();
+				touched.add(url);
+			}
+		if(touched != null)
+			loadSubOntologies(touched);
+	}
+	
+	/**
+	 * Reads pending sub-ontologies into the model
+	 */
+	private void loadSubOntologies(Collection<String> urls)
+	{
+		if(isReading())
+		{
+			LogManager.getLogger().debug("Sub-Ontologies not loaded while reading the ontology: "+urls);
+			return;
+		}
+		beginWrite();
+		OntologyRepository.Installation installed = null;
+		try {
+			Map<String,String[]> pending = new LinkedHashMap<String,String[]>(pendingSubOntologies);
+			//Other threads may have read some of them while waiting for the lock
+			List<String> toLoad = new ArrayList<String>();
+			for(String url : urls)
+				if(pending.remove(url) != null)
+					toLoad.add(url);
+			if(toLoad.isEmpty())
+				return;
+			OntologyRepository repo = repository;
+			if(repo != null)
+				installed = repo.install(ONT_MODEL.getDocumentManager());
+			
+			for(String url : toLoad)
+			{
+				long start = System.nanoTime();
+				LogManager.getLogger().info("Loading Sub-Ontology: "+url);
+				ONT_MODEL.read(url);
+				//With inference disabled the inferred model is kept complete, so it can be enabled again
+				if(backupModel != null)
+					backupModel.read(url);
+				LogManager.getLogger().info("Sub-Ontology loaded in "+(System.nanoTime()-start)/1000000+" ms: "+url);
+			}
+			pendingSubOntologies = namespacePrefixes(pending.keySet());
+			invalidateHierarchy();
+			invalidateResources();
+		} finally {
+			if(installed != null)
+				installed.uninstall();
+			endWrite();
+		}
+	}
+	
+	/**
+	 * Finds the prefixes of the model bound to the namespaces of some sub-ontologies
+	 */
+	private Map<String,String[]> namespacePrefixes(Collection<String> urls)
+	{
+		if(urls.isEmpty())
+			return Collections.emptyMap();
+		Map<String,String[]> result = new LinkedHashMap<String,String[]>();
+		Map<String,String> prefixes = ONT_MODEL.getNsPrefixMap();
+		for(String url : urls)
+		{
+			List<String> bound = new ArrayList<String>();
+			for(Map.Entry<String,String> prefix : prefixes.entrySet())
+				if(prefix.getKey().length() > 0 && inNamespace(prefix.getValue(), url, null))
+					bound.add(prefix.getKey() + ":");
+			result.put(url, bound.toArray(new String[bound.size()]));
+		}
+		return Collections.unmodifiableMap(result);
+	}
+	
+	/**
+	 * Checks if a URI, or a qualified name with one of the given prefixes, belongs to the namespace of a document
+	 */
+	private static boolean inNamespace(String name, String url, String[] prefixes)
+	{
+		if(name.startsWith(url))
+		{
+			if(name.length() == url.length())
+				return true;
+			char c = name.charAt(url.length());
+			if(c == '#' || c == '/')
+				return true;
+		}
+		if(prefixes != null)
+			for(String prefix : prefixes)
+				if(name.startsWith(prefix))
+					return true;
+		return false;
+	}
+
+	/**************************************************************/
+	/*                Bulk loading                                */
+	/**************************************************************/
+	
+	/** Default number of statements added at once by loadInstances() */
+	public static final int DEFAULT_BATCH_SIZE = 10000;
+	
+	/**
+	 * Loads the statements of a file (usually instances) into the current model. 
+	 * See loadInstances(InputStream, SerializationFormat, String, int, LoadListener).
+	 * @param fileName file to load. If its name ends with ".gz" it is decompressed.
+	 * @param format format of the file
+	 * @param listener listener notified of the progress, or null
+	 * @return the number of statements loaded
+	 */
+	public long loadInstances(String fileName, SerializationFormat format, LoadListener listener) throws IOException
+	{
+		InputStream in = new BufferedInputStream(new FileInputStream(fileName), 1 << 16);
+		try {
+			if(fileName.endsWith(".gz"))
+				in = new GZIPInputStream(in, 1 << 16);
+			return loadInstances(in, format, new File(fileName).toURI().toString(), DEFAULT_BATCH_SIZE, listener);
+		} finally {
+			in.close();
+		}
+	}
+	
+	/**
+	 * Loads the statements of a document (usually instances) into the current model, streaming them in batches.<br>
+	 * Unlike loadOntology(), the document is never held in memory: it is parsed as it is read and 
+	 * only one batch of statements is kept before being added to the model. Each batch is added 
+	 * with a single bulk update, so the model listeners and the reasoner are notified once per batch, 
+	 * and the reasoner processes the new statements once, at the next query.
+	 * Imports are not processed.
+	 * @param in stream with the document. It is not closed.
+	 * @param format format of the document: N_TRIPLES, TURTLE or RDF_XML
+	 * @param baseURI base URI used to resolve relative URIs, or null
+	 * @param batchSize number of statements added at once
+	 * @param listener listener notified after every batch, or null
+	 * @return the number of statements loaded
+	 */
+	public long loadInstances(InputStream in, SerializationFormat format, String baseURI, int batchSize, LoadListener listener)
+	{
+		Operation op = beginWrite("loadInstances");
+		try {
+			BulkLoader loader = new BulkLoader(ONT_MODEL.getGraph(), batchSize, listener);
+			try {
+				loader.load(in, format, baseURI);
+			} finally {
+				if(loader.getCount() > 0)
+				{
+					invalidateHierarchy();
+					invalidateResources();
+				}
+			}
+			long millis = Math.max(1, loader.getElapsedMillis());
+			LogManager.getLogger().info("Loaded "+loader.getCount()+" statements in "+millis+" ms ("+(loader.getCount()*1000/millis)+" statements/s)");
+			return loader.getCount();
+		} finally {
+			endWrite(op);
+		}
+	}
+
+	/**************************************************************/
+	/*                Inference cache                             */
+	/**************************************************************/
+	
+	/** Cache of inferred closures, or null if not used */
+	private volatile InferenceCache inferenceCache = null;
+	
+	/**
+	 * Sets the cache where loadOntology() stores the inferred closure of the loaded documents.<br>
+	 * The first time some documents are loaded with a reasoner, the model is classified and realized 
+	 * and its closure and hierarchy index are stored in the cache. Later loads of the same documents 
+	 * with the same reasoner restore them from the cache without running the reasoner.<br>
+	 * A restored ontology answers the queries from the stored closure. The first modification is also applied to 
+	 * the model of the reasoner, which answers the queries from then on, so modifications are reasoned as usual 
+	 * (the reasoner classifies the ontology at the next query).
+	 * @param cache the cache, or null to stop using it
+	 */
+	public void setInferenceCache(InferenceCache cache)
+	{
+		inferenceCache = cache;
+	}
+	
+	/**
+	 * Returns the cache of inferred closures, or null if it is not used
+	 */
+	public InferenceCache getInferenceCache()
+	{
+		return inferenceCache;
+	}
+	
+	/**
+	 * Computes the key of the loaded documents, or returns null if some document cannot be read
+	 */
+	private String cacheKey(InferenceCache cache, OntologyDocument mainOntology, Collection<OntologyDocument> subOntologies, boolean loadSubOntologies)
+	{
+		try {
+			return cache.key(ONT_MODEL, mainOntology, subOntologies, loadSubOntologies);
+		} catch (IOException e) {
+			LogManager.getLogger().warn("Inference cache not used: "+e);
+			return null;
+		}
+	}
+	
+	/** Forwards the changes of a closure restored from the cache to the inferred model, or null if none is used */
+	private ModelChangeForwarder cacheForwarder = null;
+	
+	/**
+	 * Replaces the current model by the closure stored in the cache, keeping the current model as the inferred one.
+	 * The changes of the closure are forwarded to the inferred model, which is used again after the first write.
+	 * @return false if there is no valid entry for the key
+	 */
+	private boolean restoreInference(InferenceCache cache, String key)
+	{
+		long start = System.nanoTime();
+		Graph plain = Factory.createGraphMem();
+		HierarchyIndex index;
+		try {
+			index = cache.read(key, plain);
+		} catch (Exception e) {
+			LogManager.getLogger().warn("Invalid inference cache entry "+key+": "+e);
+			return false;
+		}
+		if(index == null)
+			return false;
+		
+		useMaterialization(plain, index);
+		//The not classified model is kept as if inference had been disabled
+		backupModel = ONT_MODEL;
+		inferenceHierarchy = null;
+		ONT_MODEL = materializedModel;
+		hierarchy = index;
+		cacheForwarder = new ModelChangeForwarder(backupModel);
+		materializedModel.register(cacheForwarder);
+		invalidateInstances();
+		invalidateResources();
+		LogManager.getLogger().info("Inference restored from cache in "+(System.nanoTime()-start)/1000000+" ms: "+plain.size()+" statements");
+		return true;
+	}
+	
+	/**
+	 * Stops using the closure restored from the cache and uses the inferred model again. 
+	 * The closure is kept as materialized copy if it has not been modified.
+	 */
+	private void leaveInferenceCache()
+	{
+		materializedModel.unregister(cacheForwarder);
+		boolean changed = cacheForwarder.isChanged();
+		cacheForwarder = null;
+		if(changed)
+			discardMaterialization();
+		else
+			materializedHierarchy = hierarchy;
+		ONT_MODEL = backupModel;
+		backupModel = null;
+		inferenceHierarchy = null;
+		invalidateHierarchy();
+		invalidateResources();
+	}
+	
+	/**
+	 * Stores the closure of the current model in the cache
+	 */
+	private void storeInference(InferenceCache cache, String key)
+	{
+		long start = System.nanoTime();
+		try {
+			prepareReasoner();
+			cache.write(key, ONT_MODEL.getGraph(), getHierarchyIndex());
+			LogManager.getLogger().info("Inference stored in cache in "+(System.nanoTime()-start)/1000000+" ms: "+cache.getFile(key));
+		} catch (IOException e) {
+			LogManager.getLogger().warn("Inference cache entry not stored: "+e);
+		}
+	}
+
+	/**************************************************************/
+	/*                Concurrency                                 */
+	/**************************************************************/
+	
+	/** Lock shared by readers and exclusive for writers. It does nothing if the object is not concurrent. */
+	protected final ReadWriteLock lock;
+	
+	/** Number of nested write operations of the thread holding the write lock */
+	private int writeDepth = 0;
+	
+	/**
+	 * Returns true if this object can be shared by several threads
+	 */
+	public boolean isConcurrent()
+	{
+		return lock != NoLock.INSTANCE;
+	}
+	
+	/**
+	 * Returns the lock used by this object. Code that reads the JENA model returned by getModel()
+	 * must hold the read lock, and code that modifies it must hold the write lock.
+	 * If the object is not concurrent the lock does nothing.
+	 */
+	public ReadWriteLock getLock()
+	{
+		return lock;
+	}
+	
+	/**
+	 * Acquires the lock for reading
+	 */
+	protected void beginRead()
+	{
+		lock.readLock().lock();
+	}
+	
+	protected void endRead()
+	{
+		lock.readLock().unlock();
+	}
+	
+	/**
+	 * Acquires the lock for writing. A thread that is reading cannot start writing.
+	 */
+	protected void beginWrite()
+	{
+		if(lock instanceof ReentrantReadWriteLock && ((ReentrantReadWriteLock)lock).getReadHoldCount() > 0)
+			throw new IllegalStateException("The ontology cannot be modified while it is being read by the same thread");
+		lock.writeLock().lock();
+		writeDepth++;
+	}
+	
+	/**
+	 * Releases the write lock. When the outermost write finishes, the reasoner and the 
+	 * hierarchy index are prepared so readers do not modify them, and a new snapshot is 
+	 * published if automatic publication is enabled.
+	 */
+	protected void endWrite()
+	{
+		try {
+			finishWrite();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+	
+	/**
+	 * Work done by endWrite() before releasing the lock
+	 */
+	private void finishWrite()
+	{
+		if(--writeDepth == 0 && ONT_MODEL != null)
+		{
+			if(cacheForwarder != null && cacheForwarder.isChanged())
+				leaveInferenceCache();
+			if(backupModel == null && inferenceChanges != null && inferenceChanges.isChanged())
+				discardMaterialization();
+			if(isConcurrent())
+			{
+				prepareReasoner();
+				getHierarchyIndex();
+			}
+			if(autoPublish)
+				publishSnapshot();
+			if(metrics != null)
+				updateSize();
+		}
+	}
+	
+	/**
+	 * Classifies and realizes the ontology, so the reasoner answers the following queries 
+	 * without changing its state.
+	 */
+	protected void prepareReasoner()
+	{
+		Graph graph = ONT_MODEL.getGraph();
+		if(graph instanceof PelletInfGraph)
+		{
+			PelletInfGraph pellet = (PelletInfGraph)graph;
+			pellet.prepare();
+			if(!pellet.isRealized())
+			{
+				long start = System.nanoTime();
+				pellet.realize();
+				record("reasoner.realization", start);
+			}
+		}
+		else if(graph instanceof InfGraph)
+			((InfGraph)graph).prepare();
+	}
+	
+	/**
+	 * Runs the phases of the reasoner up to the given one, so the following calls do not run them.
+	 * Use setProfiling() to find out which phases are run by the calls of an application.
+	 * Reasoners other than PELLET are prepared in one step whatever the phase.
+	 * @param phase last phase to run
+	 */
+	public void prepareReasoner(ReasonerPhase phase)
+	{
+		Operation op = beginWrite("prepareReasoner");
+		try {
+			Graph graph = ONT_MODEL.getGraph();
+			if(graph instanceof PelletInfGraph)
+			{
+				PelletInfGraph pellet = (PelletInfGraph)graph;
+				switch(phase)
+				{
+					case LOADING:
+						pellet.prepare(false);
+						break;
+					case CONSISTENCY:
+						pellet.prepare(true);
+						break;
+					case CLASSIFICATION:
+						pellet.classify();
+						break;
+					case REALIZATION:
+						pellet.realize();
+						break;
+				}
+			}
+			else if(graph instanceof InfGraph)
+				((InfGraph)graph).prepare();
+		} finally {
+			endWrite(op);
+		}
+	}
+	
+	/**
+	 * Classifies the ontology if it has a reasoner
+	 */
+	private void classify()
+	{
+		Graph graph = ONT_MODEL.getGraph();
+		if(graph instanceof PelletInfGraph)
+			((PelletInfGraph)graph).classify();
+		else if(graph instanceof InfGraph)
+			((InfGraph)graph).prepare();
+	}
+	
+	/**************************************************************/
+	/*                Metrics                                     */
+	/**************************************************************/
+	
+	/** Receiver of the elapsed times, or null if they are not measured */
+	private volatile OntologyMetrics metrics = null;
+	
+	/** Outermost operation running in every thread */
+	private final ThreadLocal<Operation> operations = new ThreadLocal<Operation>();
+	
+	private volatile boolean profiling = false;
+	
+	/** Profile of the last call of every thread */
+	private final ThreadLocal<ReasonerProfile> profiles = new ThreadLocal<ReasonerProfile>();
+	
+	/**
+	 * Measures the time spent in the operations of this object. The elapsed time of every call 
+	 * to a public method is passed to the metrics when the call finishes, including the time waiting
+	 * for the lock. See OntologyMetrics for the names of the operations.
+	 * @param metrics receiver of the measurements, or null to stop measuring
+	 */
+	public void setMetrics(OntologyMetrics metrics)
+	{
+		this.metrics = metrics;
+		if(metrics != null)
+		{
+			beginRead();
+			try {
+				updateSize();
+			} finally {
+				endRead();
+			}
+		}
+	}
+	
+	/** Size of the ontology when the last write ended, while metrics are set (-1 if not known) */
+	private volatile long tripleCount = -1;
+	private volatile int classCount = -1;
+	private volatile int individualCount = -1;
+	
+	/**
+	 * Number of asserted statements when the last write ended, or -1 if not known
+	 */
+	long getTripleCount()
+	{
+		return tripleCount;
+	}
+	
+	/**
+	 * Number of named classes of the hierarchy index when the last write ended, or -1 if not known
+	 */
+	int getClassCount()
+	{
+		return classCount;
+	}
+	
+	/**
+	 * Number of individuals when the last write ended, or -1 if not known
+	 */
+	int getIndividualCount()
+	{
+		return individualCount;
+	}
+	
+	/**
+	 * Stores the size of the ontology reported by the metrics. It never runs the reasoner: the classes are 
+	 * only counted if the hierarchy index is built, and the individuals of a PELLET model only if its 
+	 * knowledge base is prepared. Other reasoners do not report the individuals.
+	 */
+	private void updateSize()
+	{
+		if(ONT_MODEL == null)
+			return;
+		tripleCount = ONT_MODEL.getBaseModel().size();
+		HierarchyIndex index = hierarchy;
+		if(index == null)
+			classCount = -1;
+		else
+		{
+			int classes = index.size();
+			if(index.thing() != HierarchyIndex.NONE)
+				classes--;
+			if(index.nothing() != HierarchyIndex.NONE)
+				classes--;
+			classCount = classes;
+		}
+		Graph graph = ONT_MODEL.getGraph();
+		if(graph instanceof PelletInfGraph)
+		{
+			PelletInfGraph pellet = (PelletInfGraph)graph;
+			individualCount = pellet.isPrepared() ? pellet.getKB().getIndividuals().size() : -1;
+		}
+		else if(graph instanceof InfGraph)
+			individualCount = -1;
+		else
+		{
+			int count = 0;
+			ExtendedIterator<Individual> iter = ONT_MODEL.listIndividuals();
+			try {
+				for(; iter.hasNext(); iter.next())
+					count++;
+			} finally {
+				iter.close();
+			}
+			individualCount = count;
+		}
+	}
+	
+	/**
+	 * Returns the receiver of the measurements, or null if they are not measured
+	 */
+	public OntologyMetrics getMetrics()
+	{
+		return metrics;
+	}
+	
+	/**
+	 * Enables or disables the profiling of the reasoner. When enabled, every call records which phases of the
+	 * reasoner it ran (loading, consistency checking, classification and realization), the time spent in them
+	 * and the size of the model. The profile of the last call of a thread is returned by getLastProfile(), and
+	 * profiles are logged: at INFO level if the call ran the reasoner and at DEBUG level otherwise.
+	 * Profiling reads the timers of the reasoner at the beginning and at the end of every call.
+	 */
+	public void setProfiling(boolean enabled)
+	{
+		profiling = enabled;
+	}
+	
+	public boolean isProfiling()
+	{
+		return profiling;
+	}
+	
+	/**
+	 * Returns the profile of the last call made by the current thread while profiling was enabled, 
+	 * or null if there is none
+	 */
+	public ReasonerProfile getLastProfile()
+	{
+		return profiles.get();
+	}
+	
+	/**
+	 * Call to a public method. Calls made while it runs are part of it.
+	 */
+	protected static final class Operation
+	{
+		final String name;
+		final long start;
+		final OntologyMetrics metrics;
+		final boolean profiled;
+		int nested = 0;
+		/** State of the reasoner when the lock was acquired, if profiled */
+		ReasonerProfile.Snapshot reasoner;
+		
+		Operation(String name, OntologyMetrics metrics, boolean profiled)
+		{
+			this.name = name;
+			this.metrics = metrics;
+			this.profiled = profiled;
+			this.start = System.nanoTime();
+		}
+	}
+	
+	/**
+	 * Starts measuring an operation
+	 * @return the operation, or null if nothing is measured
+	 */
+	protected Operation startOperation(String name)
+	{
+		OntologyMetrics m = metrics;
+		boolean p = profiling;
+		if(m == null && !p)
+			return null;
+		Operation running = operations.get();
+		if(running != null)
+		{
+			running.nested++;
+			return running;
+		}
+		Operation op = new Operation(name, m, p);
+		operations.set(op);
+		return op;
+	}
+	
+	/**
+	 * Finishes an operation started by startOperation(). Only the outermost operation is recorded.
+	 */
+	protected void endOperation(Operation op)
+	{
+		if(op == null)
+			return;
+		if(op.nested > 0)
+		{
+			op.nested--;
+			return;
+		}
+		operations.remove();
+		if(op.metrics != null)
+			op.metrics.record(op.name, System.nanoTime() - op.start);
+	}
+	
+	/**
+	 * Reads the state of the reasoner when an outermost profiled operation holds the lock
+	 */
+	private void startProfile(Operation op)
+	{
+		if(op != null && op.profiled && op.nested == 0)
+			op.reasoner = new ReasonerProfile.Snapshot(ONT_MODEL);
+	}
+	
+	/**
+	 * Records the profile of an outermost profiled operation before it releases the lock
+	 */
+	private void endProfile(Operation op)
+	{
+		if(op == null || op.nested > 0 || op.reasoner == null)
+			return;
+		ReasonerProfile profile = new ReasonerProfile(op.name, op.reasoner, new ReasonerProfile.Snapshot(ONT_MODEL));
+		profiles.set(profile);
+		if(profile.isReasoning())
+			LogManager.getLogger().info("Profile: " + profile);
+		else
+			LogManager.getLogger().debug("Profile: " + profile);
+	}
+	
+	/**
+	 * Records the time elapsed since start, if metrics are set
+	 * @return the current time
+	 */
+	private long record(String name, long start)
+	{
+		OntologyMetrics m = metrics;
+		if(m == null)
+			return start;
+		long now = System.nanoTime();
+		m.record(name, now - start);
+		return now;
+	}
+	
+	/**
+	 * Starts measuring an operation and acquires the lock for reading
+	 */
+	protected Operation beginRead(String name)
+	{
+		Operation op = startOperation(name);
+		try {
+			beginRead();
+		} catch(RuntimeException e) {
+			endOperation(op);
+			throw e;
+		}
+		startProfile(op);
+		return op;
+	}
+	
+	protected void endRead(Operation op)
+	{
+		try {
+			endProfile(op);
+		} finally {
+			try {
+				endRead();
+			} finally {
+				endOperation(op);
+			}
+		}
+	}
+	
+	/**
+	 * Starts measuring an operation and acquires the lock for writing
+	 */
+	protected Operation beginWrite(String name)
+	{
+		Operation op = startOperation(name);
+		try {
+			beginWrite();
+		} catch(RuntimeException e) {
+			endOperation(op);
+			throw e;
+		}
+		startProfile(op);
+		return op;
+	}
+	
+	/**
+	 * Releases the write lock. The profile of the operation includes the reasoning done by endWrite().
+	 */
+	protected void endWrite(Operation op)
+	{
+		try {
+			finishWrite();
+		} finally {
+			try {
+				endProfile(op);
+			} finally {
+				try {
+					lock.writeLock().unlock();
+				} finally {
+					endOperation(op);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Returns an iterator that can be used after releasing the lock. 
+	 * If the object is concurrent the remaining elements are copied.
+	 */
+	protected <T> Iterator<T> detach(Iterator<T> iter)
+	{
+		if(!isConcurrent())
+			return iter;
+		ArrayList<T> list = new ArrayList<T>();
+		while(iter.hasNext())
+			list.add(iter.next());
+		return list.iterator();
+	}
+	
+	/**************************************************************/
+	/*                Snapshots                                   */
+	/**************************************************************/
+	
+	/** Last published snapshot */
+	private final AtomicReference<OntologySnapshot> snapshot = new AtomicReference<OntologySnapshot>();
+	
+	private final AtomicLong snapshotVersions = new AtomicLong();
+	
+	private volatile boolean autoPublish = false;
+	
+	/**
+	 * Returns the last published snapshot of the ontology without blocking. 
+	 * If no snapshot has been published yet, one is published now.
+	 * Readers that use snapshots are never blocked by writers and see the ontology as it was
+	 * when the snapshot was published.
+	 */
+	public OntologySnapshot getSnapshot()
+	{
+		OntologySnapshot current = snapshot.get();
+		if(current == null)
+			current = publishSnapshot();
+		return current;
+	}
+	
+	/**
+	 * Copies the current state of the ontology (asserted and inferred statements and the class 
+	 * hierarchy) into a new immutable snapshot and publishes it. 
+	 * The cost is proportional to the size of the inferred model, so writers should publish 
+	 * after a batch of changes instead of after each one.
+	 * @return the published snapshot
+	 */
+	public OntologySnapshot publishSnapshot()
+	{
+		Operation op = beginRead("publishSnapshot");
+		try {
+			OntologySnapshot created = new OntologySnapshot(snapshotVersions.incrementAndGet(), 
+					ONT_MODEL, ONT_MODEL.getRawModel(), getHierarchyIndex(), BASE_NS);
+			// A slower publisher must not replace a newer snapshot
+			OntologySnapshot current;
+			do {
+				current = snapshot.get();
+				if(current != null && current.getVersion() > created.getVersion())
+					return current;
+			} while(!snapshot.compareAndSet(current, created));
+			return created;
+		} finally {
+			endRead(op);
+		}
+	}
+	
+	/**
+	 * Enables or disables the publication of a new snapshot after every modification of the ontology
+	 */
+	public void setAutoPublishSnapshots(boolean enabled)
+	{
+		autoPublish = enabled;
+	}
+	
+	public boolean isAutoPublishSnapshots()
+	{
+		return autoPublish;
+	}
+	
+	/**************************************************************/
+	/****************      Depth methods   ************************/
+	/**************************************************************/
+
+	/** Index of the class hierarchy. It is rebuilt when the hierarchy changes. */
+	protected HierarchyIndex hierarchy = null;
+	
+	/**
+	 * Computes the depth of every class of the ontology.
+	 * The hierarchy index is built in one pass over the classified taxonomy.
+	 */
+	protected void preCalculateProfs()
+	{
+		hierarchy = HierarchyIndex.build(ONT_MODEL);
+		changedLeaves.clear();
+		typeClosures.clear();
+	}
+	
+	/**
+	 * Returns the index of the class hierarchy, building it if necessary.
+	 */
+	public HierarchyIndex getHierarchyIndex()
+	{
+		Operation op = beginRead("getHierarchyIndex");
+		try {
+			if(hierarchy == null)
+				preCalculateProfs();
+			else if(!changedLeaves.isEmpty())
+				updateHierarchy();
+			return hierarchy;
+		} finally {
+			endRead(op);
+		}
+	}
+	
+	/**
+	 * Returns the hierarchy index, building it if necessary.
+	 */
+	protected HierarchyIndex hierarchy()
+	{
+		return getHierarchyIndex();
+	}
+	
+	/**
+	 * Discards the hierarchy index. It will be rebuilt by the next depth or subclass query.
+	 */
+	protected void invalidateHierarchy()
+	{
+		hierarchy = null;
+		changedLeaves.clear();
+		invalidateInstances();
+	}
+	
+	/** Classes without subclasses whose superclasses changed after building the hierarchy index */
+	private final LinkedHashSet<String> changedLeaves = new LinkedHashSet<String>();
+	
+	/**
+	 * Records that the superclasses of a class changed (or that it was created).<br>
+	 * If the class has no subclasses and no class definition refers to it, the change cannot move other 
+	 * classes, so the hierarchy index is updated incrementally the next time it is used: only the 
+	 * class and its depth are patched. Otherwise the index is discarded.
+	 * @param uri URI of the class
+	 */
+	protected void invalidateHierarchy(String uri)
+	{
+		if(hierarchy == null || referencedByDefinitions(uri))
+			invalidateHierarchy();
+		else
+		{
+			changedLeaves.add(uri);
+			invalidateInstances();
+		}
+	}
+	
+	/**
+	 * Applies the pending changes of leaf classes to the hierarchy index, building it again if some class is not a leaf
+	 */
+	protected void updateHierarchy()
+	{
+		HierarchyIndex index = hierarchy;
+		for(Iterator<String> iter = changedLeaves.iterator(); index != null && iter.hasNext();)
+		{
+			String uri = iter.next();
+			index = index.withLeaf(uri, directSuperClasses(uri));
+		}
+		if(index == null)
+			preCalculateProfs();
+		else
+		{
+			hierarchy = index;
+			changedLeaves.clear();
+			typeClosures.clear();
+		}
+	}
+	
+	/**
+	 * Returns the direct named superclasses of a class as HierarchyIndex.build() finds them:
+	 * from the classified taxonomy if there is a reasoner, or from the asserted statements otherwise
+	 */
+	private List<String> directSuperClasses(String uri)
+	{
+		boolean inferred = ONT_MODEL.getSpecification().getReasoner() != null;
+		List<String> res = new ArrayList<String>();
+		StmtIterator si = ONT_MODEL.listStatements(ONT_MODEL.getResource(uri), 
+				inferred ? ReasonerVocabulary.directSubClassOf : RDFS.subClassOf, (RDFNode)null);
+		while(si.hasNext())
+		{
+			RDFNode sup = si.nextStatement().getObject();
+			if(sup.isURIResource() && (inferred || !sup.equals(OWL.Thing)))
+				res.add(((Resource)sup).getURI());
+		}
+		return res;
+	}
+	
+	/**
+	 * Checks if the asserted statements of a model with reasoner use a class in a class expression 
+	 * (restrictions, boolean combinations, ...), so a change of the class could change the classification of other classes.
+	 */
+	private boolean referencedByDefinitions(String uri)
+	{
+		Graph graph = ONT_MODEL.getGraph();
+		if(!(graph instanceof InfGraph))
+			return false;
+		ExtendedIterator<Triple> iter = ((InfGraph)graph).getRawGraph().find(Node.ANY, Node.ANY, Node.createURI(uri));
+		try {
+			while(iter.hasNext())
+			{
+				Node p = iter.next().getPredicate();
+				if(!p.equals(RDF.type.asNode()) && !p.equals(RDFS.domain.asNode()) && !p.equals(RDFS.range.asNode()))
+					return true;
+			}
+			return false;
+		} finally {
+			iter.close();
+		}
+	}
+	
+	/**
+	 * Discards the cached classes of the instances. Called when instances or their properties change.
+	 */
+	protected void invalidateInstances()
+	{
+		typeClosures.clear();
+	}
+	
+	/**
+	 * Returns the id of a class in the hierarchy index or HierarchyIndex.NONE if it is not indexed.
+	 * @param ontClass URI or short name of the class
+	 */
+	protected int hierarchyId(String ontClass)
+	{
+		HierarchyIndex index = getHierarchyIndex();
+		int id = index.id(ontClass);
+		if(id == HierarchyIndex.NONE)
+		{
+			OntResource ontR = obtainOntResource(ontClass);
+			if(ontR != null && ontR.isURIResource())
+				id = index.id(ontR.getURI());
+		}
+		return id;
+	}
+	
+	/**
+	 * Returns the depth of a class. owl:Thing has depth 0.
+	 * @param _class URI or short name of the class
+	 */
+	public int profConcept(String _class)
+	{
+		loadSubOntologiesOf(_class);
+		Operation op = beginRead("profConcept");
+		try {
+			int id = hierarchyId(_class);
+			if(id == HierarchyIndex.NONE)
+				throw new IllegalArgumentException("Class not found in the hierarchy: "+_class);
+			return hierarchy.depth(id);
+		} finally {
+			endRead(op);
+		}
+	}
+	/**
+	 * Returns the depth of an instance: one more than the depth of its shallowest declared class.
+	 * Declared types that are not classes of the hierarchy (e.g. owl:Class) are ignored.
+	 * Returns 0 if none of the declared types belongs to the hierarchy.
+	 * @param instance URI or short name of the instance
+	 */
+	public int profInstance(String instance)
+	{
+		loadSubOntologiesOf(instance);
+		Operation op = beginRead("profInstance");
+		try {
+			return profInstance(instance, hierarchy());
+		} finally {
+			endRead(op);
+		}
+	}
+	
+	/**
+	 * Returns the depth of an instance in the given hierarchy index. The caller must hold the read lock.
+	 */
+	protected int profInstance(String instance, HierarchyIndex index)
+	{
+		int res = Integer.MAX_VALUE;
+		for(Iterator<String> iter = listDeclaredBelongingClasses(instance); iter.hasNext();)
+		{
+			int id = index.id(iter.next());
+			if(id == HierarchyIndex.NONE)
+				continue;
+			int prof = index.depth(id);
+			if(prof<res)
+				res = prof;
+		}
+		if(res == Integer.MAX_VALUE)
+			return 0;
+		return res+1;
+	}
+	
+	public int getMaxProf()
+	{
+		Operation op = beginRead("getMaxProf");
+		try {
+			return getHierarchyIndex().maxDepth();
+		} finally {
+			endRead(op);
+		}
+	}
+	
+	
+	/**
+	 * Returns the maximum profundity of the Least Common Subsumers of two instances.
+	 */
+	public int maxProfLCS(String instance1, String instance2)
+	{
+		loadSubOntologiesOf(instance1);
+		loadSubOntologiesOf(instance2);
+		Operation op = beginRead("maxProfLCS");
+		try {
+			return hierarchy().maxCommonDepth(typeClosure(instance1), typeClosure(instance2));
+		} finally {
+			endRead(op);
+		}
+	}
+	
+	/**
+	 * Returns the maximum profundity of the Least Common Subsumers of an instance 
+	 * and each one of the given instances.
+	 * @param instance query instance
+	 * @param instances instances compared with the query
+	 * @return array with the profundity for each instance, in iteration order
+	 */
+	public int[] maxProfLCS(String instance, Collection<String> instances)
+	{
+		loadSubOntologiesOf(instance);
+		loadSubOntologiesOf(instances);
+		Operation op = beginRead("maxProfLCS");
+		try {
+			HierarchyIndex index = hierarchy();
+			int[] query = typeClosure(instance);
+			int[] res = new int[instances.size()];
+			int i = 0;
+			for(String other : instances)
+				res[i++] = index.maxCommonDepth(query, typeClosure(other));
+			return res;
+		} finally {
+			endRead(op);
+		}
+	}
+	
+	/**
+	 * Returns the profundity of each one of the given instances.
+	 * @param instances instances
+	 * @return array with the profundity for each instance, in iteration order
+	 */
+	public int[] profInstance(Collection<String> instances)
+	{
+		loadSubOntologiesOf(instances);
+		Operation op = beginRead("profInstance");
+		try {
+			int[] res = new int[instances.size()];
+			int i = 0;
+			for(String instance : instances)
+				res[i++] = profInstance(instance);
+			return res;
+		} finally {
+			endRead(op);
+		}
+	}
+	
+	/**
+	 * Returns the Wu-Palmer similarity between an instance and each one of the given instances:
+	 * 2*maxProfLCS(instance,other) / (profInstance(instance)+profInstance(other)).
+	 * Large collections are scored in parallel.
+	 * @param instance query instance
+	 * @param instances instances compared with the query
+	 * @return array with the similarity for each instance, in iteration order
+	 */
+	public double[] wuPalmer(String instance, Collection<String> instances)
+	{
+		loadSubOntologiesOf(instance);
+		loadSubOntologiesOf(instances);
+		Operation op = beginRead("wuPalmer");
+		try {
+			return taxonomicSimilarity(instances).wuPalmer(instance);
+		} finally {
+			endRead(op);
+		}
+	}
+	
+	/**
+	 * Creates a read-only snapshot of the taxonomic information of a collection of instances
+	 * (usually the case base) that scores query instances against all of them in bulk.
+	 * Large collections are scored in parallel using the common fork-join pool.
+	 * @param instances case instances
+	 */
+	public TaxonomicSimilarity taxonomicSimilarity(Collection<String> instances)
+	{
+		loadSubOntologiesOf(instances);
+		Operation op = beginRead("taxonomicSimilarity");
+		try {
+			return taxonomicSimilarity(instances, ForkJoinPool.commonPool());
+		} finally {
+			endRead(op);
+		}
+	}
+	
+	/**
+	 * Creates a read-only snapshot of the taxonomic information of a collection of instances
+	 * that scores query instances against all of them in bulk.
+	 * @param instances case instances
+	 * @param pool fork-join pool used to score large collections
+	 */
+	public TaxonomicSimilarity taxonomicSimilarity(Collection<String> instances, ForkJoinPool pool)
+	{
+		loadSubOntologiesOf(instances);
+		Operation op = beginRead("taxonomicSimilarity");
+		try {
+			return new TaxonomicSimilarity(this, instances, pool);
+		} finally {
+			endRead(op);
+		}
+	}
+	
+	/**
+	 * Returns a set with the Least Common Subsumers of two instances. 
+	 */
+	public Set<String> LCS(String instance1, String instance2)
+	{
+		loadSubOntologiesOf(instance1);
+		loadSubOntologiesOf(instance2);
+		Operation op = beginRead("LCS");
+		try {
+			HierarchyIndex index = hierarchy();
+			int[] lcs = index.deepestCommon(typeClosure(instance1), typeClosure(instance2));
+			return new HashSet<String>(index.uris(lcs));
+		} finally {
+			endRead(op);
+		}
+	}
+	
+	/** Sorted class ids (including superclasses) of the instances already queried */
+	protected Map<String, int[]> typeClosures = new ConcurrentHashMap<String, int[]>();
+	
+	/**
+	 * Returns the sorted ids in the hierarchy index of the classes an instance belongs to,
+	 * including their superclasses and owl:Thing. Results are cached until the model changes.
+	 * @param instance URI or short name of the instance
+	 */
+	protected int[] typeClosure(String instance)
+	{
+		return typeClosure(instance, hierarchy());
+	}
+	
+	/**
+	 * Returns the sorted ids of the classes of an instance in the given hierarchy index.
+	 * Only the closures in the current index are cached.
+	 * @param instance URI or short name of the instance
+	 * @param index hierarchy index, that may be older than the current one
+	 */
+	protected int[] typeClosure(String instance, HierarchyIndex index)
+	{
+		boolean current = index == hierarchy;
+		int[] res = current ? typeClosures.get(instance) : null;
+		if(res == null)
+		{
+			res = typeClosure(obtainOntResource(instance), index);
+			if(current)
+				typeClosures.put(instance, res);
+		}
+		return res;
+	}
+	
+	/**
+	 * Computes the sorted ids of the classes of a resource of the model in the given hierarchy index.
+	 * @param instance resource of the instance, or null if it does not exist
+	 * @param index hierarchy index
+	 */
+	private int[] typeClosure(Resource instance, HierarchyIndex index)
+	{
+		int[] types = new int[4];
+		int count = 0;
+		if(instance != null)
+		{
+			StmtIterator si = ONT_MODEL.listStatements(instance, RDF.type, (RDFNode)null);
+			while(si.hasNext())
+			{
+				RDFNode type = si.nextStatement().getObject();
+				if(!type.isURIResource())
+					continue;
+				int id = index.id(((Resource)type).getURI());
+				if(id == HierarchyIndex.NONE)
+					continue;
+				if(count == types.length)
+					types = Arrays.copyOf(types, count*2);
+				types[count++] = id;
+			}
+		}
+		return index.closure(types, count);
+	}
+	
+	/**************************************************************/
+	/*      Functions for listing Classes of the Ontology         */
+	/**************************************************************/
+	
+	/**
+	 * Lists all the no anonymous classes of the ontology
+	 */
+	public Iterator<String> listAllClasses()
+	{
+		Operation op = beginRead("listAllClasses");
+		try {
+			return detach(new ToStringIterator<String>(ONT_MODEL.listClasses().filterDrop(new Filter() {
+	            public boolean accept( Object o ) {
+	                return ((Resource) o).isAnon();
+	            }} )
+	        ));
+		} finally {
+			endRead(op);
+		}
+	}
+
+	/**
+	 * Lists all the classes of the ontology including anonymous classes
+	 */
+	public Iterator<String> listAllandAnonClasses()
+	{
+		Operation op = beginRead("listAllandAnonClasses");
+		try {
+			return detach(new ToStringIterator<String>(ONT_MODEL.listClasses()));
+		} finally {
+			endRead(op);
+		}
+	}
+	
+	/**
+	 * Lists the enumerated classes of the ontology
+	 */
+	public Iterator<String> listEnumeratedClasses()
+	{
+		Operation op = beginRead("listEnumeratedClasses");
+		try {
+			return detach(new ToStringIterator<String>(ONT_MODEL.listEnumeratedClasses().filterDrop( new Filter() {
+	            public boolean accept( Object o ) {
+	                return ((Resource) o).isAnon();
+	            }} )
+	        ));
+		} finally {
+			endRead(op);
+		}
+	}
+	
+	/**
+	 * Lists the union classes of the ontology
+	 */
+	public Iterator<String> listUnionClasses()
+	{
+		Operation op = beginRead("listUnionClasses");
+		try {
+			return detach(new ToStringIterator<String>(ONT_MODEL.listUnionClasses().filterDrop( new Filter() {
+	            public boolean accept( Object o ) {
+	                return ((Resource) o).isAnon();
+	            }} )
+	        ));
+		} finally {
+			endRead(op);
+		}
+	}
+	
+	/**
+	 * Lists the complement classes of the ontology
+	 */
+	public Iterator<String> listComplementClasses()
+	{
+		Operation op = beginRead("listComplementClasses");
+		try {
+			return detach(new ToStringIterator<String>(ONT_MODEL.listComplementClasses().filterDrop( new Filter() {
+	            public boolean accept( Object o ) {
+	                return ((Resource) o).isAnon();
+	            }} )
+	        ));
+		} finally {
+			endRead(op);
+		}
+	}
+	
+	/**
+	 * Lists the intersection classes of the ontology
+	 */
+	public Iterator<String> listIntersectionClasses()
+	{
+		Operation op = beginRead("listIntersectionClasses");
+		try {
+			return detach(new ToStringIterator<String>(ONT_MODEL.listIntersectionClasses().filterDrop( new Filter() {
+	            public boolean accept( Object o ) {
+	                return ((Resource) o).isAnon();
+	            }} )
+	        ));
+		} finally {
+			endRead(op);
+		}
+	}
+	
+	/**
+	 * Lists the restrictions of the ontology
+	 */
+	public Iterator<String> listRestrictions()
+	{
+		Operation op = beginRead("listRestrictions");
+		try {
+			return detach(new ToStringIterator<String>(ONT_MODEL.listRestrictions().filterDrop( new Filter() {
+	            public boolean accept( Object o ) {
+	                return ((Resource) o).isAnon();
+	            }} )
+	        ));
+		} finally {
+			endRead(op);
+		}
+	}
+	
+	/**
+	 * Lists the hierarchy root classes of the ontology
+	 */
+	public Iterator<String> listRootClasses()
+	{
+		Operation op = beginRead("listRootClasses");
+		try {
+			return detach(new ToStringIterator<String>(ONT_MODEL.listHierarchyRootClasses().filterDrop( new Filter() {
+	            public boolean accept( Object o ) {
+	                return ((Resource) o).isAnon();
+	            }} )
+	        ));		
+		} finally {
+			endRead(op);
+		}
+	}
+	
+	/**************************************************************/
+	/*      Functions for checking sub-super classes and          */
+	/*      instances belonging                                   */
+	/**************************************************************/
+	
+	/**
+	 * Lists the subclasses of a class. 
+	 * Named classes are answered from the hierarchy index without querying the reasoner.
+	 * @param ontClass class parent of the classes user is asking for
+	 * @param direct return only direct subclasses
+	 */
+	public Iterator<String> listSubClasses(String ontClass, boolean direct)
+	{
+		loadSubOntologiesOf(ontClass);
+		Operation op = beginRead("listSubClasses");
+		try {
+			int id = hierarchyId(ontClass);
+			if(id != HierarchyIndex.NONE)
+			{
+				int[] res = direct ? hierarchy.directChildren(id) : hierarchy.descendants(id);
+				return hierarchy.uris(res).iterator();
+			}
+			try{
+				OntClass ontC = obtainOntClass(ontClass);
+				return detach(new ToStringIterator<String>(ontC.listSubClasses(direct)));
+			}catch(Exception e)
+			{
+				return new ArrayList<String>().iterator();
+			}
+		} finally {
+			endRead(op);
+		}
+	}
+	
+	/**
+	 * Lists the superclasses (parents) of a class. 
+	 * Named classes are answered from the hierarchy index without querying the reasoner.
+	 * @param ontClass subclass of the classes user is asking for
+	 * @param direct return only direct subclasses
+	 */
+	public Iterator<String> listSuperClasses(String ontClass, boolean direct)
+	{
+		loadSubOntologiesOf(ontClass);
+		Operation op = beginRead("listSuperClasses");
+		try {
+			int id = hierarchyId(ontClass);
+			if(id != HierarchyIndex.NONE)
+			{
+				int[] res = direct ? hierarchy.directParents(id) : hierarchy.ancestors(id);
+				return hierarchy.uris(res).iterator();
+			}
+			try
+			{
+				OntClass ontC = obtainOntClass(ontClass);
+				return detach(new ToStringIterator<String>(ontC.listSuperClasses(direct)));
+			}catch(Exception e)
+			{
+				return new ArrayList<String>().iterator();
+			}
+		} finally {
+			endRead(op);
+		}
+	}
+	
+	/**
+	 * List the instances of a class
+	 * @param ontClass class that instances belong to
+	 */
+	public Iterator<String> listInstances(String ontClass)
+	{
+		loadSubOntologiesOf(ontClass);
+		Operation op = beginRead("listInstances");
+		try {
+			OntClass ontC = obtainOntClass(ontClass);
+			return detach(new ToStringIterator<String>(ontC.listInstances()));
+		} finally {
+			endRead(op);
+		}
+	}
+
+	/**
+	 * List the declared (not inferred) instances of a class
+	 * @param ontClass class that instances belong to
+	 */
+	public Iterator<String> listDeclaredInstances(String ontClass)
+	{
+		loadSubOntologiesOf(ontClass);
+		Operation op = beginRead("listDeclaredInstances");
+		try {
+			ArrayList<String> list = new ArrayList<String>();
+			OntClass ontC = obtainOntClass(ontClass);
+			StmtIterator si = ONT_MODEL.getRawModel().listStatements(null, RDF.type, ontC);
+			while(si.hasNext())
+			{
+				Statement st = si.nextStatement();
+				list.add(st.getSubject().toString());
+			}
+			return list.iterator();
+		} finally {
+			endRead(op);
+		}
+	}
+	
+	
+	/**
+	 * Lists the classes that an instance belongs to
+	 * @param instance instance asked for belonging classes
+	 */
+	public Iterator<String> listBelongingClasses(String instance)
+	{
+		loadSubOntologiesOf(instance);
+		Operation op = beginRead("listBelongingClasses");
+		try {
+			ArrayList<String> list = new ArrayList<String>();
+			OntResource ontI = obtainOntResource(instance);
+			StmtIterator si = ONT_MODEL.listStatements(ontI, RDF.type, (RDFNode)null);
+			while(si.hasNext())
+			{
+				Statement st = si.nextStatement();
+				list.add(st.getObject().toString());
+			}
+			return list.iterator();
+		} finally {
+			endRead(op);
+		}
+	}
+	
+	/**
+	 * Lists the declared (not inferred) classes that an instance belongs to
+	 * @param instance instance asked for belonging classes
+	 */
+	public Iterator<String> listDeclaredBelongingClasses(String instance)
+	{
+		loadSubOntologiesOf(instance);
+		Operation op = beginRead("listDeclaredBelongingClasses");
+		try {
+			ArrayList<String> list = new ArrayList<String>();
+			OntResource ontI = obtainOntResource(instance);
+			StmtIterator si = ONT_MODEL.getRawModel().listStatements(ontI, RDF.type, (RDFNode)null);
+			while(si.hasNext())
+			{
+				Statement st = si.nextStatement();
+				list.add(st.getObject().toString());
+			}
+			return list.iterator();
+		} finally {
+			endRead(op);
+		}
+	}
+	
+	/**
+	 * Checks if a class is subclass of other
+	 * @param subclass subclasss
+	 * @param superclass superclass
+	 */
+	public boolean isSubClassOf(String subclass, String superclass)
+	{
+		loadSubOntologiesOf(subclass);
+		loadSubOntologiesOf(superclass);
+		Operation op = beginRead("isSubClassOf");
+		try {
+			OntClass subC = obtainOntClass(subclass);
+			OntClass superC = obtainOntClass(superclass);
+			StmtIterator si = ONT_MODEL.listStatements(subC, RDFS.subClassOf,superC);
+			return si.hasNext();
+		} finally {
+			endRead(op);
+		}
+	}
+
+	/**
+	 * Checks if an instance belongs to a class
+	 * @param instance instance
+	 * @param ontclass class
+	 */
+	public boolean isInstanceOf(String instance, String ontclass)
+	{
+		loadSubOntologiesOf(instance);
+		loadSubOntologiesOf(ontclass);
+		Operation op = beginRead("isInstanceOf");
+		try {
+			OntClass ontC = obtainOntClass(ontclass);
+			OntResource ontI = obtainOntResource(instance);
+			StmtIterator si = ONT_MODEL.listStatements(ontI, RDF.type, ontC);
+			return si.hasNext();
+		} finally {
+			endRead(op);
+		}
+	}
+	
+	/**
+	 * Checks if a proporty is an OntologyProperty instead of a DataTypeProperty
+	 * @param property
+	 * @return if it is an OntologyProperty
+	 */
+	public boolean isOntoProperty(String property)
+	{
+		loadSubOntologiesOf(property);
+		Operation op = beginRead("isOntoProperty");
+		try {
+			return ! (obtainOntProperty(property) instanceof DatatypeProperty);
+		} finally {
+			endRead(op);
+		}
+	}
+	
+	
+	/**************************************************************/
+	/*      Functions for managing properties between             */
+	/*      classes and instances                                 */
+	/**************************************************************/
+	
+	/**
+	 * Lists the properties applicable to a class
+	 * @param ontClass class in the domain of the listed properties
+	 */
+	public Iterator<String> listProperties(String ontClass)
+	{
+		loadSubOntologiesOf(ontClass);
+		Operation op = beginRead("listProperties");
+		try {
+			OntClass ontR = obtainOntClass(ontClass);
+			return detach(new ToStringIterator<String>(ontR.listDeclaredProperties()));
+		} finally {
+			endRead(op);
+		}
+	}
+	
+	/**
+	 * Lists the specific properties of class. This method only returns the 
+	 * properties that has the specified class in the domain
+	 * @param ontClass class in the domain of the listed properties
+	 */
+	public Iterator<String> listSpecificProperties(String ontClass)
+	{
+		loadSubOntologiesOf(ontClass);
+		Operation op = beginRead("listSpecificProperties");
+		try {
+			ArrayList<String> list = new ArrayList<String>();
+			OntClass ontR = obtainOntClass(ontClass);
+			for(Iterator iter = ontR.listDeclaredProperties(); iter.hasNext();)
+			{
+				OntProperty prop = (OntProperty)iter.next();
+				StmtIterator si = ONT_MODEL.listStatements(prop, RDFS.domain, ontR);
+				if(si.hasNext())
+					list.add(prop.getURI());
+			}
+			return list.iterator();
+		} finally {
+			endRead(op);
+		}
+	}
+	
+	/**
+	 * Lists the classes on the range of a property
+	 * @param property property user is asking for its range
+	 */
+	public Iterator<String> listPropertyRange(String property)
+	{
+		loadSubOntologiesOf(property);
+		Operation op = beginRead("listPropertyRange");
+		try {
+			OntProperty prop = obtainOntProperty(property);
+			return detach(new ToStringIterator<String>(prop.listRange()));
+		} finally {
+			endRead(op);
+		}
+	}
+	
+	/**
+	 * Lists the instances that are the values of a property of an instance.
+	 * @param instance instance origin of the property
+	 * @param property property 
+	 */
+	public Iterator<String> listPropertyValue(String instance, String property)
+	{
+		loadSubOntologiesOf(instance);
+		loadSubOntologiesOf(property);
+		Operation op = beginRead("listPropertyValue");
+		try {
+			OntResource ontI = obtainOntResource(instance);
+			Property prop = obtainOntProperty(property);
+			return detach(new ToStringIterator<String>(ontI.listPropertyValues(prop)));
+		} finally {
+			endRead(op);
+		}
+	}
+	
+	/**
+	 * Lists the properties of an instance
+	 * @param instance source of the properties
+	 */
+	public Iterator<String> listInstanceProperties(String instance)
+	{
+		loadSubOntologiesOf(instance);
+		Operation op = beginRead("listInstanceProperties");
+		try {
+			ArrayList<String> list = new ArrayList<String>();
+			OntResource ontI = obtainOntResource(instance);
+			for(StmtIterator props = ontI.listProperties(); props.hasNext();)
+				list.add(props.nextStatement().getPredicate().toString());
+			return list.iterator();
+		} finally {
+			endRead(op);
+		}
+	}
+	
+	/**
+	 * Returns the properties with their corresponding values of an instance. The properties and values parameter are cleared.
+	 * They are used to return the properties and values. property[i] has value values[i].
+	 * @param instance source of the properties
+	 * @param properties Array containing the name of the properties
+	 * @param values Array containing the value of the property
+	 */
+	public void listInstancePropertiesValues(String instance, List<String> properties, List<String> values)
+	{
+		loadSubOntologiesOf(instance);
+		Operation op = beginRead("listInstancePropertiesValues");
+		try {
+			properties.clear();
+			values.clear();
+		
+		
+			OntResource ontI = obtainOntResource(instance);
+			for(StmtIterator props = ontI.listProperties(); props.hasNext();)
+			{
+				Statement stmt = props.nextStatement();
+				if(getShortName(stmt.getPredicate().toString()).equals("rdf:type"))
+					continue;
+				properties.add(stmt.getPredicate().toString());
+				values.add(stmt.getObject().toString());	
+			}
+		} finally {
+			endRead(op);
+		}
+	}
+	
+	/**************************************************************/
+	/*      Typed API: handles instead of names                   */
+	/**************************************************************/
+	
+	/**
+	 * Returns a handle to a class. The name is resolved only once, here.
+	 * @param ontClass URI or short name of the class
+	 * @return the handle or null if the class does not exist
+	 */
+	public ClassRef getClassRef(String ontClass)
+	{
+		loadSubOntologiesOf(ontClass);
+		Operation op = beginRead("getClassRef");
+		try {
+			OntClass ontC = obtainOntClass(ontClass);
+			return (ontC == null) ? null : new ClassRef(ontC);
+		} finally {
+			endRead(op);
+		}
+	}
+	
+	/**
+	 * Returns a handle to an instance. The name is resolved only once, here.
+	 * @param instance URI or short name of the instance
+	 * @return the handle or null if the instance does not exist
+	 */
+	public InstanceRef getInstanceRef(String instance)
+	{
+		loadSubOntologiesOf(instance);
+		Operation op = beginRead("getInstanceRef");
+		try {
+			OntResource ontI = obtainOntResource(instance);
+			return (ontI == null) ? null : new InstanceRef(ontI);
+		} finally {
+			endRead(op);
+		}
+	}
+	
+	/**
+	 * Returns a handle to a property. The name is resolved only once, here.
+	 * @param property URI or short name of the property
+	 * @return the handle or null if the property does not exist
+	 */
+	public PropertyRef getPropertyRef(String property)
+	{
+		loadSubOntologiesOf(property);
+		Operation op = beginRead("getPropertyRef");
+		try {
+			OntProperty prop = obtainOntProperty(property);
+			return (prop == null) ? null : new PropertyRef(prop);
+		} finally {
+			endRead(op);
+		}
+	}
+	
+	/**
+	 * Lists the hierarchy root classes of the ontology
+	 */
+	public Iterator<ClassRef> listRootClassRefs()
 	{
-		return new ToStringIterator<String>(ONT_MODEL.listRestrictions().filterDrop( new Filter() {
-            public boolean accept( Object o ) {
-                return ((Resource) o).isAnon();
-            }} )
-        );
+		Operation op = beginRead("listRootClassRefs");
+		try {
+			return detach(toClassRefs(ONT_MODEL.listHierarchyRootClasses().filterDrop(new Filter<OntClass>() {
+	            public boolean accept( OntClass o ) {
+	                return o.isAnon();
+	            }} )));
+		} finally {
+			endRead(op);
+		}
 	}
 	
 	/**
-	 * Lists the hierarchy root classes of the ontology
+	 * Lists all the no anonymous classes of the ontology
 	 */
-	public Iterator<String> listRootClasses()
+	public Iterator<ClassRef> listAllClassRefs()
 	{
-		return new ToStringIterator<String>(ONT_MODEL.listHierarchyRootClasses().filterDrop( new Filter() {
-            public boolean accept( Object o ) {
-                return ((Resource) o).isAnon();
-            }} )
-        );		
+		Operation op = beginRead("listAllClassRefs");
+		try {
+			return detach(toClassRefs(ONT_MODEL.listClasses().filterDrop(new Filter<OntClass>() {
+	            public boolean accept( OntClass o ) {
+	                return o.isAnon();
+	            }} )));
+		} finally {
+			endRead(op);
+		}
 	}
 	
-	/**************************************************************/
-	/*      Functions for checking sub-super classes and          */
-	/*      instances belonging                                   */
-	/**************************************************************/
-	
 	/**
 	 * Lists the subclasses of a class. 
+	 * Named classes are answered from the hierarchy index without querying the reasoner.
 	 * @param ontClass class parent of the classes user is asking for
 	 * @param direct return only direct subclasses
 	 */
-	public Iterator<String> listSubClasses(String ontClass, boolean direct)
+	public Iterator<ClassRef> listSubClasses(ClassRef ontClass, boolean direct)
 	{
-		try{
-			OntClass ontC = obtainOntClass(ontClass);
-			return new ToStringIterator<String>(ontC.listSubClasses(direct));
-		}catch(Exception e)
-		{
-			return new ArrayList<String>().iterator();
+		Operation op = beginRead("listSubClasses");
+		try {
+			HierarchyIndex index = hierarchy();
+			int id = ontClass.hierarchyId(index);
+			if(id != HierarchyIndex.NONE)
+				return toClassRefs(index, direct ? index.directChildren(id) : index.descendants(id));
+			return detach(toClassRefs(ontClass(ontClass).listSubClasses(direct)));
+		} finally {
+			endRead(op);
 		}
 	}
 	
 	/**
 	 * Lists the superclasses (parents) of a class. 
+	 * Named classes are answered from the hierarchy index without querying the reasoner.
 	 * @param ontClass subclass of the classes user is asking for
-	 * @param direct return only direct subclasses
+	 * @param direct return only direct superclasses
 	 */
-	public Iterator<String> listSuperClasses(String ontClass, boolean direct)
+	public Iterator<ClassRef> listSuperClasses(ClassRef ontClass, boolean direct)
 	{
-		try
-		{
-			OntClass ontC = obtainOntClass(ontClass);
-			return new ToStringIterator<String>(ontC.listSuperClasses(direct));
-		}catch(Exception e)
-		{
-			return new ArrayList<String>().iterator();
+		Operation op = beginRead("listSuperClasses");
+		try {
+			HierarchyIndex index = hierarchy();
+			int id = ontClass.hierarchyId(index);
+			if(id != HierarchyIndex.NONE)
+				return toClassRefs(index, direct ? index.directParents(id) : index.ancestors(id));
+			return detach(toClassRefs(ontClass(ontClass).listSuperClasses(direct)));
+		} finally {
+			endRead(op);
 		}
 	}
 	
@@ -486,64 +2659,60 @@ public class OntoBridge {
 	 * List the instances of a class
 	 * @param ontClass class that instances belong to
 	 */
-	public Iterator<String> listInstances(String ontClass)
+	public Iterator<InstanceRef> listInstances(ClassRef ontClass)
 	{
-		OntClass ontC = obtainOntClass(ontClass);
-		return new ToStringIterator<String>(ontC.listInstances());
+		Operation op = beginRead("listInstances");
+		try {
+			return detach(toInstanceRefs(ontClass(ontClass).listInstances()));
+		} finally {
+			endRead(op);
+		}
 	}
-
+	
 	/**
 	 * List the declared (not inferred) instances of a class
 	 * @param ontClass class that instances belong to
 	 */
-	public Iterator<String> listDeclaredInstances(String ontClass)
+	public Iterator<InstanceRef> listDeclaredInstances(ClassRef ontClass)
 	{
-		ArrayList<String> list = new ArrayList<String>();
-		OntClass ontC = obtainOntClass(ontClass);
-		StmtIterator si = ONT_MODEL.getRawModel().listStatements(null, RDF.type, ontC);
-		while(si.hasNext())
-		{
-			Statement st = si.nextStatement();
-			list.add(st.getSubject().toString());
+		Operation op = beginRead("listDeclaredInstances");
+		try {
+			StmtIterator si = ONT_MODEL.getRawModel().listStatements(null, RDF.type, ontClass.getResource());
+			return detach(si.mapWith(new Map1<Statement, InstanceRef>() {
+				public InstanceRef map1(Statement st) {
+					return new InstanceRef(st.getSubject());
+				}}));
+		} finally {
+			endRead(op);
 		}
-		return list.iterator();
 	}
 	
-	
 	/**
 	 * Lists the classes that an instance belongs to
 	 * @param instance instance asked for belonging classes
 	 */
-	public Iterator<String> listBelongingClasses(String instance)
+	public Iterator<ClassRef> listBelongingClasses(InstanceRef instance)
 	{
-		ArrayList<String> list = new ArrayList<String>();
-		OntResource ontI = obtainOntResource(instance);
-		StmtIterator si = ONT_MODEL.listStatements(ontI, RDF.type, (RDFNode)null);
-		while(si.hasNext())
-		{
-			Statement st = si.nextStatement();
-			list.add(st.getObject().toString());
+		Operation op = beginRead("listBelongingClasses");
+		try {
+			return typesOf(ONT_MODEL.listStatements(instance.getResource(), RDF.type, (RDFNode)null));
+		} finally {
+			endRead(op);
 		}
-		return list.iterator();
-		
 	}
 	
 	/**
 	 * Lists the declared (not inferred) classes that an instance belongs to
 	 * @param instance instance asked for belonging classes
 	 */
-	public Iterator<String> listDeclaredBelongingClasses(String instance)
+	public Iterator<ClassRef> listDeclaredBelongingClasses(InstanceRef instance)
 	{
-		ArrayList<String> list = new ArrayList<String>();
-		OntResource ontI = obtainOntResource(instance);
-		StmtIterator si = ONT_MODEL.getRawModel().listStatements(ontI, RDF.type, (RDFNode)null);
-		while(si.hasNext())
-		{
-			Statement st = si.nextStatement();
-			list.add(st.getObject().toString());
+		Operation op = beginRead("listDeclaredBelongingClasses");
+		try {
+			return typesOf(ONT_MODEL.getRawModel().listStatements(instance.getResource(), RDF.type, (RDFNode)null));
+		} finally {
+			endRead(op);
 		}
-		return list.iterator();
-		
 	}
 	
 	/**
@@ -551,129 +2720,211 @@ public class OntoBridge {
 	 * @param subclass subclasss
 	 * @param superclass superclass
 	 */
-	public boolean isSubClassOf(String subclass, String superclass)
+	public boolean isSubClassOf(ClassRef subclass, ClassRef superclass)
 	{
-		OntClass subC = obtainOntClass(subclass);
-		OntClass superC = obtainOntClass(superclass);
-		StmtIterator si = ONT_MODEL.listStatements(subC, RDFS.subClassOf,superC);
-		return si.hasNext();
+		Operation op = beginRead("isSubClassOf");
+		try {
+			HierarchyIndex index = hierarchy();
+			int sub = subclass.hierarchyId(index);
+			int sup = superclass.hierarchyId(index);
+			if(sub != HierarchyIndex.NONE && sup != HierarchyIndex.NONE)
+				return Arrays.binarySearch(index.ancestorClosure(sub), sup) >= 0;
+			return ONT_MODEL.contains(subclass.getResource(), RDFS.subClassOf, superclass.getResource());
+		} finally {
+			endRead(op);
+		}
 	}
-
+	
 	/**
 	 * Checks if an instance belongs to a class
 	 * @param instance instance
 	 * @param ontclass class
 	 */
-	public boolean isInstanceOf(String instance, String ontclass)
+	public boolean isInstanceOf(InstanceRef instance, ClassRef ontclass)
 	{
-		OntClass ontC = obtainOntClass(ontclass);
-		OntResource ontI = obtainOntResource(instance);
-		StmtIterator si = ONT_MODEL.listStatements(ontI, RDF.type, ontC);
-		return si.hasNext();
+		Operation op = beginRead("isInstanceOf");
+		try {
+			return ONT_MODEL.contains(instance.getResource(), RDF.type, ontclass.getResource());
+		} finally {
+			endRead(op);
+		}
 	}
 	
 	/**
 	 * Checks if a proporty is an OntologyProperty instead of a DataTypeProperty
-	 * @param property
-	 * @return if it is an OntologyProperty
 	 */
-	public boolean isOntoProperty(String property)
+	public boolean isOntoProperty(PropertyRef property)
 	{
-		return ! (obtainOntProperty(property) instanceof DatatypeProperty);
+		Operation op = beginRead("isOntoProperty");
+		try {
+			return !ontProperty(property).isDatatypeProperty();
+		} finally {
+			endRead(op);
+		}
 	}
 	
-	
-	/**************************************************************/
-	/*      Functions for managing properties between             */
-	/*      classes and instances                                 */
-	/**************************************************************/
-	
 	/**
 	 * Lists the properties applicable to a class
 	 * @param ontClass class in the domain of the listed properties
 	 */
-	public Iterator<String> listProperties(String ontClass)
+	public Iterator<PropertyRef> listProperties(ClassRef ontClass)
 	{
-		OntClass ontR = obtainOntClass(ontClass);
-		return new ToStringIterator<String>(ontR.listDeclaredProperties());
+		Operation op = beginRead("listProperties");
+		try {
+			return detach(ontClass(ontClass).listDeclaredProperties().mapWith(new Map1<OntProperty, PropertyRef>() {
+				public PropertyRef map1(OntProperty o) {
+					return new PropertyRef(o);
+				}}));
+		} finally {
+			endRead(op);
+		}
 	}
 	
 	/**
-	 * Lists the specific properties of class. This method only returns the 
-	 * properties that has the specified class in the domain
-	 * @param ontClass class in the domain of the listed properties
+	 * Lists the classes on the range of a property
+	 * @param property property user is asking for its range
 	 */
-	public Iterator<String> listSpecificProperties(String ontClass)
+	public Iterator<ClassRef> listPropertyRange(PropertyRef property)
 	{
-		ArrayList<String> list = new ArrayList<String>();
-		OntClass ontR = obtainOntClass(ontClass);
-		for(Iterator iter = ontR.listDeclaredProperties(); iter.hasNext();)
-		{
-			OntProperty prop = (OntProperty)iter.next();
-			StmtIterator si = ONT_MODEL.listStatements(prop, RDFS.domain, ontR);
-			if(si.hasNext())
-				list.add(prop.getURI());
+		Operation op = beginRead("listPropertyRange");
+		try {
+			return detach(toClassRefs(ontProperty(property).listRange()));
+		} finally {
+			endRead(op);
 		}
-		return list.iterator();
 	}
 	
 	/**
-	 * Lists the classes on the range of a property
-	 * @param property property user is asking for its range
+	 * Returns the depth of a class. owl:Thing has depth 0.
 	 */
-	public Iterator<String> listPropertyRange(String property)
+	public int profConcept(ClassRef ontClass)
 	{
-		OntProperty prop = obtainOntProperty(property);
-		return new ToStringIterator<String>(prop.listRange());
+		Operation op = beginRead("profConcept");
+		try {
+			int id = ontClass.hierarchyId(hierarchy());
+			if(id == HierarchyIndex.NONE)
+				throw new IllegalArgumentException("Class not found in the hierarchy: "+ontClass);
+			return hierarchy.depth(id);
+		} finally {
+			endRead(op);
+		}
 	}
 	
 	/**
-	 * Lists the instances that are the values of a property of an instance.
-	 * @param instance instance origin of the property
-	 * @param property property 
+	 * Returns the maximum profundity of the Least Common Subsumers of two instances.
 	 */
-	public Iterator<String> listPropertyValue(String instance, String property)
+	public int maxProfLCS(InstanceRef instance1, InstanceRef instance2)
 	{
-		OntResource ontI = obtainOntResource(instance);
-		Property prop = obtainOntProperty(property);
-		return new ToStringIterator<String>(ontI.listPropertyValues(prop));
+		Operation op = beginRead("maxProfLCS");
+		try {
+			return hierarchy().maxCommonDepth(typeClosure(instance1), typeClosure(instance2));
+		} finally {
+			endRead(op);
+		}
 	}
 	
 	/**
-	 * Lists the properties of an instance
-	 * @param instance source of the properties
+	 * Returns a set with the Least Common Subsumers of two instances. 
 	 */
-	public Iterator<String> listInstanceProperties(String instance)
+	public Set<ClassRef> LCS(InstanceRef instance1, InstanceRef instance2)
 	{
-		ArrayList<String> list = new ArrayList<String>();
-		OntResource ontI = obtainOntResource(instance);
-		for(StmtIterator props = ontI.listProperties(); props.hasNext();)
-			list.add(props.nextStatement().getPredicate().toString());
-		return list.iterator();
+		Operation op = beginRead("LCS");
+		try {
+			HierarchyIndex index = hierarchy();
+			int[] lcs = index.deepestCommon(typeClosure(instance1), typeClosure(instance2));
+			Set<ClassRef> res = new HashSet<ClassRef>();
+			for(Iterator<ClassRef> iter = toClassRefs(index, lcs); iter.hasNext();)
+				res.add(iter.next());
+			return res;
+		} finally {
+			endRead(op);
+		}
 	}
 	
 	/**
-	 * Returns the properties with their corresponding values of an instance. The properties and values parameter are cleared.
-	 * They are used to return the properties and values. property[i] has value values[i].
-	 * @param instance source of the properties
-	 * @param properties Array containing the name of the properties
-	 * @param values Array containing the value of the property
+	 * Returns the short form of the URI of a handle.
 	 */
-	public void listInstancePropertiesValues(String instance, List<String> properties, List<String> values)
+	public String getShortName(ResourceRef ref)
 	{
-		properties.clear();
-		values.clear();
-		
-		
-		OntResource ontI = obtainOntResource(instance);
-		for(StmtIterator props = ontI.listProperties(); props.hasNext();)
+		Operation op = beginRead("getShortName");
+		try {
+			return getShortName(ref.getURI());
+		} finally {
+			endRead(op);
+		}
+	}
+	
+	/**
+	 * Returns the class of a handle in the current model. Handles keep the model that was active
+	 * when they were created, which may have been replaced by setInference() or loadOntology().
+	 */
+	private OntClass ontClass(ClassRef ref)
+	{
+		return ref.getResource().inModel(ONT_MODEL).as(OntClass.class);
+	}
+	
+	/**
+	 * Returns the property of a handle in the current model
+	 */
+	private OntProperty ontProperty(PropertyRef ref)
+	{
+		return ref.getResource().inModel(ONT_MODEL).as(OntProperty.class);
+	}
+	
+	/**
+	 * Returns the class closure of an instance handle (see typeClosure(String)).
+	 * The types are read from the resource of the handle; only named instances are cached.
+	 */
+	protected int[] typeClosure(InstanceRef instance)
+	{
+		HierarchyIndex index = hierarchy();
+		Resource res = instance.getResource().inModel(ONT_MODEL);
+		if(instance.isAnon())
+			return typeClosure(res, index);
+		int[] closure = index == hierarchy ? typeClosures.get(instance.getURI()) : null;
+		if(closure == null)
 		{
-			Statement stmt = props.nextStatement();
-			if(getShortName(stmt.getPredicate().toString()).equals("rdf:type"))
-				continue;
-			properties.add(stmt.getPredicate().toString());
-			values.add(stmt.getObject().toString());	
+			closure = typeClosure(res, index);
+			if(index == hierarchy)
+				typeClosures.put(instance.getURI(), closure);
+		}
+		return closure;
+	}
+	
+	private Iterator<ClassRef> toClassRefs(HierarchyIndex index, int[] ids)
+	{
+		ArrayList<ClassRef> list = new ArrayList<ClassRef>(ids.length);
+		for(int id : ids)
+			list.add(new ClassRef(ONT_MODEL.getResource(index.uri(id)), index, id));
+		return list.iterator();
+	}
+	
+	private <T extends Resource> Iterator<ClassRef> toClassRefs(ExtendedIterator<T> iter)
+	{
+		return iter.mapWith(new Map1<T, ClassRef>() {
+			public ClassRef map1(T o) {
+				return new ClassRef(o);
+			}});
+	}
+	
+	private <T extends Resource> Iterator<InstanceRef> toInstanceRefs(ExtendedIterator<T> iter)
+	{
+		return iter.mapWith(new Map1<T, InstanceRef>() {
+			public InstanceRef map1(T o) {
+				return new InstanceRef(o);
+			}});
+	}
+	
+	private Iterator<ClassRef> typesOf(StmtIterator si)
+	{
+		ArrayList<ClassRef> list = new ArrayList<ClassRef>();
+		while(si.hasNext())
+		{
+			RDFNode type = si.nextStatement().getObject();
+			if(type.isResource())
+				list.add(new ClassRef((Resource)type));
 		}
+		return list.iterator();
 	}
 	
 	/**************************************************************/
@@ -685,11 +2936,17 @@ public class OntoBridge {
 	 */
 	public String getShortName(String URI)
 	{
-		String sname = ONT_MODEL.shortForm(URI);
-		if(sname.startsWith(":"))
-			return sname.substring(1);
-		else
-			return sname;
+		loadSubOntologiesOf(URI);
+		Operation op = beginRead("getShortName");
+		try {
+			String sname = ONT_MODEL.shortForm(URI);
+			if(sname.startsWith(":"))
+				return sname.substring(1);
+			else
+				return sname;
+		} finally {
+			endRead(op);
+		}
 	}
 	
 	/**
@@ -697,16 +2954,27 @@ public class OntoBridge {
 	 */
 	public String getURI(String shortName)
 	{
-		String qname = ONT_MODEL.expandPrefix(shortName);
-		if( ONT_MODEL.getOntResource(qname) != null)
-			return qname;
-		else
-		    return BASE_NS + shortName;
+		loadSubOntologiesOf(shortName);
+		Operation op = beginRead("getURI");
+		try {
+			String qname = ONT_MODEL.expandPrefix(shortName);
+			if( ONT_MODEL.getOntResource(qname) != null)
+				return qname;
+			else
+			    return BASE_NS + shortName;
+		} finally {
+			endRead(op);
+		}
 	}
 	
 	public String getThingURI()
 	{
-		return ONT_MODEL.expandPrefix("owl:Thing");
+		Operation op = beginRead("getThingURI");
+		try {
+			return ONT_MODEL.expandPrefix("owl:Thing");
+		} finally {
+			endRead(op);
+		}
 	}
 	
 	/**************************************************************/
@@ -718,7 +2986,13 @@ public class OntoBridge {
 	 */
 	public boolean existsClass(String name)
 	{
-		return obtainOntClass(name) != null;
+		loadSubOntologiesOf(name);
+		Operation op = beginRead("existsClass");
+		try {
+			return obtainOntClass(name) != null;
+		} finally {
+			endRead(op);
+		}
 	}
 	
 	/**
@@ -726,7 +3000,13 @@ public class OntoBridge {
 	 */
 	public boolean existsProperty(String name)
 	{
-		return obtainOntProperty(name) != null;
+		loadSubOntologiesOf(name);
+		Operation op = beginRead("existsProperty");
+		try {
+			return obtainOntProperty(name) != null;
+		} finally {
+			endRead(op);
+		}
 	}
 	
 	/**
@@ -734,7 +3014,13 @@ public class OntoBridge {
 	 */
 	public boolean existsInstance(String name)
 	{
-		return obtainOntResource(name) != null;
+		loadSubOntologiesOf(name);
+		Operation op = beginRead("existsInstance");
+		try {
+			return obtainOntResource(name) != null;
+		} finally {
+			endRead(op);
+		}
 	}
 
 	/**
@@ -742,31 +3028,54 @@ public class OntoBridge {
 	 */
 	public boolean existsInstance(String instanceName, String className)
 	{
-		if(!existsInstance(instanceName))
-			return false;
-		return isInstanceOf(instanceName, className);
-		
+		loadSubOntologiesOf(instanceName);
+		loadSubOntologiesOf(className);
+		Operation op = beginRead("existsInstance");
+		try {
+			if(!existsInstance(instanceName))
+				return false;
+			return isInstanceOf(instanceName, className);
+		} finally {
+			endRead(op);
+		}
 	}
 	
 	/**************************************************************/
 	/*                Insertion functions                         */
 	/**************************************************************/	
 	
+	/**
+	 * Creates a batch that records insertions and deletions and applies all of them at once when it is committed.
+	 * Use it instead of the following methods to create or delete many resources: names are resolved once, 
+	 * the model is updated with a single bulk update and the reasoner processes the changes once.
+	 */
+	public OntologyBatch createBatch()
+	{
+		return new OntologyBatch(this);
+	}
+	
 	/**
 	 * Create a new class in the ontology. The className must not exist.
 	 * @param className Class to create
 	 */
 	public void createClass(String className)
 	{
-		String longName;
-		if(className.contains("#"))
-			longName = className;
-		if(className.contains(":"))
-			longName= ONT_MODEL.expandPrefix(className);
-		else
-			longName = BASE_NS + className;
+		Operation op = beginWrite("createClass");
+		try {
+			String longName;
+			if(className.contains("#"))
+				longName = className;
+			if(className.contains(":"))
+				longName= ONT_MODEL.expandPrefix(className);
+			else
+				longName = BASE_NS + className;
 		
-		ONT_MODEL.createClass(longName);
+			ONT_MODEL.createClass(longName);
+			invalidateHierarchy(longName);
+			invalidateResources();
+		} finally {
+			endWrite(op);
+		}
 	}
 	
 	/**
@@ -776,10 +3085,16 @@ public class OntoBridge {
 	 */
 	public void setSubClass(String subClass, String superClass)
 	{
-		OntClass _sub   = obtainOntClass(subClass);
-		OntClass _super = obtainOntClass(superClass);
+		Operation op = beginWrite("setSubClass");
+		try {
+			OntClass _sub   = obtainOntClass(subClass);
+			OntClass _super = obtainOntClass(superClass);
 		
-		_sub.setSuperClass(_super);
+			_sub.setSuperClass(_super);
+			invalidateHierarchy(_sub.getURI());
+		} finally {
+			endWrite(op);
+		}
 	}
 	
 	/**
@@ -789,18 +3104,24 @@ public class OntoBridge {
 	 */
 	public void createInstance(String className, String instanceName)
 	{
+		Operation op = beginWrite("createInstance");
+		try {
+			OntClass c = obtainOntClass(className);
 		
-		OntClass c = obtainOntClass(className);
-		
-		String longName;
-		if(instanceName.contains("#"))
-			longName = instanceName;
-		if(instanceName.contains(":"))
-			longName= ONT_MODEL.expandPrefix(instanceName);
-		else
-			longName = BASE_NS + instanceName;
+			String longName;
+			if(instanceName.contains("#"))
+				longName = instanceName;
+			if(instanceName.contains(":"))
+				longName= ONT_MODEL.expandPrefix(instanceName);
+			else
+				longName = BASE_NS + instanceName;
 		
-		c.createIndividual(longName);
+			c.createIndividual(longName);
+			invalidateInstances();
+			invalidateResources();
+		} finally {
+			endWrite(op);
+		}
 	}
 	
 	/**
@@ -813,10 +3134,16 @@ public class OntoBridge {
 	 */
 	public void createOntProperty(String sourceInstance, String propertyName, String destInstance)
 	{
-		OntResource si = this.obtainOntResource(sourceInstance);
-		OntResource di = this.obtainOntResource(destInstance);
-		Property  prop = this.obtainOntProperty(propertyName); 
-		si.addProperty(prop, di);
+		Operation op = beginWrite("createOntProperty");
+		try {
+			OntResource si = this.obtainOntResource(sourceInstance);
+			OntResource di = this.obtainOntResource(destInstance);
+			Property  prop = this.obtainOntProperty(propertyName); 
+			si.addProperty(prop, di);
+			invalidateInstances();
+		} finally {
+			endWrite(op);
+		}
 	}
 	
 	/**
@@ -828,10 +3155,16 @@ public class OntoBridge {
 	 */
 	public void modifyOntProperty(String sourceInstance, String propertyName, String destInstance)
 	{
-		OntResource si = this.obtainOntResource(sourceInstance);
-		OntResource di = this.obtainOntResource(destInstance);
-		Property  prop = this.obtainOntProperty(propertyName); 
-		si.setPropertyValue(prop, di);
+		Operation op = beginWrite("modifyOntProperty");
+		try {
+			OntResource si = this.obtainOntResource(sourceInstance);
+			OntResource di = this.obtainOntResource(destInstance);
+			Property  prop = this.obtainOntProperty(propertyName); 
+			si.setPropertyValue(prop, di);
+			invalidateInstances();
+		} finally {
+			endWrite(op);
+		}
 	}
 	
 	/**
@@ -843,9 +3176,15 @@ public class OntoBridge {
 	 */
 	public void createDataTypeProperty(String sourceInstance, String propertyName, Object value)
 	{
-		OntResource si = this.obtainOntResource(sourceInstance);
-		Property  prop = this.obtainOntProperty(propertyName);
-		si.addProperty(prop, ONT_MODEL.createTypedLiteral(value)); 	
+		Operation op = beginWrite("createDataTypeProperty");
+		try {
+			OntResource si = this.obtainOntResource(sourceInstance);
+			Property  prop = this.obtainOntProperty(propertyName);
+			si.addProperty(prop, ONT_MODEL.createTypedLiteral(value)); 	
+			invalidateInstances();
+		} finally {
+			endWrite(op);
+		}
 	}
 	
 	/**
@@ -858,9 +3197,15 @@ public class OntoBridge {
 	 */
 	public void createDataTypeProperty(String sourceInstance, String propertyName, String value, String valueDataType)
 	{
-		OntResource si = this.obtainOntResource(sourceInstance);
-		Property  prop = this.obtainOntProperty(propertyName);
-		si.addProperty(prop, ONT_MODEL.createTypedLiteral(value, valueDataType)); 	
+		Operation op = beginWrite("createDataTypeProperty");
+		try {
+			OntResource si = this.obtainOntResource(sourceInstance);
+			Property  prop = this.obtainOntProperty(propertyName);
+			si.addProperty(prop, ONT_MODEL.createTypedLiteral(value, valueDataType)); 	
+			invalidateInstances();
+		} finally {
+			endWrite(op);
+		}
 	}
 	
 	/**************************************************************/
@@ -873,8 +3218,15 @@ public class OntoBridge {
 	 */
 	public void delete(String name)
 	{
-		OntResource res = this.obtainOntResource(name);
-		res.remove();
+		Operation op = beginWrite("delete");
+		try {
+			OntResource res = this.obtainOntResource(name);
+			res.remove();
+			invalidateHierarchy();
+			invalidateResources();
+		} finally {
+			endWrite(op);
+		}
 	}
 	
 	
@@ -888,9 +3240,15 @@ public class OntoBridge {
 	 */
 	public void deleteProperties(String sourceInstance, String property)
 	{
-		OntResource si = this.obtainOntResource(sourceInstance);
-		Property prop = this.obtainOntProperty(property);
-		si.removeAll(prop);
+		Operation op = beginWrite("deleteProperties");
+		try {
+			OntResource si = this.obtainOntResource(sourceInstance);
+			Property prop = this.obtainOntProperty(property);
+			si.removeAll(prop);
+			invalidateInstances();
+		} finally {
+			endWrite(op);
+		}
 	}
 	
 	/**
@@ -903,10 +3261,16 @@ public class OntoBridge {
 	 */
 	public void deleteOntProperty(String sourceInstance, String property, String destInstance)
 	{
-		OntResource si = this.obtainOntResource(sourceInstance);
-		OntResource di = this.obtainOntResource(destInstance);
-		Property prop = this.obtainOntProperty(property);	
-		si.removeProperty(prop, di);
+		Operation op = beginWrite("deleteOntProperty");
+		try {
+			OntResource si = this.obtainOntResource(sourceInstance);
+			OntResource di = this.obtainOntResource(destInstance);
+			Property prop = this.obtainOntProperty(property);	
+			si.removeProperty(prop, di);
+			invalidateInstances();
+		} finally {
+			endWrite(op);
+		}
 	}
 	
 	/**************************************************************/
@@ -919,23 +3283,125 @@ public class OntoBridge {
 	 */
 	public void save(String fileName)
 	{
+		save(fileName, SerializationFormat.RDF_XML_ABBREV, false);
+	}
+	
+	/**
+	 * Saves the ontology (without imported ontologies data) into a file.
+	 * @param fileName file path for saving the ontology
+	 * @param format format of the file
+	 * @param gzip if true the file is compressed with gzip
+	 */
+	public void save(String fileName, SerializationFormat format, boolean gzip)
+	{
+		Operation op = beginRead("save");
 		try {
-			FileWriter fw = new FileWriter(fileName);
-			save(fw);
+			OutputStream out = new FileOutputStream(fileName);
+			try {
+				if(gzip)
+					out = new GZIPOutputStream(out, 1 << 16);
+				save(out, format);
+			} finally {
+				out.close();
+			}
 		} catch (Exception e) {
 			LogManager.getLogger().error(e);
+		} finally {
+			endRead(op);
+		}
+	}
+	
+	/**
+	 * Writes the ontology (without imported ontologies data) into a stream. The output is buffered 
+	 * and flushed at the end, but the stream is not closed.
+	 * Text formats are written in UTF-8 (N-Triples in ASCII).
+	 * @param out stream where the ontology is written
+	 * @param format format of the output
+	 */
+	public void save(OutputStream out, SerializationFormat format) throws IOException
+	{
+		Operation op = beginRead("save");
+		try {
+			long start = System.nanoTime();
+			Graph graph = ONT_MODEL.getBaseModel().getGraph();
+			switch(format)
+			{
+				case N_TRIPLES:
+					StreamingGraphWriter.writeNTriples(graph, out);
+					break;
+				case TURTLE:
+					StreamingGraphWriter.writeTurtle(graph, ONT_MODEL, out);
+					break;
+				case BINARY:
+					BinaryGraph.write(graph, ONT_MODEL, Channels.newChannel(out));
+					break;
+				default:
+					BufferedOutputStream buffered = new BufferedOutputStream(out, 1 << 16);
+					ONT_MODEL.write(buffered, format.getJenaName());
+					buffered.flush();
+			}
+			out.flush();
+			LogManager.getLogger().info("Saving ontology: "+format+" in "+(System.nanoTime()-start)/1000000+" ms");
+		} finally {
+			endRead(op);
 		}
 	}
 	
 	public void save(FileWriter fw)
 	{
+		Operation op = beginRead("save");
+		try {
+			try {
+				ONT_MODEL.write(fw,"RDF/XML-ABBREV");
+				LogManager.getLogger().info( "Saving ontology.");
+			} catch (Exception e) {
+				LogManager.getLogger().error(e);
+			}
+		} finally {
+			endRead(op);
+		}
+	}
+	
+	/**
+	 * Saves the ontology (without imported ontologies data) into a file with the binary format of BinaryGraph.
+	 * It is much faster to write and read than RDF/XML and the file is smaller, but it can only be read by loadBinary().
+	 * @param fileName file path for saving the ontology
+	 */
+	public void saveBinary(String fileName)
+	{
+		Operation op = beginRead("saveBinary");
 		try {
-			ONT_MODEL.write(fw,"RDF/XML-ABBREV");
-			LogManager.getLogger().info( "Saving ontology.");
+			long start = System.nanoTime();
+			long count = BinaryGraph.write(ONT_MODEL.getBaseModel().getGraph(), ONT_MODEL, new File(fileName));
+			LogManager.getLogger().info("Saving ontology: "+count+" statements in "+(System.nanoTime()-start)/1000000+" ms");
 		} catch (Exception e) {
 			LogManager.getLogger().error(e);
+		} finally {
+			endRead(op);
+		}
+	}
+	
+	/**
+	 * Loads a file written by saveBinary() into the current model, using the initialized reasoner.
+	 * @param fileName file path of the ontology
+	 * @param mapped if true the file is memory-mapped instead of read through a buffer
+	 */
+	public void loadBinary(String fileName, boolean mapped)
+	{
+		Operation op = beginWrite("loadBinary");
+		try {
+			long start = System.nanoTime();
+			invalidateResources();
+			long count = BinaryGraph.read(new File(fileName), ONT_MODEL.getGraph(), ONT_MODEL, mapped);
+			if(BASE_NS == null)
+				BASE_NS = ONT_MODEL.getNsPrefixURI("");
+			LogManager.getLogger().info("Loading ontology: "+count+" statements in "+(System.nanoTime()-start)/1000000+" ms");
+			preCalculateProfs();
+		} catch (Exception e) {
+			LogManager.getLogger().error(e);
+		} finally {
+			endWrite(op);
 		}
-		
 	}
 	
 	
@@ -948,35 +3414,45 @@ public class OntoBridge {
 	 * @param ignorewarnings This param indicates if the method must return true if warnings are found
 	 */
 	public boolean isValid(boolean ignorewarnings) {
-		ValidityReport vr = ONT_MODEL.validate();
-		if(ignorewarnings)
-			return vr.isValid();
-		else
-			return vr.isClean();
+		Operation op = beginWrite("isValid");
+		try {
+			ValidityReport vr = ONT_MODEL.validate();
+			if(ignorewarnings)
+				return vr.isValid();
+			else
+				return vr.isClean();
+		} finally {
+			endWrite(op);
+		}
 	}
 	
 	/**
 	 * Computes if the current ontology is valid and returns a list of warnings and errors. (Created by: Antonio Sanchez)
 	 */
 	public Iterator<String> validate() {
-		ValidityReport vr = ONT_MODEL.validate();
+		Operation op = beginWrite("validate");
+		try {
+			ValidityReport vr = ONT_MODEL.validate();
 		
-		Collection<String> reports = new ArrayList<String>();
+			Collection<String> reports = new ArrayList<String>();
 		
-		for(Iterator riter = vr.getReports(); riter.hasNext();)
-		{
-			ValidityReport.Report r = (ValidityReport.Report)riter.next();
-			String msg ="";
-			if(r.isError())
-				msg += "[ERROR]";
-			else
-				msg += "[WARNING]";
-			msg+="["+r.getType()+"]";
-			msg+=r.getDescription();
-			reports.add(msg);
-		}
+			for(Iterator riter = vr.getReports(); riter.hasNext();)
+			{
+				ValidityReport.Report r = (ValidityReport.Report)riter.next();
+				String msg ="";
+				if(r.isError())
+					msg += "[ERROR]";
+				else
+					msg += "[WARNING]";
+				msg+="["+r.getType()+"]";
+				msg+=r.getDescription();
+				reports.add(msg);
+			}
 		
-		return reports.iterator();
+			return reports.iterator();
+		} finally {
+			endWrite(op);
+		}
 	}
 	
 	/**************************************************************/
@@ -992,6 +3468,15 @@ public class OntoBridge {
 		return this.ONT_MODEL;
 	}
 	
+	/**
+	 * Returns the cache used to resolve names into ontology resources.
+	 * It gives access to the hit/miss counters and allows changing its size.
+	 */
+	public LRUCache<String, OntResource> getResourceCache()
+	{
+		return resources;
+	}
+	
 	
 	/**************************************************************/
 	/*                Private functions                           */
@@ -1028,11 +3513,43 @@ public class OntoBridge {
 		return null;	
 	}
 	
+	/** Default maximum number of names kept by the resource resolution cache */
+	public static final int DEFAULT_RESOURCE_CACHE_SIZE = 10000;
+	
+	/** Cache of resolved names (short names, qnames and URIs). Misses are cached too. */
+	protected LRUCache<String, OntResource> resources = new LRUCache<String, OntResource>(DEFAULT_RESOURCE_CACHE_SIZE);
+	
+	private final LRUCache.Loader<String, OntResource> resourceLoader = new LRUCache.Loader<String, OntResource>() {
+		public OntResource load(String name) {
+			return resolveOntResource(name);
+		}};
+	
+	/**
+	 * Discards the cached name resolutions. Called when resources are created or deleted, 
+	 * or when the model is replaced.
+	 */
+	protected void invalidateResources()
+	{
+		resources.clear();
+	}
+	
 	/**
 	 * Returns the JENA OntResource referenced by the string.
 	 * This method checks if the string is a short or long URI.
+	 * Resolutions are cached.
 	 */
 	protected OntResource obtainOntResource(String ontRes)
+	{
+		loadSubOntologiesOf(ontRes);
+		return resources.get(ontRes, resourceLoader);
+	}
+	
+	/**
+	 * Resolves the string into a JENA OntResource trying, in order, the string as URI,
+	 * as qualified name and as name in the base namespace.
+	 * @return the resource or null if not found
+	 */
+	protected OntResource resolveOntResource(String ontRes)
 	{
 		OntResource ontR;
 		try {
@@ -1051,7 +3568,7 @@ public class OntoBridge {
 		}	
 		
 		try {
-			return ontR = ONT_MODEL.getOntResource(BASE_NS + ontRes);
+			return ONT_MODEL.getOntResource(BASE_NS + ontRes);
 		} catch (Exception e) {
 		}
 		
@@ -0,0 +1,491 @@
+/**
+ * OntoBride library.
+ * GAIA - Group for Artifical Intelligence Applications
+ * Departamento de Ingeniería del Software e Inteligencia Artificial
+ * Universidad Complutense de Madrid
+ *
+ * Licensed under the terms of the GNU Library or Lesser General Public License (LGPL)
+ *
+ * This software is a subproject of the jCOLIBRI framework
+ * http://sourceforge.net/projects/jcolibri-cbr/
+ * http://gaia.fdi.ucm.es/projects/jcolibri/
+ *
+ * File: OntologyBatch.java
+ * 18/10/2026
+ */
+package ucm.gaia.ontobridge;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.mindswap.pellet.jena.PelletInfGraph;
+
+import com.hp.hpl.jena.graph.Graph;
+import com.hp.hpl.jena.graph.GraphEvents;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.ontology.OntModel;
+import com.hp.hpl.jena.ontology.OntProperty;
+import com.hp.hpl.jena.ontology.OntResource;
+import com.hp.hpl.jena.reasoner.InfGraph;
+import com.hp.hpl.jena.util.iterator.ExtendedIterator;
+import com.hp.hpl.jena.vocabulary.RDF;
+import com.hp.hpl.jena.vocabulary.RDFS;
+
+/**
+ * Group of modifications of the ontology applied at once (see OntoBridge.createBatch()).<br>
+ * The methods of this class have the same meaning as the insertion and deletion methods of OntoBridge,
+ * but they only record the change. Nothing is read or modified until commit() is called, so a batch can be
+ * filled without holding any lock. commit():
+ * <ul>
+ * <li>resolves every name only once, taking into account the classes and instances created by the batch,</li>
+ * <li>computes the statements to add and remove, in the order the changes were recorded,</li>
+ * <li>adds and removes them from the asserted model with one bulk update each, so the listeners are notified once
+ *     and the reasoner prepares the model once, at the next inferred query,</li>
+ * <li>restores the model if the update fails.</li>
+ * </ul>
+ * If a name cannot be resolved the batch is not applied at all.
+ * A batch is not thread safe and it can be committed only once.
+ * <pre>
+ * OntologyBatch batch = ob.createBatch();
+ * for(...)
+ * {
+ *     batch.createInstance("Restaurant", name);
+ *     batch.createDataTypeProperty(name, "restaurantName", label);
+ * }
+ * batch.commit();
+ * </pre>
+ */
+public class OntologyBatch {
+
+	private static final int CREATE_CLASS = 0;
+	private static final int SET_SUBCLASS = 1;
+	private static final int CREATE_INSTANCE = 2;
+	private static final int CREATE_ONT_PROPERTY = 3;
+	private static final int CREATE_DATATYPE_PROPERTY = 4;
+	private static final int CREATE_TYPED_PROPERTY = 5;
+	private static final int DELETE = 6;
+	private static final int DELETE_PROPERTIES = 7;
+	private static final int DELETE_ONT_PROPERTY = 8;
+
+	private final OntoBridge _ob;
+	private final List<Change> _changes = new ArrayList<Change>();
+	private boolean _committed = false;
+
+	private long _added = 0;
+	private long _removed = 0;
+	private long _elapsed = 0;
+
+	/** State of the commit: asserted graph, resolved names and pending statements */
+	private Graph _base;
+	private Map<String,Node> _names;
+	private HashSet<String> _declared;
+	private LinkedHashSet<Triple> _adds;
+	private LinkedHashSet<Triple> _removes;
+
+	OntologyBatch(OntoBridge ob)
+	{
+		_ob = ob;
+	}
+
+	/**
+	 * Recorded modification
+	 */
+	private static class Change
+	{
+		final int _kind;
+		final String _a;
+		final String _b;
+		final String _c;
+		final Object _value;
+
+		Change(int kind, String a, String b, String c, Object value)
+		{
+			_kind = kind;
+			_a = a;
+			_b = b;
+			_c = c;
+			_value = value;
+		}
+	}
+
+	private void record(int kind, String a, String b, String c, Object value)
+	{
+		if(_committed)
+			throw new IllegalStateException("The batch has already been committed");
+		_changes.add(new Change(kind, a, b, c, value));
+	}
+
+	/**************************************************************/
+	/*                Recorded changes                            */
+	/**************************************************************/
+
+	/**
+	 * Creates a new class. See OntoBridge.createClass()
+	 */
+	public void createClass(String className)
+	{
+		record(CREATE_CLASS, className, null, null, null);
+	}
+
+	/**
+	 * Sets a class as subclass of other, replacing its superclasses. See OntoBridge.setSubClass()
+	 */
+	public void setSubClass(String subClass, String superClass)
+	{
+		record(SET_SUBCLASS, subClass, superClass, null, null);
+	}
+
+	/**
+	 * Creates a new instance of a class. See OntoBridge.createInstance()
+	 */
+	public void createInstance(String className, String instanceName)
+	{
+		record(CREATE_INSTANCE, className, instanceName, null, null);
+	}
+
+	/**
+	 * Creates an ontology property between two instances. See OntoBridge.createOntProperty()
+	 */
+	public void createOntProperty(String sourceInstance, String propertyName, String destInstance)
+	{
+		record(CREATE_ONT_PROPERTY, sourceInstance, propertyName, destInstance, null);
+	}
+
+	/**
+	 * Creates a datatype property finding the datatype of the value. See OntoBridge.createDataTypeProperty()
+	 */
+	public void createDataTypeProperty(String sourceInstance, String propertyName, Object value)
+	{
+		record(CREATE_DATATYPE_PROPERTY, sourceInstance, propertyName, null, value);
+	}
+
+	/**
+	 * Creates a datatype property with an explicit datatype. See OntoBridge.createDataTypeProperty()
+	 */
+	public void createDataTypeProperty(String sourceInstance, String propertyName, String value, String valueDataType)
+	{
+		record(CREATE_TYPED_PROPERTY, sourceInstance, propertyName, valueDataType, value);
+	}
+
+	/**
+	 * Deletes a class or instance and every statement that refers to it. See OntoBridge.delete()
+	 */
+	public void delete(String name)
+	{
+		record(DELETE, name, null, null, null);
+	}
+
+	/**
+	 * Deletes every value of a property of an instance. See OntoBridge.deleteProperties()
+	 */
+	public void deleteProperties(String sourceInstance, String property)
+	{
+		record(DELETE_PROPERTIES, sourceInstance, property, null, null);
+	}
+
+	/**
+	 * Deletes an ontological property that relates two instances. See OntoBridge.deleteOntProperty()
+	 */
+	public void deleteOntProperty(String sourceInstance, String property, String destInstance)
+	{
+		record(DELETE_ONT_PROPERTY, sourceInstance, property, destInstance, null);
+	}
+
+	/**
+	 * Number of recorded changes
+	 */
+	public int size()
+	{
+		return _changes.size();
+	}
+
+	/**
+	 * Discards the recorded changes. The batch can be reused.
+	 */
+	public void rollback()
+	{
+		if(_committed)
+			throw new IllegalStateException("The batch has already been committed");
+		_changes.clear();
+	}
+
+	/**************************************************************/
+	/*                Commit                                      */
+	/**************************************************************/
+
+	/**
+	 * Applies the recorded changes to the ontology. If any name cannot be resolved or the model cannot
+	 * be updated, the ontology is left as it was and the exception is thrown.
+	 * @return the number of statements added and removed
+	 * @throws IllegalArgumentException if a resource or property does not exist
+	 */
+	public long commit()
+	{
+		if(_committed)
+			throw new IllegalStateException("The batch has already been committed");
+		long start = System.nanoTime();
+		OntoBridge.Operation op = _ob.beginWrite("OntologyBatch.commit");
+		try {
+			OntModel model = _ob.getModel();
+			_base = model.getBaseModel().getGraph();
+			_names = new HashMap<String,Node>();
+			_declared = new HashSet<String>();
+			_adds = new LinkedHashSet<Triple>();
+			_removes = new LinkedHashSet<Triple>();
+			LinkedHashSet<String> classes = new LinkedHashSet<String>();
+			boolean deleted = false;
+			for(Change change : _changes)
+			{
+				apply(change, model, classes);
+				deleted |= change._kind == DELETE;
+			}
+
+			Triple[] adds = _adds.toArray(new Triple[_adds.size()]);
+			Triple[] removes = _removes.toArray(new Triple[_removes.size()]);
+			// PELLET only notices the changes that go through its graph. It keeps them pending until the next query.
+			// Other reasoners are bound again once to the updated asserted graph.
+			Graph graph = model.getGraph();
+			Graph target = (graph instanceof PelletInfGraph) ? graph : _base;
+			try {
+				if(removes.length > 0)
+					target.getBulkUpdateHandler().delete(removes);
+				if(adds.length > 0)
+					target.getBulkUpdateHandler().add(adds);
+			} catch (RuntimeException e) {
+				target.getBulkUpdateHandler().delete(adds);
+				target.getBulkUpdateHandler().add(removes);
+				LogManager.getLogger().error("Batch rolled back: "+e);
+				throw e;
+			}
+			_committed = true;
+			// PELLET cannot retract statements incrementally and would keep the deleted individuals.
+			// Its knowledge base is reloaded once at the next query.
+			if(target == graph && removes.length > 0)
+				_base.getEventManager().notifyEvent(_base, GraphEvents.removeAll);
+
+			// The model listeners see the changes as a single update
+			if(target != graph)
+			{
+				if(graph instanceof InfGraph)
+					((InfGraph)graph).rebind();
+				if(removes.length > 0)
+					graph.getEventManager().notifyDeleteArray(graph, removes);
+				if(adds.length > 0)
+					graph.getEventManager().notifyAddArray(graph, adds);
+			}
+
+			if(deleted)
+				_ob.invalidateHierarchy();
+			else
+				for(String uri : classes)
+					_ob.invalidateHierarchy(uri);
+			_ob.invalidateInstances();
+			_ob.invalidateResources();
+
+			_added = adds.length;
+			_removed = removes.length;
+			_elapsed = System.nanoTime() - start;
+			LogManager.getLogger().info("Batch committed: "+_changes.size()+" changes, "+_added+" statements added, "
+					+_removed+" removed in "+getElapsedMillis()+" ms ("+(long)getTriplesPerSecond()+" statements/s)");
+			return _added + _removed;
+		} finally {
+			_base = null;
+			_names = null;
+			_declared = null;
+			_adds = null;
+			_removes = null;
+			_ob.endWrite(op);
+		}
+	}
+
+	/**
+	 * Number of statements added by the commit
+	 */
+	public long getAdded()
+	{
+		return _added;
+	}
+
+	/**
+	 * Number of statements removed by the commit
+	 */
+	public long getRemoved()
+	{
+		return _removed;
+	}
+
+	/**
+	 * Milliseconds spent by the commit
+	 */
+	public long getElapsedMillis()
+	{
+		return _elapsed / 1000000;
+	}
+
+	/**
+	 * Statements added and removed per second by the commit
+	 */
+	public double getTriplesPerSecond()
+	{
+		return _elapsed == 0 ? 0 : (_added + _removed) * 1e9 / _elapsed;
+	}
+
+	/**
+	 * Computes the statements of a change
+	 */
+	private void apply(Change change, OntModel model, LinkedHashSet<String> classes)
+	{
+		switch(change._kind)
+		{
+			case CREATE_CLASS:
+			{
+				Node c = declare(change._a);
+				add(Triple.create(c, RDF.type.asNode(), model.getProfile().CLASS().asNode()));
+				classes.add(c.getURI());
+				break;
+			}
+			case SET_SUBCLASS:
+			{
+				Node sub = resource(change._a);
+				for(Triple t : find(sub, RDFS.subClassOf.asNode(), Node.ANY))
+					remove(t);
+				add(Triple.create(sub, RDFS.subClassOf.asNode(), resource(change._b)));
+				classes.add(sub.getURI());
+				break;
+			}
+			case CREATE_INSTANCE:
+			{
+				Node c = resource(change._a);
+				add(Triple.create(declare(change._b), RDF.type.asNode(), c));
+				break;
+			}
+			case CREATE_ONT_PROPERTY:
+				add(Triple.create(resource(change._a), property(change._b), resource(change._c)));
+				break;
+			case CREATE_DATATYPE_PROPERTY:
+				add(Triple.create(resource(change._a), property(change._b), model.createTypedLiteral(change._value).asNode()));
+				break;
+			case CREATE_TYPED_PROPERTY:
+				add(Triple.create(resource(change._a), property(change._b),
+						model.createTypedLiteral((String)change._value, change._c).asNode()));
+				break;
+			case DELETE:
+			{
+				Node r = resource(change._a);
+				for(Triple t : find(r, Node.ANY, Node.ANY))
+					remove(t);
+				for(Triple t : find(Node.ANY, Node.ANY, r))
+					remove(t);
+				break;
+			}
+			case DELETE_PROPERTIES:
+				for(Triple t : find(resource(change._a), property(change._b), Node.ANY))
+					remove(t);
+				break;
+			case DELETE_ONT_PROPERTY:
+				remove(Triple.create(resource(change._a), property(change._b), resource(change._c)));
+				break;
+		}
+	}
+
+	/**
+	 * Resolves the name of a new class or instance as OntoBridge does when creating it
+	 */
+	private Node declare(String name)
+	{
+		String longName;
+		if(name.contains(":"))
+			longName = _ob.getModel().expandPrefix(name);
+		else
+			longName = _ob.BASE_NS + name;
+		Node node = Node.createURI(longName);
+		_names.put(name, node);
+		_declared.add(longName);
+		return node;
+	}
+
+	/**
+	 * Resolves the name of an existing resource or of a resource created by the batch.
+	 * The created resources are looked for as OntoBridge resolves names: as URI, as qualified name and as short name.
+	 */
+	private Node resource(String name)
+	{
+		Node node = _names.get(name);
+		if(node != null)
+			return node;
+		for(String uri : new String[]{name, _ob.getModel().expandPrefix(name), _ob.BASE_NS + name})
+			if(_declared.contains(uri))
+			{
+				node = Node.createURI(uri);
+				break;
+			}
+		if(node == null)
+		{
+			OntResource res = _ob.obtainOntResource(name);
+			if(res == null)
+				throw new IllegalArgumentException("Ontology Resource not found: "+name);
+			node = res.asNode();
+		}
+		_names.put(name, node);
+		return node;
+	}
+
+	/**
+	 * Resolves the name of an existing property
+	 */
+	private Node property(String name)
+	{
+		OntProperty prop = _ob.obtainOntProperty(name);
+		if(prop == null)
+			throw new IllegalArgumentException("Ontology Property not found: "+name);
+		return prop.asNode();
+	}
+
+	private void add(Triple t)
+	{
+		_removes.remove(t);
+		if(!_base.contains(t))
+			_adds.add(t);
+	}
+
+	private void remove(Triple t)
+	{
+		_adds.remove(t);
+		if(_base.contains(t))
+			_removes.add(t);
+	}
+
+	/**
+	 * Finds the asserted statements as they are after the previous changes of the batch
+	 */
+	private List<Triple> find(Node s, Node p, Node o)
+	{
+		List<Triple> res = new ArrayList<Triple>();
+		ExtendedIterator<Triple> iter = _base.find(s, p, o);
+		try {
+			while(iter.hasNext())
+			{
+				Triple t = iter.next();
+				if(!_removes.contains(t))
+					res.add(t);
+			}
+		} finally {
+			iter.close();
+		}
+		Triple pattern = Triple.createMatch(s, p, o);
+		for(Iterator<Triple> it = _adds.iterator(); it.hasNext();)
+		{
+			Triple t = it.next();
+			if(pattern.matches(t))
+				res.add(t);
+		}
+		return res;
+	}
+}
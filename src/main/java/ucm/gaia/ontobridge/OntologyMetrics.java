@@ -0,0 +1,43 @@
+/**
+ * OntoBride library.
+ * GAIA - Group for Artifical Intelligence Applications
+ * Departamento de Ingeniería del Software e Inteligencia Artificial
+ * Universidad Complutense de Madrid
+ *
+ * Licensed under the terms of the GNU Library or Lesser General Public License (LGPL)
+ *
+ * This software is a subproject of the jCOLIBRI framework
+ * http://sourceforge.net/projects/jcolibri-cbr/
+ * http://gaia.fdi.ucm.es/projects/jcolibri/
+ *
+ * File: OntologyMetrics.java
+ * 18/10/2026
+ */
+package ucm.gaia.ontobridge;
+
+/**
+ * Receives the time spent in the operations of an OntoBridge object (see OntoBridge.setMetrics()).
+ * MetricsRegistry keeps a histogram per operation and exports them through JMX; other 
+ * implementations can forward the measurements to any monitoring system.<br>
+ * The operations are named after the public methods of OntoBridge ("listInstances", "createClass", ...).
+ * Calls made by OntoBridge to its own methods are included in the call that made them.
+ * Other measurements are:
+ * <ul>
+ * <li>loadOntology.parse, loadOntology.classification and loadOntology.preCalculateProfs: phases of loadOntology()
+ * <li>OntologyBatch.commit: commit of a batch of changes
+ * <li>SPARQL.execAskQuery, SPARQL.execSelectQuery, ...: queries run by SPARQL and PreparedQuery
+ * <li>reasoner.realization: realization of the individuals when the reasoner is prepared for concurrent readers
+ * <li>sparql.parse and sparql.execute: parsing (only when the query is not cached) and execution of SPARQL queries
+ * </ul>
+ * When no metrics are set OntoBridge does not measure anything.
+ * Implementations are invoked by the threads that use OntoBridge, so they must be thread safe.
+ */
+public interface OntologyMetrics {
+
+	/**
+	 * An operation has finished
+	 * @param operation name of the operation
+	 * @param nanos elapsed time in nanoseconds
+	 */
+	public void record(String operation, long nanos);
+}
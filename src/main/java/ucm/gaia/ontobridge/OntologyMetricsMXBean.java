@@ -0,0 +1,53 @@
+/**
+ * OntoBride library.
+ * GAIA - Group for Artifical Intelligence Applications
+ * Departamento de Ingeniería del Software e Inteligencia Artificial
+ * Universidad Complutense de Madrid
+ *
+ * Licensed under the terms of the GNU Library or Lesser General Public License (LGPL)
+ *
+ * This software is a subproject of the jCOLIBRI framework
+ * http://sourceforge.net/projects/jcolibri-cbr/
+ * http://gaia.fdi.ucm.es/projects/jcolibri/
+ *
+ * File: OntologyMetricsMXBean.java
+ * 18/10/2026
+ */
+package ucm.gaia.ontobridge;
+
+import java.util.Map;
+
+/**
+ * Management interface of the metrics of an OntoBridge object, registered with MetricsRegistry.registerMBean().
+ * JMX consoles show the operations as a table with a row per operation.<br>
+ * The size of the ontology (triples, classes and individuals) is the one computed by the OntoBridge object 
+ * when its last change finished, without running the reasoner. A value is -1 if it was not known then: the 
+ * classes before the hierarchy is indexed, and the individuals before the reasoner is prepared.
+ */
+public interface OntologyMetricsMXBean {
+
+	/**
+	 * Latencies of the operations, indexed by operation name
+	 */
+	public Map<String, LatencyHistogram> getOperations();
+
+	/**
+	 * Number of asserted statements of the ontology (imported ontologies included)
+	 */
+	public long getTriples();
+
+	/**
+	 * Number of named classes in the hierarchy
+	 */
+	public int getClasses();
+
+	/**
+	 * Number of individuals, inferred ones included
+	 */
+	public int getIndividuals();
+
+	/**
+	 * Discards the recorded latencies
+	 */
+	public void reset();
+}
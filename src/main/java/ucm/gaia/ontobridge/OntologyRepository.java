@@ -0,0 +1,444 @@
+/**
+ * OntoBride library.
+ * GAIA - Group for Artifical Intelligence Applications
+ * Departamento de Ingeniería del Software e Inteligencia Artificial
+ * Universidad Complutense de Madrid
+ *
+ * Licensed under the terms of the GNU Library or Lesser General Public License (LGPL)
+ *
+ * This software is a subproject of the jCOLIBRI framework
+ * http://sourceforge.net/projects/jcolibri-cbr/
+ * http://gaia.fdi.ucm.es/projects/jcolibri/
+ *
+ * File: OntologyRepository.java
+ * 18/10/2026
+ */
+package ucm.gaia.ontobridge;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.LogManager;
+
+import com.hp.hpl.jena.ontology.OntDocumentManager;
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.shared.NotFoundException;
+
+/**
+ * Local repository of ontology documents, stored in a directory.<br>
+ * The repository maps the URL of every document to a local file. The mapping is kept in an index
+ * file (index.properties) inside the directory, loaded once in memory. When OntoBridge loads an
+ * ontology with a repository (see OntoBridge.setRepository()), the main ontology and every import
+ * are read from the local files.
+ * Documents that are not in the repository are downloaded and stored in it, unless the repository
+ * is offline: then reading them fails immediately, and the network is never used.<br>
+ * The repository also records the time spent reading every document (see getLoadTimes()).
+ */
+public class OntologyRepository {
+
+	/** Name of the index file */
+	public static final String INDEX_FILE = "index.properties";
+
+	/** Default timeout of the downloads in milliseconds */
+	public static final int DEFAULT_TIMEOUT = 10000;
+
+	private final File _directory;
+	private final Properties _index = new Properties();
+	private volatile boolean _offline = false;
+	private volatile int _timeout = DEFAULT_TIMEOUT;
+	private final Map<String,Long> _loadTimes = Collections.synchronizedMap(new LinkedHashMap<String,Long>());
+	/** Documents being read by each thread, the innermost import last */
+	private final ThreadLocal<ArrayList<Reading>> _reading = new ThreadLocal<ArrayList<Reading>>() {
+		protected ArrayList<Reading> initialValue() {
+			return new ArrayList<Reading>();
+		}};
+	/** URL of the local files that are read */
+	private final ConcurrentHashMap<String,String> _urls = new ConcurrentHashMap<String,String>();
+
+	/**
+	 * Opens the repository stored in a directory, creating it if it does not exist
+	 */
+	public OntologyRepository(File directory) throws IOException
+	{
+		_directory = directory;
+		if(!directory.isDirectory() && !directory.mkdirs())
+			throw new IOException("Cannot create the repository directory: " + directory);
+		File index = new File(directory, INDEX_FILE);
+		if(index.isFile())
+		{
+			InputStream in = new FileInputStream(index);
+			try {
+				_index.load(in);
+			} finally {
+				in.close();
+			}
+		}
+	}
+
+	/**
+	 * Returns the directory of the repository
+	 */
+	public File getDirectory()
+	{
+		return _directory;
+	}
+
+	/**
+	 * If true, documents that are not in the repository are not downloaded: reading them fails.
+	 */
+	public void setOffline(boolean offline)
+	{
+		_offline = offline;
+	}
+
+	public boolean isOffline()
+	{
+		return _offline;
+	}
+
+	/**
+	 * Sets the connection and read timeout of the downloads in milliseconds
+	 */
+	public void setTimeout(int millis)
+	{
+		_timeout = millis;
+	}
+
+	public int getTimeout()
+	{
+		return _timeout;
+	}
+
+	/**************************************************************/
+	/*                      Documents                             */
+	/**************************************************************/
+
+	/**
+	 * Returns true if the document is in the repository
+	 */
+	public synchronized boolean contains(String url)
+	{
+		return _index.containsKey(url);
+	}
+
+	/**
+	 * Returns the local file of a document, or null if it is not in the repository
+	 */
+	public synchronized File getFile(String url)
+	{
+		String name = _index.getProperty(url);
+		return (name == null) ? null : new File(_directory, name);
+	}
+
+	/**
+	 * Returns an OntologyDocument for the URL, with its local file if it is in the repository
+	 */
+	public OntologyDocument getDocument(String url)
+	{
+		File file = getFile(url);
+		return (file == null) ? new OntologyDocument(url) : new OntologyDocument(url, file.toURI().toString());
+	}
+
+	/**
+	 * Returns the URLs of the documents in the repository
+	 */
+	public synchronized Set<String> listURLs()
+	{
+		return new TreeSet<String>(_index.stringPropertyNames());
+	}
+
+	/**
+	 * Copies a file into the repository as the document of the given URL, replacing the previous copy
+	 * @return the local file
+	 */
+	public File add(String url, File source) throws IOException
+	{
+		InputStream in = new FileInputStream(source);
+		try {
+			return store(url, in);
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Downloads a document and stores it in the repository
+	 * @return the local file
+	 * @throws IOException if the repository is offline or the document cannot be downloaded
+	 */
+	public File fetch(String url) throws IOException
+	{
+		if(_offline)
+			throw new IOException("Repository is offline, " + url + " cannot be downloaded");
+		long start = System.nanoTime();
+		URLConnection connection = new URL(url).openConnection();
+		connection.setConnectTimeout(_timeout);
+		connection.setReadTimeout(_timeout);
+		connection.setRequestProperty("Accept", "application/rdf+xml, text/turtle;q=0.9, */*;q=0.5");
+		InputStream in = connection.getInputStream();
+		try {
+			File file = store(url, in);
+			LogManager.getLogger().info("Downloaded "+url+" in "+(System.nanoTime()-start)/1000000+" ms");
+			return file;
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Removes a document from the repository
+	 */
+	public synchronized void remove(String url) throws IOException
+	{
+		File file = getFile(url);
+		if(file == null)
+			return;
+		_index.remove(url);
+		saveIndex();
+		file.delete();
+	}
+
+	private File store(String url, InputStream in) throws IOException
+	{
+		File file;
+		synchronized(this)
+		{
+			file = getFile(url);
+		}
+		if(file == null)
+			file = new File(_directory, fileName(url));
+		File tmp = File.createTempFile("download", ".tmp", _directory);
+		try {
+			OutputStream out = new FileOutputStream(tmp);
+			try {
+				byte[] buffer = new byte[8192];
+				for(int n = in.read(buffer); n >= 0; n = in.read(buffer))
+					out.write(buffer, 0, n);
+			} finally {
+				out.close();
+			}
+			Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			tmp.delete();
+		}
+		synchronized(this)
+		{
+			_index.setProperty(url, file.getName());
+			saveIndex();
+		}
+		return file;
+	}
+
+	/**
+	 * Builds a readable file name for a URL, unique inside the repository
+	 */
+	private String fileName(String url)
+	{
+		String name = url.replaceFirst("^[a-zA-Z][a-zA-Z0-9+.-]*://", "").replaceAll("[^a-zA-Z0-9.-]+", "_");
+		if(name.length() > 100)
+			name = name.substring(name.length()-100);
+		String hash = Integer.toHexString(url.hashCode());
+		String res = name + "_" + hash;
+		for(int i = 1; new File(_directory, res).exists() || _index.containsValue(res); i++)
+			res = name + "_" + hash + "_" + i;
+		return res;
+	}
+
+	private void saveIndex() throws IOException
+	{
+		File tmp = new File(_directory, INDEX_FILE + ".tmp");
+		OutputStream out = new FileOutputStream(tmp);
+		try {
+			_index.store(out, "OntoBridge ontology repository: document URL = local file");
+		} finally {
+			out.close();
+		}
+		Files.move(tmp.toPath(), new File(_directory, INDEX_FILE).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**************************************************************/
+	/*                      Load timing                           */
+	/**************************************************************/
+
+	/**
+	 * Returns the milliseconds spent reading every document by its URL, in reading order
+	 */
+	public Map<String,Long> getLoadTimes()
+	{
+		synchronized(_loadTimes)
+		{
+			return new LinkedHashMap<String,Long>(_loadTimes);
+		}
+	}
+
+	/**
+	 * Forgets the recorded load times
+	 */
+	public void clearLoadTimes()
+	{
+		_loadTimes.clear();
+	}
+
+	/**************************************************************/
+	/*                   Document manager                         */
+	/**************************************************************/
+
+	/**
+	 * Resolves a URL to the local file of the repository, downloading it if needed
+	 * @throws NotFoundException if it is not in the repository and it cannot be downloaded
+	 */
+	String resolve(String url, OntDocumentManager dm)
+	{
+		String mapped = dm.doAltURLMapping(url);
+		if(isLocal(mapped))
+			return mapped;
+		File file = getFile(url);
+		if(file == null)
+		{
+			if(_offline)
+				throw new NotFoundException("Offline: " + url + " is not in the repository " + _directory);
+			try {
+				file = fetch(url);
+			} catch (IOException e) {
+				throw new NotFoundException("Cannot download " + url + ": " + e.getMessage());
+			}
+		}
+		String local = file.toURI().toString();
+		dm.addAltEntry(url, local);
+		_urls.put(local, url);
+		return local;
+	}
+
+	private static boolean isLocal(String location)
+	{
+		return location.startsWith("file:") || location.startsWith("jar:")
+				|| !location.matches("^[a-zA-Z][a-zA-Z0-9+.-]+:.*");
+	}
+
+	/**
+	 * Makes a document manager read the documents through the repository until the returned object is closed
+	 */
+	Installation install(OntDocumentManager dm)
+	{
+		synchronized(this)
+		{
+			for(String url : _index.stringPropertyNames())
+			{
+				String local = new File(_directory, _index.getProperty(url)).toURI().toString();
+				dm.addAltEntry(url, local);
+				_urls.put(local, url);
+			}
+		}
+		return new Installation(dm);
+	}
+
+	/**
+	 * Read hook and failure handler of a document manager while it uses the repository
+	 */
+	class Installation implements OntDocumentManager.ReadHook, OntDocumentManager.ReadFailureHandler
+	{
+		private final OntDocumentManager _dm;
+		private final OntDocumentManager.ReadHook _previousHook;
+		private final OntDocumentManager.ReadFailureHandler _previousHandler;
+
+		private Installation(OntDocumentManager dm)
+		{
+			_dm = dm;
+			_previousHook = dm.setReadHook(this);
+			_previousHandler = dm.getReadFailureHandler();
+			dm.setReadFailureHandler(this);
+		}
+
+		public String beforeRead(Model model, String source, OntDocumentManager odm)
+		{
+			if(_previousHook != null)
+				source = _previousHook.beforeRead(model, source, odm);
+			String local = resolve(source, odm);
+			_reading.get().add(new Reading(local));
+			return local;
+		}
+
+		public void afterRead(Model model, String source, OntDocumentManager odm)
+		{
+			//Imports are read while their importing document is parsed: their time is not counted twice.
+			//Reads that failed never finish, so they are discarded.
+			ArrayList<Reading> reading = _reading.get();
+			int i = reading.size()-1;
+			while(i >= 0 && !reading.get(i)._source.equals(source))
+				i--;
+			if(i >= 0)
+			{
+				Reading r = reading.get(i);
+				while(reading.size() > i)
+					reading.remove(reading.size()-1);
+				long total = System.nanoTime() - r._start;
+				if(i > 0)
+					reading.get(i-1)._nested += total;
+				long millis = (total - r._nested) / 1000000;
+				String url = _urls.containsKey(source) ? _urls.get(source) : source;
+				_loadTimes.put(url, millis);
+				LogManager.getLogger().info("Read "+url+" in "+millis+" ms");
+			}
+			if(_previousHook != null)
+				_previousHook.afterRead(model, source, odm);
+		}
+
+		/**
+		 * Imports that cannot be read stop the load in offline mode, instead of being skipped
+		 */
+		public void handleFailedRead(String url, Model model, Exception e)
+		{
+			if(_offline)
+				throw (e instanceof RuntimeException) ? (RuntimeException)e : new NotFoundException(url + ": " + e.getMessage());
+			if(_previousHandler != null)
+				_previousHandler.handleFailedRead(url, model, e);
+			else
+				LogManager.getLogger().warn("Cannot read "+url+": "+e);
+		}
+
+		/**
+		 * Restores the previous hook and failure handler of the document manager
+		 */
+		void uninstall()
+		{
+			_dm.setReadHook(_previousHook);
+			_dm.setReadFailureHandler(_previousHandler);
+		}
+	}
+
+	/**
+	 * Document being read
+	 */
+	private static class Reading
+	{
+		final String _source;
+		final long _start = System.nanoTime();
+		long _nested = 0;
+
+		Reading(String source)
+		{
+			_source = source;
+		}
+	}
+
+	public String toString()
+	{
+		return "OntologyRepository " + _directory + (_offline ? " (offline)" : "");
+	}
+}
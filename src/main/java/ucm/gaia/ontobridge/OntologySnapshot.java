@@ -0,0 +1,424 @@
+/**
+ * OntoBride library.
+ * GAIA - Group for Artifical Intelligence Applications
+ * Departamento de Ingeniería del Software e Inteligencia Artificial
+ * Universidad Complutense de Madrid
+ *
+ * Licensed under the terms of the GNU Library or Lesser General Public License (LGPL)
+ *
+ * This software is a subproject of the jCOLIBRI framework
+ * http://sourceforge.net/projects/jcolibri-cbr/
+ * http://gaia.fdi.ucm.es/projects/jcolibri/
+ *
+ * File: OntologySnapshot.java
+ * 18/10/2026
+ */
+package ucm.gaia.ontobridge;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.hp.hpl.jena.graph.BulkUpdateHandler;
+import com.hp.hpl.jena.graph.Graph;
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.graph.impl.SimpleBulkUpdateHandler;
+import com.hp.hpl.jena.graph.impl.WrappedGraph;
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.ModelFactory;
+import com.hp.hpl.jena.rdf.model.NodeIterator;
+import com.hp.hpl.jena.rdf.model.Property;
+import com.hp.hpl.jena.rdf.model.RDFNode;
+import com.hp.hpl.jena.rdf.model.ResIterator;
+import com.hp.hpl.jena.rdf.model.Resource;
+import com.hp.hpl.jena.rdf.model.StmtIterator;
+import com.hp.hpl.jena.shared.AddDeniedException;
+import com.hp.hpl.jena.shared.DeleteDeniedException;
+import com.hp.hpl.jena.vocabulary.RDF;
+
+/**
+ * Immutable copy of the ontology at a given moment: the asserted and inferred statements
+ * and the class hierarchy.<br>
+ * Snapshots are published by OntoBridge.publishSnapshot() and obtained with
+ * OntoBridge.getSnapshot(). Reading a snapshot never blocks and never sees later
+ * modifications, so a request that reads the same snapshot gets repeatable results.
+ * Any number of threads can read a snapshot at the same time.<br>
+ * The models returned by this class cannot be modified.
+ */
+public class OntologySnapshot {
+
+	private final long _version;
+	private final Model _model;
+	private final Model _asserted;
+	private final HierarchyIndex _index;
+	private final String _baseNS;
+	private final ConcurrentHashMap<String, int[]> _typeClosures = new ConcurrentHashMap<String, int[]>();
+
+	OntologySnapshot(long version, Model inferred, Model asserted, HierarchyIndex index, String baseNS)
+	{
+		_version = version;
+		_model = freeze(inferred);
+		_asserted = freeze(asserted);
+		_index = index;
+		_baseNS = baseNS;
+	}
+
+	/**
+	 * Copies a model into a new one that cannot be modified
+	 */
+	private static Model freeze(Model source)
+	{
+		Model copy = ModelFactory.createDefaultModel();
+		copy.add(source);
+		Model frozen = ModelFactory.createModelForGraph(new FrozenGraph(copy.getGraph()));
+		frozen.setNsPrefixes(source.getNsPrefixMap());
+		frozen.lock();
+		return frozen;
+	}
+
+	/**
+	 * Version of the snapshot. Each published snapshot has a greater version than the previous one.
+	 */
+	public long getVersion()
+	{
+		return _version;
+	}
+
+	/**
+	 * Returns the asserted and inferred statements. The model cannot be modified.
+	 */
+	public Model getModel()
+	{
+		return _model;
+	}
+
+	/**
+	 * Returns the asserted statements. The model cannot be modified.
+	 */
+	public Model getAssertedModel()
+	{
+		return _asserted;
+	}
+
+	/**
+	 * Returns the class hierarchy of the snapshot
+	 */
+	public HierarchyIndex getHierarchyIndex()
+	{
+		return _index;
+	}
+
+	/**
+	 * Number of statements, including the inferred ones
+	 */
+	public long size()
+	{
+		return _model.size();
+	}
+
+	/**************************************************************/
+	/*                Names and URIs management                   */
+	/**************************************************************/
+
+	/**
+	 * Returns the resource referenced by a URI, a qualified name or a name in the base namespace,
+	 * or null if it does not appear in the snapshot.
+	 */
+	protected Resource resolve(String name)
+	{
+		Resource res = _model.createResource(name);
+		if(_model.containsResource(res))
+			return res;
+		res = _model.createResource(_model.expandPrefix(name));
+		if(_model.containsResource(res))
+			return res;
+		if(_baseNS != null)
+		{
+			res = _model.createResource(_baseNS + name);
+			if(_model.containsResource(res))
+				return res;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the URI of a name or null if it does not appear in the snapshot
+	 */
+	public String getURI(String name)
+	{
+		Resource res = resolve(name);
+		return (res == null) ? null : res.getURI();
+	}
+
+	/**
+	 * Returns the short form of an URI.
+	 */
+	public String getShortName(String URI)
+	{
+		String sname = _model.shortForm(URI);
+		if(sname.startsWith(":"))
+			return sname.substring(1);
+		return sname;
+	}
+
+	/**
+	 * Returns true if the resource appears in the snapshot
+	 */
+	public boolean exists(String name)
+	{
+		return resolve(name) != null;
+	}
+
+	/**************************************************************/
+	/*                Classes and instances                       */
+	/**************************************************************/
+
+	/**
+	 * Lists the subclasses of a class
+	 * @param ontClass class parent of the classes user is asking for
+	 * @param direct return only direct subclasses
+	 */
+	public Iterator<String> listSubClasses(String ontClass, boolean direct)
+	{
+		int id = hierarchyId(ontClass);
+		if(id == HierarchyIndex.NONE)
+			return new ArrayList<String>().iterator();
+		return _index.uris(direct ? _index.directChildren(id) : _index.descendants(id)).iterator();
+	}
+
+	/**
+	 * Lists the superclasses of a class
+	 * @param ontClass subclass of the classes user is asking for
+	 * @param direct return only direct superclasses
+	 */
+	public Iterator<String> listSuperClasses(String ontClass, boolean direct)
+	{
+		int id = hierarchyId(ontClass);
+		if(id == HierarchyIndex.NONE)
+			return new ArrayList<String>().iterator();
+		return _index.uris(direct ? _index.directParents(id) : _index.ancestors(id)).iterator();
+	}
+
+	/**
+	 * Checks if a class is subclass of other
+	 */
+	public boolean isSubClassOf(String subclass, String superclass)
+	{
+		int sub = hierarchyId(subclass);
+		int sup = hierarchyId(superclass);
+		if(sub == HierarchyIndex.NONE || sup == HierarchyIndex.NONE)
+			return false;
+		return Arrays.binarySearch(_index.ancestorClosure(sub), sup) >= 0;
+	}
+
+	/**
+	 * Lists the instances of a class, including the inferred ones
+	 */
+	public Iterator<String> listInstances(String ontClass)
+	{
+		return subjects(_model, ontClass);
+	}
+
+	/**
+	 * Lists the declared (not inferred) instances of a class
+	 */
+	public Iterator<String> listDeclaredInstances(String ontClass)
+	{
+		return subjects(_asserted, ontClass);
+	}
+
+	/**
+	 * Lists the classes that an instance belongs to, including the inferred ones
+	 */
+	public Iterator<String> listBelongingClasses(String instance)
+	{
+		return objects(_model, instance, RDF.type);
+	}
+
+	/**
+	 * Lists the declared (not inferred) classes that an instance belongs to
+	 */
+	public Iterator<String> listDeclaredBelongingClasses(String instance)
+	{
+		return objects(_asserted, instance, RDF.type);
+	}
+
+	/**
+	 * Checks if an instance belongs to a class
+	 */
+	public boolean isInstanceOf(String instance, String ontClass)
+	{
+		Resource i = resolve(instance);
+		Resource c = resolve(ontClass);
+		return i != null && c != null && _model.contains(i, RDF.type, c);
+	}
+
+	/**
+	 * Lists the values of a property of an instance
+	 */
+	public Iterator<String> listPropertyValue(String instance, String property)
+	{
+		Resource p = resolve(property);
+		if(p == null)
+			return new ArrayList<String>().iterator();
+		return objects(_model, instance, _model.createProperty(p.getURI()));
+	}
+
+	private Iterator<String> subjects(Model model, String ontClass)
+	{
+		List<String> list = new ArrayList<String>();
+		Resource c = resolve(ontClass);
+		if(c != null)
+			for(ResIterator ri = model.listSubjectsWithProperty(RDF.type, c); ri.hasNext();)
+				list.add(ri.nextResource().toString());
+		return list.iterator();
+	}
+
+	private Iterator<String> objects(Model model, String subject, Property property)
+	{
+		List<String> list = new ArrayList<String>();
+		Resource s = resolve(subject);
+		if(s != null)
+			for(NodeIterator ni = model.listObjectsOfProperty(s, property); ni.hasNext();)
+				list.add(ni.nextNode().toString());
+		return list.iterator();
+	}
+
+	/**************************************************************/
+	/*                Depth methods                               */
+	/**************************************************************/
+
+	/**
+	 * Returns the depth of a class. owl:Thing has depth 0.
+	 */
+	public int profConcept(String ontClass)
+	{
+		int id = hierarchyId(ontClass);
+		if(id == HierarchyIndex.NONE)
+			throw new IllegalArgumentException("Class not found in the hierarchy: "+ontClass);
+		return _index.depth(id);
+	}
+
+	/**
+	 * Returns the depth of an instance: one more than the depth of its shallowest declared class,
+	 * or 0 if none of the declared types belongs to the hierarchy.
+	 */
+	public int profInstance(String instance)
+	{
+		int res = Integer.MAX_VALUE;
+		for(Iterator<String> iter = listDeclaredBelongingClasses(instance); iter.hasNext();)
+		{
+			int id = _index.id(iter.next());
+			if(id != HierarchyIndex.NONE && _index.depth(id) < res)
+				res = _index.depth(id);
+		}
+		if(res == Integer.MAX_VALUE)
+			return 0;
+		return res+1;
+	}
+
+	/**
+	 * Returns the maximum depth of the Least Common Subsumers of two instances.
+	 */
+	public int maxProfLCS(String instance1, String instance2)
+	{
+		return _index.maxCommonDepth(typeClosure(instance1), typeClosure(instance2));
+	}
+
+	/**
+	 * Returns a set with the Least Common Subsumers of two instances.
+	 */
+	public Set<String> LCS(String instance1, String instance2)
+	{
+		return new HashSet<String>(_index.uris(_index.deepestCommon(typeClosure(instance1), typeClosure(instance2))));
+	}
+
+	private int hierarchyId(String ontClass)
+	{
+		int id = _index.id(ontClass);
+		if(id == HierarchyIndex.NONE)
+		{
+			Resource res = resolve(ontClass);
+			if(res != null && res.isURIResource())
+				id = _index.id(res.getURI());
+		}
+		return id;
+	}
+
+	/**
+	 * Returns the sorted ids of the classes of an instance and their superclasses
+	 */
+	private int[] typeClosure(String instance)
+	{
+		int[] res = _typeClosures.get(instance);
+		if(res == null)
+		{
+			int[] types = new int[4];
+			int count = 0;
+			Resource i = resolve(instance);
+			if(i != null)
+				for(StmtIterator si = _model.listStatements(i, RDF.type, (RDFNode)null); si.hasNext();)
+				{
+					RDFNode type = si.nextStatement().getObject();
+					if(!type.isURIResource())
+						continue;
+					int id = _index.id(((Resource)type).getURI());
+					if(id == HierarchyIndex.NONE)
+						continue;
+					if(count == types.length)
+						types = Arrays.copyOf(types, count*2);
+					types[count++] = id;
+				}
+			res = _index.closure(types, count);
+			_typeClosures.put(instance, res);
+		}
+		return res;
+	}
+
+	public String toString()
+	{
+		return "OntologySnapshot v" + _version + " (" + size() + " statements)";
+	}
+
+	/**
+	 * Graph that rejects any modification
+	 */
+	private static class FrozenGraph extends WrappedGraph
+	{
+		FrozenGraph(Graph base)
+		{
+			super(base);
+		}
+
+		public void add(Triple t)
+		{
+			throw new AddDeniedException("Snapshots cannot be modified", t);
+		}
+
+		public void delete(Triple t)
+		{
+			throw new DeleteDeniedException("Snapshots cannot be modified", t);
+		}
+
+		public void performAdd(Triple t)
+		{
+			add(t);
+		}
+
+		public void performDelete(Triple t)
+		{
+			delete(t);
+		}
+
+		public BulkUpdateHandler getBulkUpdateHandler()
+		{
+			if(bud == null)
+				bud = new SimpleBulkUpdateHandler(this);
+			return bud;
+		}
+	}
+}
@@ -0,0 +1,285 @@
+/**
+ * OntoBride library.
+ * GAIA - Group for Artifical Intelligence Applications
+ * Departamento de Ingeniería del Software e Inteligencia Artificial
+ * Universidad Complutense de Madrid
+ *
+ * Licensed under the terms of the GNU Library or Lesser General Public License (LGPL)
+ *
+ * This software is a subproject of the jCOLIBRI framework
+ * http://sourceforge.net/projects/jcolibri-cbr/
+ * http://gaia.fdi.ucm.es/projects/jcolibri/
+ *
+ * File: PreparedQuery.java
+ * 18/10/2026
+ */
+package ucm.gaia.ontobridge;
+
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+
+import com.hp.hpl.jena.query.Query;
+import com.hp.hpl.jena.query.QueryExecution;
+import com.hp.hpl.jena.query.QuerySolution;
+import com.hp.hpl.jena.query.QuerySolutionMap;
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.RDFNode;
+import com.hp.hpl.jena.rdf.model.ResourceFactory;
+
+/**
+ * SPARQL query that has already been parsed and can be executed several times
+ * with different values for its variables.<br>
+ * Instances are obtained with SPARQL.prepare(). The parsed query is shared through the
+ * query cache, but the bindings belong to each PreparedQuery, so a PreparedQuery must
+ * not be used by several threads at the same time. The only exception is cancel(), that
+ * is intended to be invoked from another thread to stop the running execution.
+ */
+public class PreparedQuery {
+
+	private final SPARQL _sparql;
+	private final Query _query;
+	private final QuerySolutionMap _bindings = new QuerySolutionMap();
+	private long _timeout = 0;
+	private volatile QueryExecution _running = null;
+
+	PreparedQuery(SPARQL sparql, Query query)
+	{
+		_sparql = sparql;
+		_query = query;
+	}
+
+	/**
+	 * Returns the parsed query. It must not be modified.
+	 */
+	public Query getQuery()
+	{
+		return _query;
+	}
+
+	/**
+	 * Binds a variable to a node of the model
+	 * @param var name of the variable without '?'
+	 * @param value resource or literal
+	 */
+	public PreparedQuery set(String var, RDFNode value)
+	{
+		_bindings.add(var, value);
+		return this;
+	}
+
+	/**
+	 * Binds a variable to a resource
+	 * @param var name of the variable without '?'
+	 * @param uri full URI of the resource
+	 */
+	public PreparedQuery setIri(String var, String uri)
+	{
+		return set(var, ResourceFactory.createResource(uri));
+	}
+
+	/**
+	 * Binds a variable to a typed literal. The datatype is obtained from the class of the value.
+	 * @param var name of the variable without '?'
+	 * @param value Java value of the literal
+	 */
+	public PreparedQuery setLiteral(String var, Object value)
+	{
+		return set(var, ResourceFactory.createTypedLiteral(value));
+	}
+
+	/**
+	 * Binds a variable to a plain literal
+	 * @param var name of the variable without '?'
+	 * @param value lexical form of the literal
+	 */
+	public PreparedQuery setPlainLiteral(String var, String value)
+	{
+		return set(var, ResourceFactory.createPlainLiteral(value));
+	}
+
+	/**
+	 * Removes every binding
+	 */
+	public PreparedQuery clearBindings()
+	{
+		_bindings.clear();
+		return this;
+	}
+
+	/**
+	 * Sets the maximum execution time. A query that exceeds it is stopped with a
+	 * QueryCancelledException.
+	 * @param timeout milliseconds. If 0 the default timeout of SPARQL is used.
+	 */
+	public PreparedQuery setTimeout(long timeout)
+	{
+		_timeout = Math.max(timeout, 0);
+		return this;
+	}
+
+	/**
+	 * Returns the timeout in milliseconds (0 if the default timeout is used)
+	 */
+	public long getTimeout()
+	{
+		return _timeout;
+	}
+
+	/**
+	 * Stops the execution of this query that is running, if any. It can be invoked from
+	 * any thread. The thread executing the query receives a QueryCancelledException.
+	 * The engine checks for cancellation between solutions, so a single step that takes
+	 * long inside the reasoner is not interrupted.
+	 */
+	public void cancel()
+	{
+		QueryExecution qe = _running;
+		if(qe != null)
+			_sparql.cancel(qe);
+	}
+
+	private QueryExecution start()
+	{
+		QueryExecution qe = _sparql.createExecution(_query, _bindings, _timeout);
+		_running = qe;
+		return qe;
+	}
+
+	private void finish(QueryExecution qe)
+	{
+		if(_running == qe)
+			_running = null;
+	}
+
+	/**
+	 * Executes an ASK query
+	 */
+	public boolean execAsk()
+	{
+		QueryExecution qe = start();
+		try {
+			return _sparql.execAsk(qe);
+		} finally {
+			finish(qe);
+		}
+	}
+
+	/**
+	 * Executes a SELECT query
+	 */
+	public Iterator<QuerySolution> execSelect()
+	{
+		QueryExecution qe = start();
+		try {
+			return _sparql.execSelect(qe);
+		} finally {
+			finish(qe);
+		}
+	}
+
+	/**
+	 * Executes a SELECT query. Solutions are read from the engine as they are consumed.
+	 * @see SPARQL#execSelectQueryStreaming(String)
+	 */
+	public QueryResults execSelectStreaming()
+	{
+		return _sparql.execSelectStreaming(start(), -1);
+	}
+
+	/**
+	 * Executes a SELECT query returning at most limit solutions. Solutions are read from 
+	 * the engine as they are consumed.
+	 * @see SPARQL#execSelectQueryStreaming(String, long)
+	 */
+	public QueryResults execSelectStreaming(long limit)
+	{
+		return _sparql.execSelectStreaming(start(), limit);
+	}
+
+	/**
+	 * Executes a SELECT query and prints the results
+	 */
+	public void execSelectAndPrint(java.io.PrintStream outStream)
+	{
+		QueryExecution qe = start();
+		try {
+			_sparql.execSelectAndPrint(qe, _query, outStream);
+		} finally {
+			finish(qe);
+		}
+	}
+
+	/**
+	 * Executes a CONSTRUCT query
+	 */
+	public Model execConstruct()
+	{
+		QueryExecution qe = start();
+		try {
+			return _sparql.execConstruct(qe);
+		} finally {
+			finish(qe);
+		}
+	}
+
+	/**
+	 * Executes a DESCRIBE query
+	 */
+	public Model execDescribe()
+	{
+		QueryExecution qe = start();
+		try {
+			return _sparql.execDescribe(qe);
+		} finally {
+			finish(qe);
+		}
+	}
+
+	/**
+	 * Creates an execution with a copy of the current bindings, so the bindings can be 
+	 * changed while it is waiting in the executor
+	 */
+	private QueryExecution detached()
+	{
+		QuerySolutionMap bindings = new QuerySolutionMap();
+		bindings.addAll(_bindings);
+		return _sparql.createExecution(_query, bindings, _timeout);
+	}
+
+	/**
+	 * Executes an ASK query in the executor of SPARQL. Cancelling the future stops the execution.
+	 */
+	public CompletableFuture<Boolean> execAskAsync()
+	{
+		return _sparql.submit(detached(), _sparql.ASK);
+	}
+
+	/**
+	 * Executes a SELECT query in the executor of SPARQL. Cancelling the future stops the execution.
+	 */
+	public CompletableFuture<Iterator<QuerySolution>> execSelectAsync()
+	{
+		return _sparql.submit(detached(), _sparql.SELECT);
+	}
+
+	/**
+	 * Executes a CONSTRUCT query in the executor of SPARQL. Cancelling the future stops the execution.
+	 */
+	public CompletableFuture<Model> execConstructAsync()
+	{
+		return _sparql.submit(detached(), _sparql.CONSTRUCT);
+	}
+
+	/**
+	 * Executes a DESCRIBE query in the executor of SPARQL. Cancelling the future stops the execution.
+	 */
+	public CompletableFuture<Model> execDescribeAsync()
+	{
+		return _sparql.submit(detached(), _sparql.DESCRIBE);
+	}
+
+	public String toString()
+	{
+		return _query.toString();
+	}
+}
@@ -0,0 +1,42 @@
+/**
+ * OntoBride library.
+ * GAIA - Group for Artifical Intelligence Applications
+ * Departamento de Ingeniería del Software e Inteligencia Artificial
+ * Universidad Complutense de Madrid
+ *
+ * Licensed under the terms of the GNU Library or Lesser General Public License (LGPL)
+ *
+ * This software is a subproject of the jCOLIBRI framework
+ * http://sourceforge.net/projects/jcolibri-cbr/
+ * http://gaia.fdi.ucm.es/projects/jcolibri/
+ *
+ * File: PropertyRef.java
+ * 18/10/2026
+ */
+package ucm.gaia.ontobridge;
+
+import com.hp.hpl.jena.ontology.OntProperty;
+import com.hp.hpl.jena.rdf.model.Resource;
+
+/**
+ * Handle to a property of the ontology.
+ */
+public class PropertyRef extends ResourceRef {
+
+	private OntProperty _property;
+
+	PropertyRef(Resource resource)
+	{
+		super(resource);
+	}
+
+	/**
+	 * Returns the JENA property of this handle
+	 */
+	public OntProperty getOntProperty()
+	{
+		if(_property == null)
+			_property = _resource.as(OntProperty.class);
+		return _property;
+	}
+}
@@ -0,0 +1,174 @@
+/**
+ * OntoBride library.
+ * GAIA - Group for Artifical Intelligence Applications
+ * Departamento de Ingeniería del Software e Inteligencia Artificial
+ * Universidad Complutense de Madrid
+ *
+ * Licensed under the terms of the GNU Library or Lesser General Public License (LGPL)
+ *
+ * This software is a subproject of the jCOLIBRI framework
+ * http://sourceforge.net/projects/jcolibri-cbr/
+ * http://gaia.fdi.ucm.es/projects/jcolibri/
+ *
+ * File: QueryResults.java
+ * 18/10/2026
+ */
+package ucm.gaia.ontobridge;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.hp.hpl.jena.query.QueryCancelledException;
+import com.hp.hpl.jena.query.QueryExecution;
+import com.hp.hpl.jena.query.QuerySolution;
+import com.hp.hpl.jena.query.ResultSet;
+
+/**
+ * Results of a SELECT query that are pulled from the query engine as they are read,
+ * instead of being copied into a list. Only the current solution is kept in memory.<br>
+ * The object owns the query execution and closes it when the last solution is read,
+ * when the limit of solutions is reached, or when close() is invoked. Results that are
+ * not read until the end must be closed:
+ * <pre>
+ * QueryResults res = sparql.execSelectQueryStreaming(query);
+ * try {
+ *     while(res.hasNext())
+ *         ... res.next() ...
+ * } finally {
+ *     res.close();
+ * }
+ * </pre>
+ * The ontology model must not be modified while the results are being read.
+ */
+public class QueryResults implements Iterator<QuerySolution>, Closeable {
+
+	private final SPARQL _sparql;
+	private final QueryExecution _qe;
+	private final ResultSet _results;
+	private final long _limit;
+	private final long _start;
+	private long _count = 0;
+	private volatile boolean _closed = false;
+
+	/**
+	 * @param limit maximum number of solutions returned. Negative for no limit.
+	 * @param start value of System.nanoTime() when the execution started
+	 */
+	QueryResults(SPARQL sparql, QueryExecution qe, long limit, long start)
+	{
+		_sparql = sparql;
+		_qe = qe;
+		_limit = limit;
+		_start = start;
+		_results = qe.execSelect();
+	}
+
+	/**
+	 * Returns the names of the variables of the solutions
+	 */
+	public List<String> getResultVars()
+	{
+		return _results.getResultVars();
+	}
+
+	/**
+	 * Number of solutions read so far
+	 */
+	public long getCount()
+	{
+		return _count;
+	}
+
+	/**
+	 * Returns true if the results are closed: they were read until the end,
+	 * the limit was reached or close() was invoked.
+	 */
+	public boolean isClosed()
+	{
+		return _closed;
+	}
+
+	public boolean hasNext()
+	{
+		if(_closed)
+			return false;
+		try {
+			if((_limit >= 0 && _count >= _limit) || !_results.hasNext())
+			{
+				close();
+				return false;
+			}
+			return true;
+		} catch(QueryCancelledException e) {
+			interrupted();
+			throw e;
+		}
+	}
+
+	public QuerySolution next()
+	{
+		if(!hasNext())
+			throw new NoSuchElementException();
+		try {
+			QuerySolution sol = _results.nextSolution();
+			_count++;
+			return sol;
+		} catch(QueryCancelledException e) {
+			interrupted();
+			throw e;
+		}
+	}
+
+	private void interrupted()
+	{
+		if(!_closed)
+			_sparql.interrupted(_qe);
+		close();
+	}
+
+	/**
+	 * Stops the query execution. It can be invoked from any thread; the thread reading 
+	 * the results receives a QueryCancelledException.
+	 */
+	public void cancel()
+	{
+		if(!_closed)
+			_sparql.cancel(_qe);
+	}
+
+	public void remove()
+	{
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Frees the resources of the query execution. It can be invoked several times.
+	 */
+	public void close()
+	{
+		if(_closed)
+			return;
+		_closed = true;
+		_qe.close();
+		_sparql.executed(_start);
+	}
+
+	/**
+	 * Returns the remaining solutions as a sequential Stream. Closing the stream closes these results.
+	 */
+	public Stream<QuerySolution> stream()
+	{
+		Stream<QuerySolution> stream = StreamSupport.stream(
+				Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false);
+		return stream.onClose(new Runnable() {
+			public void run() {
+				close();
+			}});
+	}
+}
@@ -0,0 +1,58 @@
+/**
+ * OntoBride library.
+ * GAIA - Group for Artifical Intelligence Applications
+ * Departamento de Ingeniería del Software e Inteligencia Artificial
+ * Universidad Complutense de Madrid
+ *
+ * Licensed under the terms of the GNU Library or Lesser General Public License (LGPL)
+ *
+ * This software is a subproject of the jCOLIBRI framework
+ * http://sourceforge.net/projects/jcolibri-cbr/
+ * http://gaia.fdi.ucm.es/projects/jcolibri/
+ *
+ * File: ReasonerPhase.java
+ * 18/10/2026
+ */
+package ucm.gaia.ontobridge;
+
+/**
+ * Phases of the work done by the PELLET reasoner, in the order they are run.<br>
+ * PELLET runs them lazily: the first query after a change of the ontology loads it again and checks 
+ * its consistency, the first query about the hierarchy classifies it and the first query about the
+ * types of the individuals realizes it. Each phase runs the previous ones if needed.
+ * See OntoBridge.setProfiling() to find out which calls run them.
+ */
+public enum ReasonerPhase {
+
+	/** The statements of the model are loaded into the knowledge base of the reasoner */
+	LOADING("load"),
+	/** The knowledge base is preprocessed and its consistency is checked */
+	CONSISTENCY("preprocessing", "consistency"),
+	/** The class hierarchy (TBox) is computed */
+	CLASSIFICATION("classify"),
+	/** The most specific classes of every individual (ABox) are computed */
+	REALIZATION("realize");
+
+	private final String[] _timers;
+
+	private ReasonerPhase(String... timers)
+	{
+		_timers = timers;
+	}
+
+	/**
+	 * Names of the PELLET timers that measure this phase
+	 */
+	String[] getTimers()
+	{
+		return _timers;
+	}
+
+	/**
+	 * Lower case name used in logs
+	 */
+	public String toString()
+	{
+		return name().toLowerCase();
+	}
+}
@@ -0,0 +1,180 @@
+/**
+ * OntoBride library.
+ * GAIA - Group for Artifical Intelligence Applications
+ * Departamento de Ingeniería del Software e Inteligencia Artificial
+ * Universidad Complutense de Madrid
+ *
+ * Licensed under the terms of the GNU Library or Lesser General Public License (LGPL)
+ *
+ * This software is a subproject of the jCOLIBRI framework
+ * http://sourceforge.net/projects/jcolibri-cbr/
+ * http://gaia.fdi.ucm.es/projects/jcolibri/
+ *
+ * File: ReasonerProfile.java
+ * 18/10/2026
+ */
+package ucm.gaia.ontobridge;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.mindswap.pellet.KnowledgeBase;
+import org.mindswap.pellet.jena.PelletInfGraph;
+import org.mindswap.pellet.utils.Timer;
+
+import com.hp.hpl.jena.ontology.OntModel;
+
+/**
+ * Reasoning done during a call to OntoBridge, recorded when profiling is enabled (see OntoBridge.setProfiling()).<br>
+ * It tells which phases of the PELLET reasoner were run by the call and how long they took, so slow calls can be
+ * told from calls that pay for the reasoning pending after a change. The times of the phases are measured by PELLET
+ * with a resolution of milliseconds. Other reasoners do not report their phases, so only the elapsed time and the
+ * size of the model are recorded for them.
+ */
+public class ReasonerProfile {
+
+	private static final ReasonerPhase[] PHASES = ReasonerPhase.values();
+
+	private final String _operation;
+	private final long _elapsed;
+	private final long _triplesBefore;
+	private final long _triples;
+	private final Set<ReasonerPhase> _phases;
+	private final long[] _millis;
+
+	ReasonerProfile(String operation, Snapshot before, Snapshot after)
+	{
+		_operation = operation;
+		_elapsed = after._time - before._time;
+		_triplesBefore = before._triples;
+		_triples = after._triples;
+		_millis = new long[PHASES.length];
+		EnumSet<ReasonerPhase> phases = EnumSet.noneOf(ReasonerPhase.class);
+		// The timers of a new knowledge base start from zero
+		boolean sameKB = before._kb == after._kb;
+		for(int i = 0; i < PHASES.length; i++)
+		{
+			long count = after._counts[i] - (sameKB ? before._counts[i] : 0);
+			_millis[i] = after._totals[i] - (sameKB ? before._totals[i] : 0);
+			if(count > 0)
+				phases.add(PHASES[i]);
+		}
+		_phases = Collections.unmodifiableSet(phases);
+	}
+
+	/**
+	 * Name of the call, as reported to OntologyMetrics
+	 */
+	public String getOperation()
+	{
+		return _operation;
+	}
+
+	/**
+	 * Elapsed time of the call in nanoseconds, measured once the lock is held (waiting for the lock is not included)
+	 */
+	public long getElapsedNanos()
+	{
+		return _elapsed;
+	}
+
+	/**
+	 * Phases of the reasoner run by the call
+	 */
+	public Set<ReasonerPhase> getPhases()
+	{
+		return _phases;
+	}
+
+	/**
+	 * Returns true if the call ran any phase of the reasoner
+	 */
+	public boolean isReasoning()
+	{
+		return !_phases.isEmpty();
+	}
+
+	/**
+	 * Returns true if the call ran a phase of the reasoner
+	 */
+	public boolean isTriggered(ReasonerPhase phase)
+	{
+		return _phases.contains(phase);
+	}
+
+	/**
+	 * Milliseconds spent by the call in a phase of the reasoner
+	 */
+	public long getMillis(ReasonerPhase phase)
+	{
+		return _millis[phase.ordinal()];
+	}
+
+	/**
+	 * Number of asserted statements when the call finished
+	 */
+	public long getTriples()
+	{
+		return _triples;
+	}
+
+	/**
+	 * Number of asserted statements added by the call, negative if it removed statements
+	 */
+	public long getTriplesChange()
+	{
+		return _triples - _triplesBefore;
+	}
+
+	/**
+	 * Explanation of the call, e.g. "listInstances: 8012.345 ms, classification 7100 ms, realization 850 ms, 1064 triples"
+	 */
+	public String toString()
+	{
+		StringBuilder sb = new StringBuilder(_operation).append(": ");
+		sb.append(String.format("%.3f ms", _elapsed / 1e6));
+		if(_phases.isEmpty())
+			sb.append(", no reasoning");
+		for(ReasonerPhase phase : _phases)
+			sb.append(", ").append(phase).append(' ').append(getMillis(phase)).append(" ms");
+		sb.append(", ").append(_triples).append(" triples");
+		long change = getTriplesChange();
+		if(change != 0)
+			sb.append(String.format(" (%+d)", change));
+		return sb.toString();
+	}
+
+	/**
+	 * State of the reasoner at some point of a call
+	 */
+	static final class Snapshot
+	{
+		final long _time = System.nanoTime();
+		final long _triples;
+		final KnowledgeBase _kb;
+		final long[] _counts = new long[PHASES.length];
+		final long[] _totals = new long[PHASES.length];
+
+		/**
+		 * Reads the size of the model and the timers of its reasoner. The model is not modified.
+		 * @param model current model, or null if OntoBridge has not been initialized
+		 */
+		Snapshot(OntModel model)
+		{
+			_triples = (model == null) ? 0 : model.getBaseModel().size();
+			_kb = (model != null && model.getGraph() instanceof PelletInfGraph) ? ((PelletInfGraph)model.getGraph()).getKB() : null;
+			if(_kb == null)
+				return;
+			for(int i = 0; i < PHASES.length; i++)
+				for(String name : PHASES[i].getTimers())
+				{
+					Timer timer = _kb.timers.getTimer(name);
+					if(timer == null)
+						continue;
+					_counts[i] += timer.getCount();
+					_totals[i] += timer.getTotal();
+				}
+		}
+	}
+}
@@ -0,0 +1,78 @@
+/**
+ * OntoBride library.
+ * GAIA - Group for Artifical Intelligence Applications
+ * Departamento de Ingeniería del Software e Inteligencia Artificial
+ * Universidad Complutense de Madrid
+ *
+ * Licensed under the terms of the GNU Library or Lesser General Public License (LGPL)
+ *
+ * This software is a subproject of the jCOLIBRI framework
+ * http://sourceforge.net/projects/jcolibri-cbr/
+ * http://gaia.fdi.ucm.es/projects/jcolibri/
+ *
+ * File: ResourceRef.java
+ * 18/10/2026
+ */
+package ucm.gaia.ontobridge;
+
+import com.hp.hpl.jena.rdf.model.Resource;
+
+/**
+ * Handle to an element of the ontology returned by the typed API of OntoBridge.<br>
+ * A handle is resolved once, when it is obtained, and can be passed back to OntoBridge
+ * without resolving any name again. Strings are only obtained when asked for with getURI().
+ * Two handles are equal if they point to the same resource.
+ */
+public abstract class ResourceRef {
+
+	protected final Resource _resource;
+
+	ResourceRef(Resource resource)
+	{
+		_resource = resource;
+	}
+
+	/**
+	 * Returns the JENA resource of this handle
+	 */
+	public Resource getResource()
+	{
+		return _resource;
+	}
+
+	/**
+	 * Returns the URI of the element or null if it is anonymous
+	 */
+	public String getURI()
+	{
+		return _resource.getURI();
+	}
+
+	/**
+	 * Checks if the element is anonymous
+	 */
+	public boolean isAnon()
+	{
+		return _resource.isAnon();
+	}
+
+	/**
+	 * Returns the same representation used by the String API of OntoBridge
+	 */
+	public String toString()
+	{
+		return _resource.toString();
+	}
+
+	public boolean equals(Object o)
+	{
+		if(o == null || o.getClass() != getClass())
+			return false;
+		return _resource.equals(((ResourceRef)o)._resource);
+	}
+
+	public int hashCode()
+	{
+		return _resource.hashCode();
+	}
+}
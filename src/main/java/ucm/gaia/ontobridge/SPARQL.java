@@ -23,10 +23,25 @@ package ucm.gaia.ontobridge;
 import com.hp.hpl.jena.ontology.OntModel;
 import com.hp.hpl.jena.query.*;
 import com.hp.hpl.jena.rdf.model.Model;
+import ucm.gaia.ontobridge.util.LRUCache;
 
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 
 /**
  * This class allows to ask SPARQL queries to the reasoner
@@ -34,12 +49,209 @@ import java.util.List;
  */
 public class SPARQL {
 	
+	/** Default maximum number of parsed queries kept in the cache */
+	public static final int DEFAULT_QUERY_CACHE_SIZE = 256;
+	
+	private OntoBridge _ob;
 	private OntModel ONT_MODEL;
 	
+	/** Parsed queries indexed by their text */
+	private LRUCache<String, Query> _queries = new LRUCache<String, Query>(DEFAULT_QUERY_CACHE_SIZE);
+	
+	private final AtomicLong _parseCount = new AtomicLong();
+	private final AtomicLong _parseTime = new AtomicLong();
+	private final AtomicLong _execCount = new AtomicLong();
+	private final AtomicLong _execTime = new AtomicLong();
+	private final AtomicLong _timeoutCount = new AtomicLong();
+	private final AtomicLong _cancelCount = new AtomicLong();
+	
+	/** Timeout applied to the executions without their own timeout, in milliseconds */
+	private volatile long _defaultTimeout = 0;
+	
+	/** Executor of the asynchronous queries. Created on first use if it is not set */
+	private volatile Executor _executor = null;
+	
+	/** Executions aborted with cancel(), to tell cancellations from timeouts */
+	private final Set<QueryExecution> _aborted = Collections.synchronizedSet(
+			Collections.newSetFromMap(new WeakHashMap<QueryExecution, Boolean>()));
+	
+	private final LRUCache.Loader<String, Query> _parser = new LRUCache.Loader<String, Query>() {
+		public Query load(String queryStr) {
+			long start = System.nanoTime();
+			Query query = QueryFactory.create(queryStr);
+			long elapsed = System.nanoTime() - start;
+			_parseTime.addAndGet(elapsed);
+			_parseCount.incrementAndGet();
+			OntologyMetrics metrics = _ob.getMetrics();
+			if(metrics != null)
+				metrics.record("sparql.parse", elapsed);
+			return query;
+		}};
+	
 	public SPARQL(OntoBridge ob){
+		_ob = ob;
 		ONT_MODEL = ob.getModel();
 	}
 	
+	/**************************************************************/
+	/*                Prepared queries                            */
+	/**************************************************************/
+	
+	/**
+	 * Prepares a query for execution. The query is parsed only the first time;
+	 * parsed queries are kept in a bounded cache indexed by the query text.<br>
+	 * Variables of the query can be bound before executing it, so templated queries
+	 * do not need to be built by concatenating strings:
+	 * <pre>
+	 * PreparedQuery pq = sparql.prepare("SELECT ?p ?v WHERE { ?i ?p ?v }");
+	 * pq.setIri("i", "http://gaia.fdi.ucm.es/ontologies/fotos.owl#Foto_1");
+	 * Iterator&lt;QuerySolution&gt; res = pq.execSelect();
+	 * </pre>
+	 * @param queryStr text of the query
+	 */
+	public PreparedQuery prepare(String queryStr)
+	{
+		return new PreparedQuery(this, parse(queryStr));
+	}
+	
+	/**
+	 * Returns the parsed query, using the cache.
+	 * The sub-ontologies not read yet that the query uses are read first.
+	 */
+	protected Query parse(String queryStr)
+	{
+		_ob.loadSubOntologiesOfQuery(queryStr);
+		return _queries.get(queryStr, _parser);
+	}
+	
+	/**
+	 * Creates the execution of a query over the ontology model.
+	 * @param bindings initial values of the variables. May be null.
+	 * @param timeout maximum execution time in milliseconds. If 0 the default timeout is used.
+	 */
+	protected QueryExecution createExecution(Query query, QuerySolution bindings, long timeout)
+	{
+		QueryExecution qe;
+		if(bindings == null)
+			qe = QueryExecutionFactory.create(query, ONT_MODEL);
+		else
+			qe = QueryExecutionFactory.create(query, ONT_MODEL, bindings);
+		if(timeout <= 0)
+			timeout = _defaultTimeout;
+		if(timeout > 0)
+			qe.setTimeout(timeout, TimeUnit.MILLISECONDS);
+		return qe;
+	}
+	
+	/**
+	 * Aborts an execution. It can be invoked from any thread.
+	 */
+	void cancel(QueryExecution qe)
+	{
+		_aborted.add(qe);
+		qe.abort();
+	}
+	
+	/**
+	 * Accounts an execution that was stopped by a timeout or by cancel()
+	 */
+	void interrupted(QueryExecution qe)
+	{
+		if(_aborted.remove(qe))
+			_cancelCount.incrementAndGet();
+		else
+			_timeoutCount.incrementAndGet();
+	}
+	
+	/**
+	 * Sets the timeout applied to the queries that do not set their own timeout.
+	 * A query that exceeds it is stopped with a QueryCancelledException.
+	 * @param timeout maximum execution time in milliseconds. 0 means no timeout.
+	 */
+	public void setDefaultTimeout(long timeout)
+	{
+		_defaultTimeout = Math.max(timeout, 0);
+	}
+	
+	/**
+	 * Returns the default timeout in milliseconds (0 if there is no timeout)
+	 */
+	public long getDefaultTimeout()
+	{
+		return _defaultTimeout;
+	}
+	
+	/**
+	 * Number of queries stopped because they exceeded their timeout
+	 */
+	public long getTimeoutCount()
+	{
+		return _timeoutCount.get();
+	}
+	
+	/**
+	 * Number of queries stopped with cancel()
+	 */
+	public long getCancelCount()
+	{
+		return _cancelCount.get();
+	}
+	
+	/**
+	 * Accounts the execution time of a query
+	 * @param start value of System.nanoTime() when the execution started
+	 */
+	protected void executed(long start)
+	{
+		long elapsed = System.nanoTime() - start;
+		_execTime.addAndGet(elapsed);
+		_execCount.incrementAndGet();
+		OntologyMetrics metrics = _ob.getMetrics();
+		if(metrics != null)
+			metrics.record("sparql.execute", elapsed);
+	}
+	
+	/**
+	 * Returns the cache of parsed queries. It gives access to the hit/miss counters 
+	 * and allows changing its size.
+	 */
+	public LRUCache<String, Query> getQueryCache()
+	{
+		return _queries;
+	}
+	
+	/**
+	 * Number of queries parsed (cache misses)
+	 */
+	public long getParseCount()
+	{
+		return _parseCount.get();
+	}
+	
+	/**
+	 * Total time spent parsing queries, in nanoseconds
+	 */
+	public long getParseTime()
+	{
+		return _parseTime.get();
+	}
+	
+	/**
+	 * Number of queries executed
+	 */
+	public long getExecutionCount()
+	{
+		return _execCount.get();
+	}
+	
+	/**
+	 * Total time spent executing queries (parsing excluded), in nanoseconds
+	 */
+	public long getExecutionTime()
+	{
+		return _execTime.get();
+	}
+	
 	/**************************************************************/
 	/*                SPARQL queries                              */
 	/**************************************************************/
@@ -49,17 +261,32 @@ public class SPARQL {
 	 * if the query has any results and false if there are no matches.
 	 */
 	public boolean execAskQuery(String queryStr) {
-		// Create a new query
-		Query query = QueryFactory.create(queryStr);
-
-		// Execute the query and obtain results
-		QueryExecution qe = QueryExecutionFactory.create(query, ONT_MODEL);
-		boolean res = qe.execAsk();
-
-		// Important - free up resources used running the query
-		qe.close();
-		
-		return res;
+		return execAsk(createExecution(parse(queryStr), null, 0));
+	}
+	
+	/**
+	 * Executes a SPARQL query of type ASK that is stopped with a QueryCancelledException
+	 * if it takes more than timeout milliseconds.
+	 */
+	public boolean execAskQuery(String queryStr, long timeout) {
+		return execAsk(createExecution(parse(queryStr), null, timeout));
+	}
+	
+	boolean execAsk(QueryExecution qe) {
+		long start = System.nanoTime();
+		OntoBridge.Operation op = _ob.beginRead("SPARQL.execAskQuery");
+		try {
+			// Execute the query and obtain results
+			return qe.execAsk();
+		} catch(QueryCancelledException e) {
+			interrupted(qe);
+			throw e;
+		} finally {
+			// Important - free up resources used running the query
+			qe.close();
+			_ob.endRead(op);
+			executed(start);
+		}
 	}
 	
 	/**
@@ -90,22 +317,75 @@ public class SPARQL {
 	 * </pre>
 	 */
 	public Iterator<QuerySolution> execSelectQuery(String queryStr) {
-		// Create a new query
-		Query query = QueryFactory.create(queryStr);
-
-		// Execute the query and obtain results
-		QueryExecution qe = QueryExecutionFactory.create(query, ONT_MODEL);
-		ResultSet results = qe.execSelect();
-		
-		// Copy the results to a list.
-		List<QuerySolution> res = new LinkedList<QuerySolution>();
-		while(results.hasNext())
-			res.add(results.nextSolution());
-
-		// Important - free up resources used running the query
-		qe.close();
-		
-		return res.iterator();
+		return execSelect(createExecution(parse(queryStr), null, 0));
+	}
+	
+	/**
+	 * Executes a SPARQL query of type SELECT that is stopped with a QueryCancelledException
+	 * if it takes more than timeout milliseconds.
+	 */
+	public Iterator<QuerySolution> execSelectQuery(String queryStr, long timeout) {
+		return execSelect(createExecution(parse(queryStr), null, timeout));
+	}
+	
+	Iterator<QuerySolution> execSelect(QueryExecution qe) {
+		long start = System.nanoTime();
+		OntoBridge.Operation op = _ob.beginRead("SPARQL.execSelectQuery");
+		try {
+			// Execute the query and obtain results
+			ResultSet results = qe.execSelect();
+			
+			// Copy the results to a list.
+			List<QuerySolution> res = new LinkedList<QuerySolution>();
+			while(results.hasNext())
+				res.add(results.nextSolution());
+			
+			return res.iterator();
+		} catch(QueryCancelledException e) {
+			interrupted(qe);
+			throw e;
+		} finally {
+			// Important - free up resources used running the query
+			qe.close();
+			_ob.endRead(op);
+			executed(start);
+		}
+	}
+	
+	/**
+	 * Executes a SPARQL query of type SELECT and returns its results without copying them.
+	 * Solutions are computed as they are read, so the first one is available as soon as 
+	 * the engine finds it and memory does not grow with the number of solutions.<br>
+	 * The returned object owns the query execution: it must be closed if it is not read
+	 * until the end.<br>
+	 * The results are read without holding the lock of a concurrent OntoBridge. The caller 
+	 * must hold its read lock (OntoBridge.getLock()) while reading them if the ontology 
+	 * can be modified at the same time.
+	 */
+	public QueryResults execSelectQueryStreaming(String queryStr) {
+		return execSelectStreaming(createExecution(parse(queryStr), null, 0), -1);
+	}
+	
+	/**
+	 * Executes a SPARQL query of type SELECT and returns at most limit solutions 
+	 * without copying them. The execution is closed when the limit is reached.
+	 * @see #execSelectQueryStreaming(String)
+	 */
+	public QueryResults execSelectQueryStreaming(String queryStr, long limit) {
+		return execSelectStreaming(createExecution(parse(queryStr), null, 0), limit);
+	}
+	
+	QueryResults execSelectStreaming(QueryExecution qe, long limit) {
+		long start = System.nanoTime();
+		try {
+			return new QueryResults(this, qe, limit, start);
+		} catch(RuntimeException e) {
+			if(e instanceof QueryCancelledException)
+				interrupted(qe);
+			qe.close();
+			executed(start);
+			throw e;
+		}
 	}
 	
 	/**
@@ -113,18 +393,28 @@ public class SPARQL {
 	 * in the specified stream (usually System.out)
 	 */
 	public void execSelectQueryAndPrint(String queryStr, java.io.PrintStream outStream) {
-		// Create a new query
-		Query query = QueryFactory.create(queryStr);
-
-		// Execute the query and obtain results
-		QueryExecution qe = QueryExecutionFactory.create(query, ONT_MODEL);
-		ResultSet results = qe.execSelect();
-		
-		// Output query results	
-		ResultSetFormatter.out(outStream, results, query);
-
-		// Important - free up resources used running the query
-		qe.close();
+		Query query = parse(queryStr);
+		execSelectAndPrint(createExecution(query, null, 0), query, outStream);
+	}
+	
+	void execSelectAndPrint(QueryExecution qe, Query query, java.io.PrintStream outStream) {
+		long start = System.nanoTime();
+		OntoBridge.Operation op = _ob.beginRead("SPARQL.execSelectQueryAndPrint");
+		try {
+			// Execute the query and obtain results
+			ResultSet results = qe.execSelect();
+			
+			// Output query results	
+			ResultSetFormatter.out(outStream, results, query);
+		} catch(QueryCancelledException e) {
+			interrupted(qe);
+			throw e;
+		} finally {
+			// Important - free up resources used running the query
+			qe.close();
+			_ob.endRead(op);
+			executed(start);
+		}
 	}
 
 	/**
@@ -132,17 +422,32 @@ public class SPARQL {
 	 * with the results.
 	 */
 	public Model execConstructQuery(String queryStr) {
-		// Create a new query
-		Query query = QueryFactory.create(queryStr);
-
-		// Execute the query and obtain results
-		QueryExecution qe = QueryExecutionFactory.create(query, ONT_MODEL);
-		Model model = qe.execConstruct();
-		
-		// Important - free up resources used running the query
-		qe.close();
-		
-		return model;
+		return execConstruct(createExecution(parse(queryStr), null, 0));
+	}
+	
+	/**
+	 * Executes a SPARQL query of type CONSTRUCT that is stopped with a QueryCancelledException
+	 * if it takes more than timeout milliseconds.
+	 */
+	public Model execConstructQuery(String queryStr, long timeout) {
+		return execConstruct(createExecution(parse(queryStr), null, timeout));
+	}
+	
+	Model execConstruct(QueryExecution qe) {
+		long start = System.nanoTime();
+		OntoBridge.Operation op = _ob.beginRead("SPARQL.execConstructQuery");
+		try {
+			// Execute the query and obtain results
+			return qe.execConstruct();
+		} catch(QueryCancelledException e) {
+			interrupted(qe);
+			throw e;
+		} finally {
+			// Important - free up resources used running the query
+			qe.close();
+			_ob.endRead(op);
+			executed(start);
+		}
 	}
 	
 	/**
@@ -161,16 +466,236 @@ public class SPARQL {
 	 * is an abbreviation that identifies all of the variables in a query.
 	 */
 	public Model execDescribeQuery(String queryStr) {
-		// Create a new query
-		Query query = QueryFactory.create(queryStr);
-
-		// Execute the query and obtain results
-		QueryExecution qe = QueryExecutionFactory.create(query, ONT_MODEL);
-		Model model = qe.execDescribe();
-		
-		// Important - free up resources used running the query
-		qe.close();
-		
-		return model;
+		return execDescribe(createExecution(parse(queryStr), null, 0));
+	}
+	
+	/**
+	 * Executes a SPARQL query of type DESCRIBE that is stopped with a QueryCancelledException
+	 * if it takes more than timeout milliseconds.
+	 */
+	public Model execDescribeQuery(String queryStr, long timeout) {
+		return execDescribe(createExecution(parse(queryStr), null, timeout));
+	}
+	
+	Model execDescribe(QueryExecution qe) {
+		long start = System.nanoTime();
+		OntoBridge.Operation op = _ob.beginRead("SPARQL.execDescribeQuery");
+		try {
+			// Execute the query and obtain results
+			return qe.execDescribe();
+		} catch(QueryCancelledException e) {
+			interrupted(qe);
+			throw e;
+		} finally {
+			// Important - free up resources used running the query
+			qe.close();
+			_ob.endRead(op);
+			executed(start);
+		}
 	}	
+	
+	/**************************************************************/
+	/*                Asynchronous execution                      */
+	/**************************************************************/
+	
+	/** Default maximum number of asynchronous queries waiting for a thread */
+	public static final int DEFAULT_QUEUE_CAPACITY = 1000;
+	
+	/**
+	 * Creates a bounded executor for the asynchronous queries.
+	 * @param threads maximum number of queries executed at the same time
+	 * @param queueCapacity maximum number of queries waiting for a thread
+	 * @param rejection what to do with a query when the queue is full. With 
+	 *        ThreadPoolExecutor.AbortPolicy the future fails with a RejectedExecutionException, 
+	 *        with ThreadPoolExecutor.CallerRunsPolicy the query runs in the calling thread. 
+	 *        Policies that discard the query leave its future uncompleted.
+	 * @param virtualThreads use virtual threads if the JVM supports them (Java 21+). 
+	 *        Otherwise daemon platform threads are used.
+	 */
+	public static ThreadPoolExecutor newBoundedExecutor(int threads, int queueCapacity, 
+			RejectedExecutionHandler rejection, boolean virtualThreads)
+	{
+		ThreadFactory factory = virtualThreads ? virtualThreadFactory() : null;
+		if(factory == null)
+			factory = new ThreadFactory() {
+				private final AtomicInteger _count = new AtomicInteger();
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "ontobridge-sparql-" + _count.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				}};
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<Runnable>(queueCapacity), factory, rejection);
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+	
+	/**
+	 * Returns a factory of virtual threads, or null if the JVM does not support them.
+	 * Reflection is used so the library still runs on Java 8.
+	 */
+	private static ThreadFactory virtualThreadFactory()
+	{
+		try {
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "ontobridge-sparql-", 1L);
+			return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+		} catch(Exception e) {
+			return null;
+		}
+	}
+	
+	/**
+	 * Sets the executor of the asynchronous queries. If the OntoBridge is not concurrent
+	 * the executor must not run several queries at the same time.
+	 */
+	public void setExecutor(Executor executor)
+	{
+		_executor = executor;
+	}
+	
+	/**
+	 * Returns the executor of the asynchronous queries. By default it is a bounded executor
+	 * with one thread per processor, a queue of DEFAULT_QUEUE_CAPACITY queries that rejects 
+	 * the queries when it is full, and virtual threads when they are available.
+	 * If the OntoBridge is not concurrent nothing prevents the model from being read by several
+	 * threads at once, so the default executor has a single thread.
+	 */
+	public Executor getExecutor()
+	{
+		Executor executor = _executor;
+		if(executor == null)
+		{
+			synchronized(this)
+			{
+				if(_executor == null)
+					_executor = newBoundedExecutor(_ob.isConcurrent() ? Runtime.getRuntime().availableProcessors() : 1, 
+							DEFAULT_QUEUE_CAPACITY, new ThreadPoolExecutor.AbortPolicy(), true);
+				executor = _executor;
+			}
+		}
+		return executor;
+	}
+	
+	/**
+	 * Task that executes a query
+	 */
+	interface Execution<T>
+	{
+		T exec(QueryExecution qe);
+	}
+	
+	/**
+	 * Runs an execution in the executor. Cancelling the returned future aborts the execution.
+	 * If the executor rejects it, the future fails with a RejectedExecutionException.
+	 */
+	<T> CompletableFuture<T> submit(final QueryExecution qe, final Execution<T> task)
+	{
+		final CompletableFuture<T> future = new CompletableFuture<T>();
+		future.whenComplete(new BiConsumer<T, Throwable>() {
+			public void accept(T res, Throwable e) {
+				if(future.isCancelled())
+					cancel(qe);
+			}});
+		try {
+			getExecutor().execute(new Runnable() {
+				public void run() {
+					if(future.isDone())
+					{
+						qe.close();
+						return;
+					}
+					try {
+						future.complete(task.exec(qe));
+					} catch(Throwable e) {
+						future.completeExceptionally(e);
+					}
+				}});
+		} catch(RejectedExecutionException e) {
+			qe.close();
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+	
+	final Execution<Boolean> ASK = new Execution<Boolean>() {
+		public Boolean exec(QueryExecution qe) {
+			return execAsk(qe);
+		}};
+	
+	final Execution<Iterator<QuerySolution>> SELECT = new Execution<Iterator<QuerySolution>>() {
+		public Iterator<QuerySolution> exec(QueryExecution qe) {
+			return execSelect(qe);
+		}};
+	
+	final Execution<Model> CONSTRUCT = new Execution<Model>() {
+		public Model exec(QueryExecution qe) {
+			return execConstruct(qe);
+		}};
+	
+	final Execution<Model> DESCRIBE = new Execution<Model>() {
+		public Model exec(QueryExecution qe) {
+			return execDescribe(qe);
+		}};
+	
+	/**
+	 * Executes a SPARQL query of type ASK in the executor.
+	 * If the OntoBridge is concurrent several queries can run at the same time, and the ontology 
+	 * is locked while they run. Otherwise the queries run one after another, and the ontology
+	 * must not be used by other threads until they finish.
+	 */
+	public CompletableFuture<Boolean> execAskQueryAsync(String queryStr) {
+		return execAskQueryAsync(queryStr, 0);
+	}
+	
+	/**
+	 * Executes a SPARQL query of type ASK in the executor with a timeout in milliseconds
+	 */
+	public CompletableFuture<Boolean> execAskQueryAsync(String queryStr, long timeout) {
+		return submit(createExecution(parse(queryStr), null, timeout), ASK);
+	}
+	
+	/**
+	 * Executes a SPARQL query of type SELECT in the executor.
+	 * @see #execSelectQuery(String)
+	 */
+	public CompletableFuture<Iterator<QuerySolution>> execSelectQueryAsync(String queryStr) {
+		return execSelectQueryAsync(queryStr, 0);
+	}
+	
+	/**
+	 * Executes a SPARQL query of type SELECT in the executor with a timeout in milliseconds
+	 */
+	public CompletableFuture<Iterator<QuerySolution>> execSelectQueryAsync(String queryStr, long timeout) {
+		return submit(createExecution(parse(queryStr), null, timeout), SELECT);
+	}
+	
+	/**
+	 * Executes a SPARQL query of type CONSTRUCT in the executor.
+	 */
+	public CompletableFuture<Model> execConstructQueryAsync(String queryStr) {
+		return execConstructQueryAsync(queryStr, 0);
+	}
+	
+	/**
+	 * Executes a SPARQL query of type CONSTRUCT in the executor with a timeout in milliseconds
+	 */
+	public CompletableFuture<Model> execConstructQueryAsync(String queryStr, long timeout) {
+		return submit(createExecution(parse(queryStr), null, timeout), CONSTRUCT);
+	}
+	
+	/**
+	 * Executes a SPARQL query of type DESCRIBE in the executor.
+	 */
+	public CompletableFuture<Model> execDescribeQueryAsync(String queryStr) {
+		return execDescribeQueryAsync(queryStr, 0);
+	}
+	
+	/**
+	 * Executes a SPARQL query of type DESCRIBE in the executor with a timeout in milliseconds
+	 */
+	public CompletableFuture<Model> execDescribeQueryAsync(String queryStr, long timeout) {
+		return submit(createExecution(parse(queryStr), null, timeout), DESCRIBE);
+	}
 }
@@ -0,0 +1,71 @@
+/**
+ * OntoBride library.
+ * GAIA - Group for Artifical Intelligence Applications
+ * Departamento de Ingeniería del Software e Inteligencia Artificial
+ * Universidad Complutense de Madrid
+ *
+ * Licensed under the terms of the GNU Library or Lesser General Public License (LGPL)
+ *
+ * This software is a subproject of the jCOLIBRI framework
+ * http://sourceforge.net/projects/jcolibri-cbr/
+ * http://gaia.fdi.ucm.es/projects/jcolibri/
+ *
+ * File: SerializationFormat.java
+ * 18/10/2026
+ */
+package ucm.gaia.ontobridge;
+
+/**
+ * Formats used by OntoBridge.save() to write the ontology.<br>
+ * N_TRIPLES, TURTLE and BINARY are streamed: statements are written one by one as they are
+ * read from the model, so the memory used does not depend on the size of the model.
+ * RDF_XML_ABBREV analyses the whole model to nest the descriptions and is the slowest one.
+ */
+public enum SerializationFormat {
+
+	/** Abbreviated RDF/XML, as written by save(FileWriter) */
+	RDF_XML_ABBREV("RDF/XML-ABBREV", ".owl", false),
+	/** Plain RDF/XML: one description per statement */
+	RDF_XML("RDF/XML", ".rdf", false),
+	/** N-Triples: one statement per line, ASCII */
+	N_TRIPLES("N-TRIPLE", ".nt", true),
+	/** Turtle with the namespace prefixes of the model. Consecutive statements of a subject are grouped. */
+	TURTLE("TURTLE", ".ttl", true),
+	/** Binary format of BinaryGraph, only readable by OntoBridge.loadBinary() */
+	BINARY(null, ".bin", true);
+
+	private final String _jenaName;
+	private final String _extension;
+	private final boolean _streaming;
+
+	private SerializationFormat(String jenaName, String extension, boolean streaming)
+	{
+		_jenaName = jenaName;
+		_extension = extension;
+		_streaming = streaming;
+	}
+
+	/**
+	 * Name of the format in JENA, or null if JENA does not know it
+	 */
+	public String getJenaName()
+	{
+		return _jenaName;
+	}
+
+	/**
+	 * Usual extension of the files with this format
+	 */
+	public String getExtension()
+	{
+		return _extension;
+	}
+
+	/**
+	 * Returns true if the statements are written one by one
+	 */
+	public boolean isStreaming()
+	{
+		return _streaming;
+	}
+}
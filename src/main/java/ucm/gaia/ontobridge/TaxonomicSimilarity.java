@@ -0,0 +1,230 @@
+/**
+ * OntoBride library.
+ * GAIA - Group for Artifical Intelligence Applications
+ * Departamento de Ingeniería del Software e Inteligencia Artificial
+ * Universidad Complutense de Madrid
+ *
+ * Licensed under the terms of the GNU Library or Lesser General Public License (LGPL)
+ *
+ * This software is a subproject of the jCOLIBRI framework
+ * http://sourceforge.net/projects/jcolibri-cbr/
+ * http://gaia.fdi.ucm.es/projects/jcolibri/
+ *
+ * File: TaxonomicSimilarity.java
+ * 18/10/2026
+ */
+package ucm.gaia.ontobridge;
+
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Read-only snapshot of the taxonomic information of a collection of instances (the case base)
+ * that allows scoring query instances against all of them in bulk.<br>
+ * The classes and depths of the case instances are resolved once, when the snapshot is created.
+ * Scoring only works over primitive arrays and the immutable hierarchy index,
+ * so it is split across the cores with a ForkJoinPool.<br>
+ * The snapshot reflects the ontology when it was created. Later changes are not seen: the queries are
+ * resolved against the hierarchy of the snapshot, not the current one.
+ * <pre>
+ * TaxonomicSimilarity cb = ob.taxonomicSimilarity(caseInstances);
+ * double[] scores = cb.wuPalmer("Restaurant_1");
+ * </pre>
+ */
+public class TaxonomicSimilarity {
+
+	/** Number of cases scored sequentially by each fork-join task */
+	private static final int THRESHOLD = 2048;
+
+	private final OntoBridge _ob;
+	private final HierarchyIndex _index;
+	private final String[] _cases;
+	private final int[][] _closures;
+	private final int[] _profs;
+	private final ForkJoinPool _pool;
+
+	TaxonomicSimilarity(OntoBridge ob, Collection<String> cases, ForkJoinPool pool)
+	{
+		_ob = ob;
+		_pool = pool;
+		_cases = cases.toArray(new String[cases.size()]);
+		_closures = new int[_cases.length][];
+		_profs = new int[_cases.length];
+		// The ontology model is not thread safe, so instances are resolved sequentially
+		ob.beginRead();
+		try {
+			_index = ob.hierarchy();
+			for(int i=0; i<_cases.length; i++)
+			{
+				_closures[i] = ob.typeClosure(_cases[i], _index);
+				_profs[i] = ob.profInstance(_cases[i], _index);
+			}
+		} finally {
+			ob.endRead();
+		}
+	}
+
+	/**
+	 * Number of case instances
+	 */
+	public int size()
+	{
+		return _cases.length;
+	}
+
+	/**
+	 * Returns the case instances in the order used by the result arrays
+	 */
+	public String[] getCases()
+	{
+		return _cases.clone();
+	}
+
+	/**
+	 * Returns the profundity of every case instance (see OntoBridge.profInstance)
+	 */
+	public int[] profInstances()
+	{
+		return _profs.clone();
+	}
+
+	/**
+	 * Returns the maximum profundity of the Least Common Subsumers of the query and each case.
+	 * @param query query instance
+	 */
+	public int[] maxProfLCS(String query)
+	{
+		final int[] q = typeClosure(query);
+		final int[] res = new int[_cases.length];
+		run(new Scorer() {
+			public void score(int i) {
+				res[i] = _index.maxCommonDepth(q, _closures[i]);
+			}});
+		return res;
+	}
+
+	/**
+	 * Returns the Wu-Palmer similarity between the query and each case:
+	 * 2*maxProfLCS(query,case) / (profInstance(query)+profInstance(case)).
+	 * Instances without any type in the hierarchy score 0.
+	 * @param query query instance
+	 */
+	public double[] wuPalmer(String query)
+	{
+		final int[] q = typeClosure(query);
+		final int qProf = profInstance(query);
+		final double[] res = new double[_cases.length];
+		run(new Scorer() {
+			public void score(int i) {
+				res[i] = wuPalmer(_index.maxCommonDepth(q, _closures[i]), qProf, _profs[i]);
+			}});
+		return res;
+	}
+
+	/**
+	 * Returns the Wu-Palmer similarity matrix between several queries and the cases.
+	 * Row i contains the similarities of the i-th query.
+	 * @param queries query instances
+	 */
+	public double[][] wuPalmer(Collection<String> queries)
+	{
+		final String[] qs = queries.toArray(new String[queries.size()]);
+		final int[][] q = new int[qs.length][];
+		final int[] qProf = new int[qs.length];
+		for(int i=0; i<qs.length; i++)
+		{
+			q[i] = typeClosure(qs[i]);
+			qProf[i] = profInstance(qs[i]);
+		}
+		final double[][] res = new double[qs.length][_cases.length];
+		run(new Scorer() {
+			public void score(int i) {
+				for(int k=0; k<qs.length; k++)
+					res[k][i] = wuPalmer(_index.maxCommonDepth(q[k], _closures[i]), qProf[k], _profs[i]);
+			}});
+		return res;
+	}
+
+	/**
+	 * Classes of a query instance in the hierarchy of the snapshot
+	 */
+	private int[] typeClosure(String instance)
+	{
+		_ob.beginRead();
+		try {
+			return _ob.typeClosure(instance, _index);
+		} finally {
+			_ob.endRead();
+		}
+	}
+
+	/**
+	 * Depth of a query instance in the hierarchy of the snapshot
+	 */
+	private int profInstance(String instance)
+	{
+		_ob.beginRead();
+		try {
+			return _ob.profInstance(instance, _index);
+		} finally {
+			_ob.endRead();
+		}
+	}
+
+	private static double wuPalmer(int lcs, int prof1, int prof2)
+	{
+		// A depth of 0 means the instance has no type in the hierarchy
+		if(lcs <= 0 || prof1 <= 0 || prof2 <= 0)
+			return 0;
+		return (2.0*lcs) / (prof1+prof2);
+	}
+
+	private void run(Scorer scorer)
+	{
+		if(_cases.length <= THRESHOLD)
+			for(int i=0; i<_cases.length; i++)
+				scorer.score(i);
+		else
+			_pool.invoke(new ScoreTask(scorer, 0, _cases.length));
+	}
+
+	/**
+	 * Computes the score of one case
+	 */
+	private interface Scorer
+	{
+		void score(int i);
+	}
+
+	/**
+	 * Splits the range of cases until it is small enough to be scored sequentially
+	 */
+	private static class ScoreTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final Scorer _scorer;
+		private final int _from;
+		private final int _to;
+
+		ScoreTask(Scorer scorer, int from, int to)
+		{
+			_scorer = scorer;
+			_from = from;
+			_to = to;
+		}
+
+		protected void compute()
+		{
+			if(_to - _from <= THRESHOLD)
+			{
+				for(int i=_from; i<_to; i++)
+					_scorer.score(i);
+				return;
+			}
+			int mid = (_from + _to) >>> 1;
+			invokeAll(new ScoreTask(_scorer, _from, mid), new ScoreTask(_scorer, mid, _to));
+		}
+	}
+}
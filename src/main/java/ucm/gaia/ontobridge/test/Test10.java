@@ -0,0 +1,126 @@
+/**
+ * OntoBride library
+ * Departamento de Ingeniería del Software e Inteligencia Artificial
+ * Universidad Complutense de Madrid
+ *
+ * Licensed under the terms of the GNU Library or Lesser General Public License (LGPL)
+ *
+ * This software is a subproject of the jCOLIBRI framework
+ * http://sourceforge.net/projects/jcolibri-cbr/
+ * http://gaia.fdi.ucm.es/projects/jcolibri/
+ *
+ * File: Test10.java
+ * 18/10/2026
+ */
+package ucm.gaia.ontobridge.test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ucm.gaia.ontobridge.OntoBridge;
+import ucm.gaia.ontobridge.OntologyDocument;
+
+/**
+ * File used for testing the library using the GAIA restaurants ontology.<br>
+ * This test stresses a concurrent OntoBridge: several threads read the ontology while
+ * another one creates and deletes instances. It prints the read throughput for an
+ * increasing number of readers and the number of errors found (it should be 0).
+ */
+public class Test10 {
+
+	static final String NS = "http://gaia.fdi.ucm.es/ontologies/restaurant.owl#";
+	static final long DURATION = 3000;
+
+	public static void main(String args[]) throws Exception
+	{
+		final OntoBridge ob = new OntoBridge(true);
+		ob.initWithPelletReasoner();
+
+		OntologyDocument mainOnto = new OntologyDocument("http://gaia.fdi.ucm.es/ontologies/restaurant.owl","file:test/restaurant.owl");
+
+		ArrayList<OntologyDocument> subOntologies = new ArrayList<OntologyDocument>();
+		subOntologies.add(new OntologyDocument("http://gaia.fdi.ucm.es/ontologies/calendar.owl","file:test/calendar.owl"));
+		subOntologies.add(new OntologyDocument("http://gaia.fdi.ucm.es/ontologies/price.owl","file:test/price.owl"));
+		subOntologies.add(new OntologyDocument("http://gaia.fdi.ucm.es/ontologies/address.owl","file:test/address.owl"));
+		subOntologies.add(new OntologyDocument("http://gaia.fdi.ucm.es/ontologies/contact-details.owl","file:test/contact-details.owl"));
+
+		ob.loadOntology(mainOnto, subOntologies, false);
+
+		final List<String> restaurants = new ArrayList<String>();
+		for(Iterator<String> iter = ob.listInstances("Restaurant"); iter.hasNext();)
+			restaurants.add(iter.next());
+
+		int cores = Runtime.getRuntime().availableProcessors();
+		for(int readers = 1; readers <= Math.max(cores, 4); readers *= 2)
+			run(ob, restaurants, readers);
+	}
+
+	static void run(final OntoBridge ob, final List<String> restaurants, int readers) throws InterruptedException
+	{
+		final AtomicBoolean stop = new AtomicBoolean(false);
+		final AtomicLong reads = new AtomicLong();
+		final AtomicLong writes = new AtomicLong();
+		final AtomicLong errors = new AtomicLong();
+
+		List<Thread> threads = new ArrayList<Thread>();
+		for(int r = 0; r < readers; r++)
+		{
+			final int seed = r;
+			threads.add(new Thread() {
+				public void run() {
+					int i = seed;
+					while(!stop.get())
+					{
+						try {
+							String r1 = restaurants.get(i % restaurants.size());
+							String r2 = restaurants.get((i+1) % restaurants.size());
+							if(!ob.isInstanceOf(r1, "Restaurant"))
+								errors.incrementAndGet();
+							ob.maxProfLCS(r1, r2);
+							for(Iterator<String> iter = ob.listSubClasses("Facility", false); iter.hasNext();)
+								iter.next();
+							for(Iterator<String> iter = ob.listDeclaredInstances("Restaurant"); iter.hasNext();)
+								iter.next();
+							reads.incrementAndGet();
+						} catch(Exception e) {
+							errors.incrementAndGet();
+							e.printStackTrace();
+						}
+						i++;
+					}
+				}});
+		}
+		threads.add(new Thread() {
+			public void run() {
+				int i = 0;
+				while(!stop.get())
+				{
+					try {
+						String name = "StressRestaurant_" + (i++);
+						ob.createInstance("Restaurant", name);
+						if(!ob.existsInstance(name, "Restaurant"))
+							errors.incrementAndGet();
+						ob.delete(name);
+						writes.incrementAndGet();
+						Thread.sleep(10);
+					} catch(Exception e) {
+						errors.incrementAndGet();
+						e.printStackTrace();
+					}
+				}
+			}});
+
+		for(Thread t : threads)
+			t.start();
+		Thread.sleep(DURATION);
+		stop.set(true);
+		for(Thread t : threads)
+			t.join();
+
+		System.out.println(readers + " readers: " + (reads.get()*1000/DURATION) + " reads/s, "
+				+ (writes.get()*1000/DURATION) + " writes/s, " + errors.get() + " errors");
+	}
+}
@@ -0,0 +1,431 @@
+/**
+ * OntoBride library
+ * Departamento de Ingeniería del Software e Inteligencia Artificial
+ * Universidad Complutense de Madrid
+ *
+ * Licensed under the terms of the GNU Library or Lesser General Public License (LGPL)
+ *
+ * This software is a subproject of the jCOLIBRI framework
+ * http://sourceforge.net/projects/jcolibri-cbr/
+ * http://gaia.fdi.ucm.es/projects/jcolibri/
+ *
+ * File: BinaryGraph.java
+ * 18/10/2026
+ */
+package ucm.gaia.ontobridge.util;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.hp.hpl.jena.datatypes.RDFDatatype;
+import com.hp.hpl.jena.datatypes.TypeMapper;
+import com.hp.hpl.jena.graph.Graph;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.shared.PrefixMapping;
+import com.hp.hpl.jena.util.iterator.ExtendedIterator;
+
+/**
+ * Compact binary serialization of a JENA graph.<br>
+ * Every distinct node is written once in a node table and the triples are written as
+ * three int ids, so reading and writing do not parse or build any RDF syntax.
+ * Blank nodes keep their identity inside a file and receive new ids when read.<br>
+ * Layout (big endian):
+ * <pre>
+ * int magic, int version
+ * int prefixes, (string prefix, string uri)*
+ * int nodes, (byte kind, node data)*
+ * int triples, (int subject, int predicate, int object)*
+ * </pre>
+ * Strings are written as an int length followed by the UTF-8 bytes.
+ */
+public class BinaryGraph {
+
+	private static final int MAGIC = 0x4F424752;
+	private static final int VERSION = 1;
+
+	private static final byte URI = 1;
+	private static final byte BLANK = 2;
+	private static final byte PLAIN_LITERAL = 3;
+	private static final byte LANG_LITERAL = 4;
+	private static final byte TYPED_LITERAL = 5;
+
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final int BATCH_SIZE = 4096;
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private BinaryGraph()
+	{
+	}
+
+	/**************************************************************/
+	/*                         Writing                            */
+	/**************************************************************/
+
+	/**
+	 * Writes a graph into a file
+	 * @param prefixes namespace prefixes stored with the graph, or null
+	 * @return the number of triples written
+	 */
+	public static long write(Graph graph, PrefixMapping prefixes, File file) throws IOException
+	{
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.setLength(0);
+			return write(graph, prefixes, raf.getChannel());
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Writes a graph into a channel. The channel is not closed.
+	 * @param prefixes namespace prefixes stored with the graph, or null
+	 * @return the number of triples written
+	 */
+	public static long write(Graph graph, PrefixMapping prefixes, WritableByteChannel channel) throws IOException
+	{
+		//Encode the triples, collecting the distinct nodes in order of appearance
+		HashMap<Node,Integer> ids = new HashMap<Node,Integer>();
+		Node[] nodes = new Node[1024];
+		int[] triples = new int[3*1024];
+		int nodeCount = 0;
+		int count = 0;
+		ExtendedIterator<Triple> iter = graph.find(Node.ANY, Node.ANY, Node.ANY);
+		try {
+			while(iter.hasNext())
+			{
+				Triple t = iter.next();
+				if(3*count+3 > triples.length)
+					triples = Arrays.copyOf(triples, triples.length*2);
+				for(int k=0; k<3; k++)
+				{
+					Node n = (k == 0) ? t.getSubject() : (k == 1) ? t.getPredicate() : t.getObject();
+					Integer id = ids.get(n);
+					if(id == null)
+					{
+						id = nodeCount;
+						ids.put(n, id);
+						if(nodeCount == nodes.length)
+							nodes = Arrays.copyOf(nodes, nodes.length*2);
+						nodes[nodeCount++] = n;
+					}
+					triples[3*count+k] = id;
+				}
+				count++;
+			}
+		} finally {
+			iter.close();
+		}
+
+		Output out = new Output(channel);
+		out.putInt(MAGIC);
+		out.putInt(VERSION);
+
+		Map<String,String> map = (prefixes == null) ? new HashMap<String,String>() : prefixes.getNsPrefixMap();
+		out.putInt(map.size());
+		for(Map.Entry<String,String> e : map.entrySet())
+		{
+			out.putString(e.getKey());
+			out.putString(e.getValue());
+		}
+
+		out.putInt(nodeCount);
+		for(int i=0; i<nodeCount; i++)
+			writeNode(out, nodes[i]);
+
+		out.putInt(count);
+		for(int i=0; i<3*count; i++)
+			out.putInt(triples[i]);
+		out.flush();
+		return count;
+	}
+
+	private static void writeNode(Output out, Node n) throws IOException
+	{
+		if(n.isURI())
+		{
+			out.put(URI);
+			out.putString(n.getURI());
+		}
+		else if(n.isBlank())
+			out.put(BLANK);
+		else if(n.isLiteral())
+		{
+			String lang = n.getLiteralLanguage();
+			String datatype = n.getLiteralDatatypeURI();
+			if(datatype != null)
+			{
+				out.put(TYPED_LITERAL);
+				out.putString(n.getLiteralLexicalForm());
+				out.putString(datatype);
+			}
+			else if(lang != null && lang.length() > 0)
+			{
+				out.put(LANG_LITERAL);
+				out.putString(n.getLiteralLexicalForm());
+				out.putString(lang);
+			}
+			else
+			{
+				out.put(PLAIN_LITERAL);
+				out.putString(n.getLiteralLexicalForm());
+			}
+		}
+		else
+			throw new IOException("Node cannot be stored: " + n);
+	}
+
+	/**************************************************************/
+	/*                         Reading                            */
+	/**************************************************************/
+
+	/**
+	 * Reads a file written by write() into a graph.
+	 * @param into graph where the triples are added
+	 * @param prefixes mapping where the stored prefixes are added, or null
+	 * @param mapped if true the file is memory-mapped instead of read through a buffer
+	 * @return the number of triples read
+	 */
+	public static long read(File file, Graph into, PrefixMapping prefixes, boolean mapped) throws IOException
+	{
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			if(mapped && channel.size() <= Integer.MAX_VALUE)
+				return read(new Input(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())), into, prefixes);
+			return read(channel, into, prefixes);
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Reads a graph from a channel. The channel is not closed.
+	 * @param into graph where the triples are added
+	 * @param prefixes mapping where the stored prefixes are added, or null
+	 * @return the number of triples read
+	 */
+	public static long read(ReadableByteChannel channel, Graph into, PrefixMapping prefixes) throws IOException
+	{
+		return read(new Input(channel), into, prefixes);
+	}
+
+	private static long read(Input in, Graph into, PrefixMapping prefixes) throws IOException
+	{
+		if(in.getInt() != MAGIC)
+			throw new IOException("Not a binary graph");
+		int version = in.getInt();
+		if(version != VERSION)
+			throw new IOException("Unsupported binary graph version: " + version);
+
+		int prefixCount = in.getInt();
+		for(int i=0; i<prefixCount; i++)
+		{
+			String prefix = in.getString();
+			String uri = in.getString();
+			if(prefixes != null)
+				prefixes.setNsPrefix(prefix, uri);
+		}
+
+		Node[] nodes = new Node[in.getInt()];
+		for(int i=0; i<nodes.length; i++)
+			nodes[i] = readNode(in);
+
+		int count = in.getInt();
+		Triple[] batch = new Triple[Math.min(count, BATCH_SIZE)];
+		int size = 0;
+		for(int i=0; i<count; i++)
+		{
+			batch[size++] = Triple.create(node(nodes, in.getInt()), node(nodes, in.getInt()), node(nodes, in.getInt()));
+			if(size == batch.length)
+			{
+				into.getBulkUpdateHandler().add(batch);
+				size = 0;
+			}
+		}
+		if(size > 0)
+			into.getBulkUpdateHandler().add(Arrays.copyOf(batch, size));
+		return count;
+	}
+
+	private static Node node(Node[] nodes, int id) throws IOException
+	{
+		if(id < 0 || id >= nodes.length)
+			throw new IOException("Invalid node id: " + id);
+		return nodes[id];
+	}
+
+	private static Node readNode(Input in) throws IOException
+	{
+		byte kind = in.get();
+		switch(kind)
+		{
+			case URI:
+				return Node.createURI(in.getString());
+			case BLANK:
+				return Node.createAnon();
+			case PLAIN_LITERAL:
+				return Node.createLiteral(in.getString());
+			case LANG_LITERAL:
+				return Node.createLiteral(in.getString(), in.getString(), false);
+			case TYPED_LITERAL:
+				String lex = in.getString();
+				RDFDatatype datatype = TypeMapper.getInstance().getSafeTypeByName(in.getString());
+				return Node.createLiteral(lex, null, datatype);
+			default:
+				throw new IOException("Invalid node kind: " + kind);
+		}
+	}
+
+	/**
+	 * Returns true if the file starts as a binary graph
+	 */
+	public static boolean isBinaryGraph(File file)
+	{
+		try {
+			RandomAccessFile raf = new RandomAccessFile(file, "r");
+			try {
+				return raf.length() >= 4 && raf.readInt() == MAGIC;
+			} finally {
+				raf.close();
+			}
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**************************************************************/
+	/*                         Buffers                            */
+	/**************************************************************/
+
+	private static class Output
+	{
+		private final WritableByteChannel _channel;
+		private final ByteBuffer _buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+		Output(WritableByteChannel channel)
+		{
+			_channel = channel;
+		}
+
+		private void ensure(int n) throws IOException
+		{
+			if(_buffer.remaining() < n)
+				flush();
+		}
+
+		void put(byte b) throws IOException
+		{
+			ensure(1);
+			_buffer.put(b);
+		}
+
+		void putInt(int v) throws IOException
+		{
+			ensure(4);
+			_buffer.putInt(v);
+		}
+
+		void putString(String s) throws IOException
+		{
+			byte[] bytes = s.getBytes(UTF8);
+			putInt(bytes.length);
+			int off = 0;
+			while(off < bytes.length)
+			{
+				if(!_buffer.hasRemaining())
+					flush();
+				int n = Math.min(_buffer.remaining(), bytes.length-off);
+				_buffer.put(bytes, off, n);
+				off += n;
+			}
+		}
+
+		void flush() throws IOException
+		{
+			_buffer.flip();
+			while(_buffer.hasRemaining())
+				_channel.write(_buffer);
+			_buffer.clear();
+		}
+	}
+
+	private static class Input
+	{
+		private final ReadableByteChannel _channel;
+		private final ByteBuffer _buffer;
+
+		Input(ReadableByteChannel channel)
+		{
+			_channel = channel;
+			_buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+			_buffer.flip();
+		}
+
+		/**
+		 * Input over a buffer with the whole content, such as a mapped file
+		 */
+		Input(ByteBuffer content)
+		{
+			_channel = null;
+			_buffer = content;
+		}
+
+		private void ensure(int n) throws IOException
+		{
+			if(_buffer.remaining() >= n)
+				return;
+			if(_channel == null)
+				throw new EOFException();
+			_buffer.compact();
+			while(_buffer.position() < n)
+				if(_channel.read(_buffer) < 0)
+				{
+					_buffer.flip();
+					throw new EOFException();
+				}
+			_buffer.flip();
+		}
+
+		byte get() throws IOException
+		{
+			ensure(1);
+			return _buffer.get();
+		}
+
+		int getInt() throws IOException
+		{
+			ensure(4);
+			return _buffer.getInt();
+		}
+
+		String getString() throws IOException
+		{
+			int length = getInt();
+			if(length < 0)
+				throw new IOException("Invalid string length: " + length);
+			byte[] bytes = new byte[length];
+			int off = 0;
+			while(off < length)
+			{
+				if(!_buffer.hasRemaining())
+					ensure(1);
+				int n = Math.min(_buffer.remaining(), length-off);
+				_buffer.get(bytes, off, n);
+				off += n;
+			}
+			return new String(bytes, UTF8);
+		}
+	}
+}
@@ -0,0 +1,162 @@
+/**
+ * OntoBride library
+ * Departamento de Ingeniería del Software e Inteligencia Artificial
+ * Universidad Complutense de Madrid
+ *
+ * Licensed under the terms of the GNU Library or Lesser General Public License (LGPL)
+ *
+ * This software is a subproject of the jCOLIBRI framework
+ * http://sourceforge.net/projects/jcolibri-cbr/
+ * http://gaia.fdi.ucm.es/projects/jcolibri/
+ *
+ * File: LRUCache.java
+ * 18/10/2026
+ */
+package ucm.gaia.ontobridge.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, thread-safe cache that discards the least recently used entries.
+ * Null values are cached too, so failed lookups are not repeated (negative caching).
+ * The number of hits and misses is counted.
+ */
+public class LRUCache<K,V> {
+
+	/**
+	 * Computes the value of a key that is not in the cache
+	 */
+	public interface Loader<K,V>
+	{
+		/**
+		 * Returns the value of the key or null if it does not exist
+		 */
+		V load(K key);
+	}
+
+	/** Marker stored for keys without value */
+	private static final Object NULL = new Object();
+
+	private final LinkedHashMap<K,Object> _map;
+	private int _maxSize;
+	private final AtomicLong _hits = new AtomicLong();
+	private final AtomicLong _misses = new AtomicLong();
+
+	/**
+	 * Creates a cache.
+	 * @param maxSize maximum number of entries. If 0 nothing is cached.
+	 */
+	public LRUCache(int maxSize)
+	{
+		_maxSize = maxSize;
+		_map = new LinkedHashMap<K,Object>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			protected boolean removeEldestEntry(Map.Entry<K,Object> eldest) {
+				return size() > _maxSize;
+			}};
+	}
+
+	/**
+	 * Returns the value of a key, loading and caching it if it is not cached.
+	 * @param key key
+	 * @param loader computes the value if the key is not cached
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(K key, Loader<K,V> loader)
+	{
+		Object value;
+		synchronized(this)
+		{
+			value = _map.get(key);
+		}
+		if(value != null)
+		{
+			_hits.incrementAndGet();
+			return (value == NULL) ? null : (V)value;
+		}
+		_misses.incrementAndGet();
+		// Loading is done outside the lock. Concurrent misses of the same key may load it twice.
+		V res = loader.load(key);
+		synchronized(this)
+		{
+			_map.put(key, (res == null) ? NULL : res);
+		}
+		return res;
+	}
+
+	/**
+	 * Stores the value of a key
+	 */
+	public synchronized void put(K key, V value)
+	{
+		_map.put(key, (value == null) ? NULL : value);
+	}
+
+	/**
+	 * Removes a key from the cache
+	 */
+	public synchronized void remove(K key)
+	{
+		_map.remove(key);
+	}
+
+	/**
+	 * Removes every entry from the cache. Hit and miss counters are kept.
+	 */
+	public synchronized void clear()
+	{
+		_map.clear();
+	}
+
+	/**
+	 * Number of cached entries
+	 */
+	public synchronized int size()
+	{
+		return _map.size();
+	}
+
+	/**
+	 * Maximum number of cached entries
+	 */
+	public synchronized int getMaxSize()
+	{
+		return _maxSize;
+	}
+
+	/**
+	 * Changes the maximum number of cached entries. Current entries are discarded.
+	 */
+	public synchronized void setMaxSize(int maxSize)
+	{
+		_maxSize = maxSize;
+		_map.clear();
+	}
+
+	/**
+	 * Number of lookups answered from the cache
+	 */
+	public long getHits()
+	{
+		return _hits.get();
+	}
+
+	/**
+	 * Number of lookups that had to load the value
+	 */
+	public long getMisses()
+	{
+		return _misses.get();
+	}
+
+	/**
+	 * Resets the hit and miss counters
+	 */
+	public void resetStatistics()
+	{
+		_hits.set(0);
+		_misses.set(0);
+	}
+}
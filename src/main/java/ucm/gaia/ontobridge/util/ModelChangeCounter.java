@@ -0,0 +1,143 @@
+/**
+ * OntoBride library
+ * Departamento de Ingeniería del Software e Inteligencia Artificial
+ * Universidad Complutense de Madrid
+ *
+ * Licensed under the terms of the GNU Library or Lesser General Public License (LGPL)
+ *
+ * This software is a subproject of the jCOLIBRI framework
+ * http://sourceforge.net/projects/jcolibri-cbr/
+ * http://gaia.fdi.ucm.es/projects/jcolibri/
+ *
+ * File: ModelChangeCounter.java
+ * 18/10/2026
+ */
+package ucm.gaia.ontobridge.util;
+
+import java.util.List;
+
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.ModelChangedListener;
+import com.hp.hpl.jena.rdf.model.Statement;
+import com.hp.hpl.jena.rdf.model.StmtIterator;
+
+/**
+ * Listener that counts the statements added to and removed from a JENA model.
+ * It is used to know if a model has changed since a given moment.
+ * <pre>
+ * ModelChangeCounter changes = new ModelChangeCounter();
+ * model.register(changes);
+ * ...
+ * if(changes.isChanged()) ...
+ * </pre>
+ */
+public class ModelChangeCounter implements ModelChangedListener {
+
+	private long _added = 0;
+	private long _removed = 0;
+
+	/**
+	 * Returns true if any statement has been added or removed since the creation or the last reset()
+	 */
+	public synchronized boolean isChanged()
+	{
+		return _added > 0 || _removed > 0;
+	}
+
+	/**
+	 * Number of statements added since the creation or the last reset()
+	 */
+	public synchronized long getAdded()
+	{
+		return _added;
+	}
+
+	/**
+	 * Number of statements removed since the creation or the last reset()
+	 */
+	public synchronized long getRemoved()
+	{
+		return _removed;
+	}
+
+	/**
+	 * Sets the counters to 0
+	 */
+	public synchronized void reset()
+	{
+		_added = 0;
+		_removed = 0;
+	}
+
+	private synchronized void added(long n)
+	{
+		_added += n;
+	}
+
+	private synchronized void removed(long n)
+	{
+		_removed += n;
+	}
+
+	private static long count(StmtIterator statements)
+	{
+		long n = 0;
+		for(; statements.hasNext(); statements.next())
+			n++;
+		return n;
+	}
+
+	public void addedStatement(Statement s)
+	{
+		added(1);
+	}
+
+	public void addedStatements(Statement[] statements)
+	{
+		added(statements.length);
+	}
+
+	public void addedStatements(List<Statement> statements)
+	{
+		added(statements.size());
+	}
+
+	public void addedStatements(StmtIterator statements)
+	{
+		added(count(statements));
+	}
+
+	public void addedStatements(Model m)
+	{
+		added(m.size());
+	}
+
+	public void removedStatement(Statement s)
+	{
+		removed(1);
+	}
+
+	public void removedStatements(Statement[] statements)
+	{
+		removed(statements.length);
+	}
+
+	public void removedStatements(List<Statement> statements)
+	{
+		removed(statements.size());
+	}
+
+	public void removedStatements(StmtIterator statements)
+	{
+		removed(count(statements));
+	}
+
+	public void removedStatements(Model m)
+	{
+		removed(m.size());
+	}
+
+	public void notifyEvent(Model m, Object event)
+	{
+	}
+}
@@ -0,0 +1,124 @@
+/**
+ * OntoBride library
+ * Departamento de Ingeniería del Software e Inteligencia Artificial
+ * Universidad Complutense de Madrid
+ *
+ * Licensed under the terms of the GNU Library or Lesser General Public License (LGPL)
+ *
+ * This software is a subproject of the jCOLIBRI framework
+ * http://sourceforge.net/projects/jcolibri-cbr/
+ * http://gaia.fdi.ucm.es/projects/jcolibri/
+ *
+ * File: ModelChangeForwarder.java
+ * 18/10/2026
+ */
+package ucm.gaia.ontobridge.util;
+
+import java.util.List;
+
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.ModelChangedListener;
+import com.hp.hpl.jena.rdf.model.Statement;
+import com.hp.hpl.jena.rdf.model.StmtIterator;
+
+/**
+ * Listener that applies the statements added to and removed from a JENA model to another model,
+ * so both models receive the same changes.
+ * <pre>
+ * ModelChangeForwarder forwarder = new ModelChangeForwarder(target);
+ * model.register(forwarder);
+ * ...
+ * if(forwarder.isChanged()) ...
+ * </pre>
+ */
+public class ModelChangeForwarder implements ModelChangedListener {
+
+	private final Model _target;
+	private boolean _changed = false;
+
+	/**
+	 * Creates a listener that forwards the changes to a model
+	 * @param target model that receives the changes
+	 */
+	public ModelChangeForwarder(Model target)
+	{
+		_target = target;
+	}
+
+	/**
+	 * Returns true if any change has been forwarded
+	 */
+	public synchronized boolean isChanged()
+	{
+		return _changed;
+	}
+
+	private synchronized void changed()
+	{
+		_changed = true;
+	}
+
+	public void addedStatement(Statement s)
+	{
+		changed();
+		_target.add(s);
+	}
+
+	public void addedStatements(Statement[] statements)
+	{
+		changed();
+		_target.add(statements);
+	}
+
+	public void addedStatements(List<Statement> statements)
+	{
+		changed();
+		_target.add(statements);
+	}
+
+	public void addedStatements(StmtIterator statements)
+	{
+		changed();
+		_target.add(statements);
+	}
+
+	public void addedStatements(Model m)
+	{
+		changed();
+		_target.add(m);
+	}
+
+	public void removedStatement(Statement s)
+	{
+		changed();
+		_target.remove(s);
+	}
+
+	public void removedStatements(Statement[] statements)
+	{
+		changed();
+		_target.remove(statements);
+	}
+
+	public void removedStatements(List<Statement> statements)
+	{
+		changed();
+		_target.remove(statements);
+	}
+
+	public void removedStatements(StmtIterator statements)
+	{
+		changed();
+		_target.remove(statements);
+	}
+
+	public void removedStatements(Model m)
+	{
+		changed();
+		_target.remove(m);
+	}
+
+	public void notifyEvent(Model m, Object event)
+	{
+	}
+}
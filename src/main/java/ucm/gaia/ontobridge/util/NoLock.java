@@ -0,0 +1,71 @@
+/**
+ * OntoBride library
+ * Departamento de Ingeniería del Software e Inteligencia Artificial
+ * Universidad Complutense de Madrid
+ *
+ * Licensed under the terms of the GNU Library or Lesser General Public License (LGPL)
+ *
+ * This software is a subproject of the jCOLIBRI framework
+ * http://sourceforge.net/projects/jcolibri-cbr/
+ * http://gaia.fdi.ucm.es/projects/jcolibri/
+ *
+ * File: NoLock.java
+ * 18/10/2026
+ */
+package ucm.gaia.ontobridge.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+
+/**
+ * Read-write lock that does nothing. It is used when an object is accessed by a single thread,
+ * so the code can be written once for both cases without paying for the synchronization.
+ */
+public class NoLock implements ReadWriteLock, Lock {
+
+	/** Shared instance */
+	public static final NoLock INSTANCE = new NoLock();
+
+	private NoLock()
+	{
+	}
+
+	public Lock readLock()
+	{
+		return this;
+	}
+
+	public Lock writeLock()
+	{
+		return this;
+	}
+
+	public void lock()
+	{
+	}
+
+	public void lockInterruptibly()
+	{
+	}
+
+	public boolean tryLock()
+	{
+		return true;
+	}
+
+	public boolean tryLock(long time, TimeUnit unit)
+	{
+		return true;
+	}
+
+	public void unlock()
+	{
+	}
+
+	public Condition newCondition()
+	{
+		throw new UnsupportedOperationException();
+	}
+}
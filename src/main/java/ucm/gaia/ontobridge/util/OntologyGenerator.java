@@ -0,0 +1,339 @@
+/**
+ * OntoBride library
+ * Departamento de Ingeniería del Software e Inteligencia Artificial
+ * Universidad Complutense de Madrid
+ *
+ * Licensed under the terms of the GNU Library or Lesser General Public License (LGPL)
+ *
+ * This software is a subproject of the jCOLIBRI framework
+ * http://sourceforge.net/projects/jcolibri-cbr/
+ * http://gaia.fdi.ucm.es/projects/jcolibri/
+ *
+ * File: OntologyGenerator.java
+ * 18/10/2026
+ */
+package ucm.gaia.ontobridge.util;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+
+import ucm.gaia.ontobridge.OntologyDocument;
+import ucm.gaia.ontobridge.SerializationFormat;
+
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.shared.PrefixMapping;
+import com.hp.hpl.jena.vocabulary.OWL;
+import com.hp.hpl.jena.vocabulary.RDF;
+import com.hp.hpl.jena.vocabulary.RDFS;
+
+/**
+ * Generates synthetic OWL ontologies to test OntoBridge with hierarchies of any size.<br>
+ * The classes form a forest filled level by level: every class has up to "branching" subclasses and
+ * there are as many root classes as needed to keep the hierarchy within "depth" levels. A fraction
+ * of the classes (the multiple inheritance ratio) has a second superclass in the level of its first one.
+ * Individuals belong to a random class and have, on average, "property density" values of random
+ * object and datatype properties.<br>
+ * The statements are generated with a fixed seed, so the same parameters always produce the same
+ * ontology, and they are streamed to the output, so ontologies with millions of classes can be
+ * written with little memory. Files are written in RDF/XML and can be loaded with OntoBridge.loadOntology():
+ * <pre>
+ * OntologyDocument doc = new OntologyGenerator("http://gaia.fdi.ucm.es/ontologies/synthetic.owl")
+ *         .setClasses(100000).setIndividuals(50000).write(new File("synthetic.owl"));
+ * ob.loadOntology(doc, new ArrayList&lt;OntologyDocument&gt;(), false);
+ * </pre>
+ * Names: classes C0..Cn, individuals I0..In, object properties p0..pn and datatype properties d0..dn.
+ */
+public class OntologyGenerator {
+
+	/** Seed used when none is given */
+	public static final long DEFAULT_SEED = 20061122L;
+
+	private final String _url;
+	private final String _ns;
+	private int _classes = 1000;
+	private int _depth = 10;
+	private int _branching = 4;
+	private double _multipleInheritance = 0;
+	private int _individuals = 0;
+	private int _properties = 10;
+	private double _propertyDensity = 0;
+	private long _seed = DEFAULT_SEED;
+
+	/**
+	 * @param url URL of the ontology. The resources are created in the namespace url#
+	 */
+	public OntologyGenerator(String url)
+	{
+		_url = url;
+		_ns = url + "#";
+	}
+
+	/**
+	 * Number of classes (1000 by default)
+	 */
+	public OntologyGenerator setClasses(int classes)
+	{
+		if(classes < 1)
+			throw new IllegalArgumentException("Invalid number of classes: " + classes);
+		_classes = classes;
+		return this;
+	}
+
+	/**
+	 * Maximum number of levels of the hierarchy (10 by default). More root classes are created if needed.
+	 */
+	public OntologyGenerator setDepth(int depth)
+	{
+		if(depth < 1)
+			throw new IllegalArgumentException("Invalid depth: " + depth);
+		_depth = depth;
+		return this;
+	}
+
+	/**
+	 * Maximum number of direct subclasses of a class (4 by default)
+	 */
+	public OntologyGenerator setBranching(int branching)
+	{
+		if(branching < 1)
+			throw new IllegalArgumentException("Invalid branching factor: " + branching);
+		_branching = branching;
+		return this;
+	}
+
+	/**
+	 * Fraction of the non root classes that have two superclasses (0 by default)
+	 */
+	public OntologyGenerator setMultipleInheritance(double ratio)
+	{
+		if(ratio < 0 || ratio > 1)
+			throw new IllegalArgumentException("Invalid multiple inheritance ratio: " + ratio);
+		_multipleInheritance = ratio;
+		return this;
+	}
+
+	/**
+	 * Number of individuals (none by default)
+	 */
+	public OntologyGenerator setIndividuals(int individuals)
+	{
+		if(individuals < 0)
+			throw new IllegalArgumentException("Invalid number of individuals: " + individuals);
+		_individuals = individuals;
+		return this;
+	}
+
+	/**
+	 * Number of properties, half object properties and half datatype properties (10 by default)
+	 */
+	public OntologyGenerator setProperties(int properties)
+	{
+		if(properties < 0)
+			throw new IllegalArgumentException("Invalid number of properties: " + properties);
+		_properties = properties;
+		return this;
+	}
+
+	/**
+	 * Average number of property values of every individual (0 by default)
+	 */
+	public OntologyGenerator setPropertyDensity(double density)
+	{
+		if(density < 0)
+			throw new IllegalArgumentException("Invalid property density: " + density);
+		_propertyDensity = density;
+		return this;
+	}
+
+	/**
+	 * Seed of the random choices (DEFAULT_SEED by default)
+	 */
+	public OntologyGenerator setSeed(long seed)
+	{
+		_seed = seed;
+		return this;
+	}
+
+	/**
+	 * Returns the URL of the ontology
+	 */
+	public String getURL()
+	{
+		return _url;
+	}
+
+	/**
+	 * Writes the ontology into a RDF/XML file
+	 * @return the document to load the ontology from the file
+	 */
+	public OntologyDocument write(File file) throws IOException
+	{
+		OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 1 << 16);
+		try {
+			write(out, SerializationFormat.RDF_XML);
+		} finally {
+			out.close();
+		}
+		return new OntologyDocument(_url, file.toURI().toString());
+	}
+
+	/**
+	 * Writes the ontology into a stream. The stream is not closed.
+	 * @param format RDF_XML, TURTLE or N_TRIPLES. N-Triples documents do not keep the namespace prefixes.
+	 * @return the number of statements written
+	 */
+	public long write(OutputStream out, SerializationFormat format) throws IOException
+	{
+		PrefixMapping prefixes = PrefixMapping.Factory.create()
+				.setNsPrefix("", _ns).setNsPrefixes(PrefixMapping.Standard);
+		StreamingGraphWriter writer;
+		switch(format)
+		{
+			case RDF_XML:
+				writer = StreamingGraphWriter.createRDFXMLWriter(prefixes, out);
+				break;
+			case TURTLE:
+				writer = StreamingGraphWriter.createTurtleWriter(prefixes, out);
+				break;
+			case N_TRIPLES:
+				writer = StreamingGraphWriter.createNTriplesWriter(out);
+				break;
+			default:
+				throw new IllegalArgumentException("Format cannot be streamed: " + format);
+		}
+
+		Random random = new Random(_seed);
+		writer.write(new Triple(Node.createURI(_url), RDF.type.asNode(), OWL.Ontology.asNode()));
+		writeClasses(writer, random);
+		writeProperties(writer);
+		writeIndividuals(writer, random);
+		return writer.finish();
+	}
+
+	/**
+	 * Writes the hierarchy. Classes are numbered level by level, so the subclasses of class i
+	 * are roots + i*branching ... roots + i*branching + branching-1.
+	 */
+	private void writeClasses(StreamingGraphWriter writer, Random random) throws IOException
+	{
+		// Classes that fit in a tree of the given depth, and first class of every level
+		double capacity = 0;
+		for(int i = 0; i < _depth; i++)
+			capacity += Math.pow(_branching, i);
+		int roots = (int)Math.min(_classes, Math.max(1, Math.ceil(_classes / capacity)));
+		long[] levelStart = new long[_depth + 1];
+		long levelSize = roots;
+		for(int i = 1; i <= _depth; i++)
+		{
+			levelStart[i] = Math.min(_classes, levelStart[i-1] + levelSize);
+			levelSize = Math.min(levelSize * _branching, _classes);
+		}
+
+		Node subClassOf = RDFS.subClassOf.asNode();
+		int level = 0;
+		for(int c = 0; c < _classes; c++)
+		{
+			while(c >= levelStart[level+1])
+				level++;
+			Node node = classNode(c);
+			writer.write(new Triple(node, RDF.type.asNode(), OWL.Class.asNode()));
+			if(c < roots)
+				continue;
+			int parent = (c - roots) / _branching;
+			writer.write(new Triple(node, subClassOf, classNode(parent)));
+			// Second superclass in the level of the first one
+			if(_multipleInheritance > 0 && random.nextDouble() < _multipleInheritance)
+			{
+				long start = levelStart[level-1];
+				long size = levelStart[level] - start;
+				if(size > 1)
+				{
+					int other = (int)(start + (parent - start + 1 + (long)(random.nextDouble() * (size - 1))) % size);
+					writer.write(new Triple(node, subClassOf, classNode(other)));
+				}
+			}
+		}
+	}
+
+	private void writeProperties(StreamingGraphWriter writer) throws IOException
+	{
+		for(int p = 0; p < objectProperties(); p++)
+			writer.write(new Triple(Node.createURI(_ns + "p" + p), RDF.type.asNode(), OWL.ObjectProperty.asNode()));
+		for(int p = 0; p < datatypeProperties(); p++)
+			writer.write(new Triple(Node.createURI(_ns + "d" + p), RDF.type.asNode(), OWL.DatatypeProperty.asNode()));
+	}
+
+	private void writeIndividuals(StreamingGraphWriter writer, Random random) throws IOException
+	{
+		int density = (int)_propertyDensity;
+		double fraction = _propertyDensity - density;
+		for(int i = 0; i < _individuals; i++)
+		{
+			Node node = Node.createURI(_ns + "I" + i);
+			writer.write(new Triple(node, RDF.type.asNode(), classNode(random.nextInt(_classes))));
+			if(_properties == 0)
+				continue;
+			int values = density + ((random.nextDouble() < fraction) ? 1 : 0);
+			for(int v = 0; v < values; v++)
+			{
+				int p = random.nextInt(_properties);
+				if(p < objectProperties())
+					writer.write(new Triple(node, Node.createURI(_ns + "p" + p),
+							Node.createURI(_ns + "I" + random.nextInt(_individuals))));
+				else
+					writer.write(new Triple(node, Node.createURI(_ns + "d" + (p - objectProperties())),
+							Node.createLiteral("v" + random.nextInt(1000))));
+			}
+		}
+	}
+
+	private int objectProperties()
+	{
+		return (_properties + 1) / 2;
+	}
+
+	private int datatypeProperties()
+	{
+		return _properties / 2;
+	}
+
+	private Node classNode(int c)
+	{
+		return Node.createURI(_ns + "C" + c);
+	}
+
+	/**
+	 * Writes an ontology into a RDF/XML file.<br>
+	 * Arguments: file classes [individuals [multipleInheritance [propertyDensity [seed]]]]
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		if(args.length < 2)
+		{
+			System.err.println("Usage: OntologyGenerator file classes [individuals [multipleInheritance [propertyDensity [seed]]]]");
+			return;
+		}
+		File file = new File(args[0]);
+		String name = file.getName();
+		if(name.indexOf('.') > 0)
+			name = name.substring(0, name.indexOf('.'));
+		OntologyGenerator generator = new OntologyGenerator("http://gaia.fdi.ucm.es/ontologies/" + name + ".owl")
+				.setClasses(Integer.parseInt(args[1]));
+		if(args.length > 2)
+			generator.setIndividuals(Integer.parseInt(args[2]));
+		if(args.length > 3)
+			generator.setMultipleInheritance(Double.parseDouble(args[3]));
+		if(args.length > 4)
+			generator.setPropertyDensity(Double.parseDouble(args[4]));
+		if(args.length > 5)
+			generator.setSeed(Long.parseLong(args[5]));
+		long start = System.currentTimeMillis();
+		generator.write(file);
+		System.out.println(file + " written in " + (System.currentTimeMillis() - start) + " ms");
+	}
+}
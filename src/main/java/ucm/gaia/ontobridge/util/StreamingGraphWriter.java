@@ -0,0 +1,463 @@
+/**
+ * OntoBride library
+ * Departamento de Ingeniería del Software e Inteligencia Artificial
+ * Universidad Complutense de Madrid
+ *
+ * Licensed under the terms of the GNU Library or Lesser General Public License (LGPL)
+ *
+ * This software is a subproject of the jCOLIBRI framework
+ * http://sourceforge.net/projects/jcolibri-cbr/
+ * http://gaia.fdi.ucm.es/projects/jcolibri/
+ *
+ * File: StreamingGraphWriter.java
+ * 18/10/2026
+ */
+package ucm.gaia.ontobridge.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Map;
+
+import com.hp.hpl.jena.graph.Graph;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.shared.PrefixMapping;
+import com.hp.hpl.jena.util.iterator.ExtendedIterator;
+import com.hp.hpl.jena.vocabulary.RDF;
+
+/**
+ * Writes the statements of a graph in N-Triples or Turtle one by one, as they are read from
+ * the graph. Unlike the JENA writers for abbreviated formats, nothing is computed over the
+ * whole graph, so the memory used does not depend on its size.<br>
+ * Statements that are generated on the fly can be written in the same way with the writers
+ * returned by createNTriplesWriter(), createTurtleWriter() and createRDFXMLWriter().<br>
+ * The output is buffered and flushed at the end. The stream is not closed.
+ */
+public class StreamingGraphWriter {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final Charset ASCII = Charset.forName("US-ASCII");
+
+	private final Writer _out;
+	private final boolean _turtle;
+	private final boolean _xml;
+	private final String[] _prefixes;
+	private final String[] _namespaces;
+	private Node _last = null;
+	private long _count = 0;
+
+	private StreamingGraphWriter(OutputStream out, boolean turtle, PrefixMapping prefixes)
+	{
+		this(out, turtle, false, prefixes);
+	}
+
+	private StreamingGraphWriter(OutputStream out, boolean turtle, boolean xml, PrefixMapping prefixes)
+	{
+		_out = new BufferedWriter(new OutputStreamWriter(out, (turtle || xml) ? UTF8 : ASCII), BUFFER_SIZE);
+		_turtle = turtle;
+		_xml = xml;
+		Map<String,String> map = (prefixes == null) ? null : prefixes.getNsPrefixMap();
+		int n = (map == null) ? 0 : map.size();
+		_prefixes = new String[n];
+		_namespaces = new String[n];
+		if(map != null)
+		{
+			int i = 0;
+			for(Map.Entry<String,String> e : map.entrySet())
+			{
+				_prefixes[i] = e.getKey();
+				_namespaces[i++] = e.getValue();
+			}
+		}
+	}
+
+	/**
+	 * Writes a graph in N-Triples
+	 * @return the number of statements written
+	 */
+	public static long writeNTriples(Graph graph, OutputStream out) throws IOException
+	{
+		return new StreamingGraphWriter(out, false, null).write(graph);
+	}
+
+	/**
+	 * Writes a graph in Turtle. URIs are abbreviated with the given prefixes
+	 * and consecutive statements of the same subject are grouped.
+	 * @param prefixes namespace prefixes, or null
+	 * @return the number of statements written
+	 */
+	public static long writeTurtle(Graph graph, PrefixMapping prefixes, OutputStream out) throws IOException
+	{
+		return new StreamingGraphWriter(out, true, prefixes).write(graph);
+	}
+
+	/**
+	 * Creates a writer of N-Triples for statements that are not stored in a graph.
+	 * The statements are written with write(Triple) and the output is completed with finish().
+	 */
+	public static StreamingGraphWriter createNTriplesWriter(OutputStream out)
+	{
+		return new StreamingGraphWriter(out, false, null);
+	}
+
+	/**
+	 * Creates a writer of Turtle for statements that are not stored in a graph.
+	 * The prefixes are written at once. The statements are written with write(Triple) 
+	 * and the output is completed with finish().
+	 * @param prefixes namespace prefixes, or null
+	 */
+	public static StreamingGraphWriter createTurtleWriter(PrefixMapping prefixes, OutputStream out) throws IOException
+	{
+		StreamingGraphWriter writer = new StreamingGraphWriter(out, true, prefixes);
+		writer.writePrefixes();
+		return writer;
+	}
+
+	/**
+	 * Creates a writer of plain RDF/XML for statements that are not stored in a graph: consecutive
+	 * statements of the same subject are written in one rdf:Description. The prefixes are declared
+	 * at once and used for the properties; properties in other namespaces declare their namespace.
+	 * The statements are written with write(Triple) and the document is completed with finish().
+	 * @param prefixes namespace prefixes, or null
+	 */
+	public static StreamingGraphWriter createRDFXMLWriter(PrefixMapping prefixes, OutputStream out) throws IOException
+	{
+		StreamingGraphWriter writer = new StreamingGraphWriter(out, false, true, prefixes);
+		writer.writePrefixes();
+		return writer;
+	}
+
+	private long write(Graph graph) throws IOException
+	{
+		writePrefixes();
+		ExtendedIterator<Triple> iter = graph.find(Node.ANY, Node.ANY, Node.ANY);
+		try {
+			while(iter.hasNext())
+				write(iter.next());
+		} finally {
+			iter.close();
+		}
+		return finish();
+	}
+
+	private void writePrefixes() throws IOException
+	{
+		if(_xml)
+		{
+			_out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<rdf:RDF\n    xmlns:rdf=\"");
+			writeXMLEscaped(RDF.getURI());
+			_out.write('"');
+			for(int i=0; i<_prefixes.length; i++)
+			{
+				if(_prefixes[i].equals("rdf"))
+					continue;
+				_out.write("\n    xmlns");
+				if(_prefixes[i].length() > 0)
+				{
+					_out.write(':');
+					_out.write(_prefixes[i]);
+				}
+				_out.write("=\"");
+				writeXMLEscaped(_namespaces[i]);
+				_out.write('"');
+			}
+			_out.write(">\n");
+			return;
+		}
+		for(int i=0; i<_prefixes.length; i++)
+		{
+			_out.write("@prefix ");
+			_out.write(_prefixes[i]);
+			_out.write(": <");
+			writeEscaped(_namespaces[i]);
+			_out.write("> .\n");
+		}
+		if(_prefixes.length > 0)
+			_out.write('\n');
+	}
+
+	/**
+	 * Writes a statement. In Turtle, it is grouped with the previous one if they have the same subject.
+	 */
+	public void write(Triple t) throws IOException
+	{
+		if(_xml)
+		{
+			writeXML(t);
+			return;
+		}
+		if(_turtle && _last != null && _last.equals(t.getSubject()))
+			_out.write(" ;\n\t");
+		else
+		{
+			if(_last != null)
+				_out.write(" .\n");
+			writeNode(t.getSubject());
+			_out.write(' ');
+		}
+		if(_turtle && t.getPredicate().equals(RDF.type.asNode()))
+			_out.write('a');
+		else
+			writeNode(t.getPredicate());
+		_out.write(' ');
+		writeNode(t.getObject());
+		_last = t.getSubject();
+		_count++;
+	}
+
+	/**
+	 * Ends the last statement and flushes the output. The stream is not closed.
+	 * @return the number of statements written
+	 */
+	public long finish() throws IOException
+	{
+		if(_xml)
+		{
+			if(_last != null)
+				_out.write("  </rdf:Description>\n");
+			_out.write("</rdf:RDF>\n");
+		}
+		else if(_last != null)
+			_out.write(" .\n");
+		_last = null;
+		_out.flush();
+		return _count;
+	}
+
+	private void writeXML(Triple t) throws IOException
+	{
+		Node subject = t.getSubject();
+		if(_last == null || !_last.equals(subject))
+		{
+			if(_last != null)
+				_out.write("  </rdf:Description>\n");
+			_out.write("  <rdf:Description ");
+			writeXMLReference(subject, "rdf:about");
+			_out.write(">\n");
+		}
+
+		// Name of the property element, declaring its namespace if it has no prefix
+		String uri = t.getPredicate().getURI();
+		String name = null;
+		for(int i=0; i<_namespaces.length && name == null; i++)
+			if(uri.startsWith(_namespaces[i]) && isLocalName(uri, _namespaces[i].length()))
+				name = (_prefixes[i].length() == 0) ? uri.substring(_namespaces[i].length()) 
+						: _prefixes[i] + ":" + uri.substring(_namespaces[i].length());
+		String declaration = "";
+		if(name == null)
+		{
+			int split = Math.max(uri.lastIndexOf('#'), uri.lastIndexOf('/')) + 1;
+			if(split == 0 || !isLocalName(uri, split))
+				throw new IOException("Property cannot be written in RDF/XML: " + uri);
+			name = "ns0:" + uri.substring(split);
+			declaration = " xmlns:ns0=\"" + xmlEscape(uri.substring(0, split)) + "\"";
+		}
+
+		_out.write("    <");
+		_out.write(name);
+		_out.write(declaration);
+		Node object = t.getObject();
+		if(object.isLiteral())
+		{
+			String lang = object.getLiteralLanguage();
+			String datatype = object.getLiteralDatatypeURI();
+			if(datatype != null)
+			{
+				_out.write(" rdf:datatype=\"");
+				writeXMLEscaped(datatype);
+				_out.write('"');
+			}
+			else if(lang != null && lang.length() > 0)
+			{
+				_out.write(" xml:lang=\"");
+				writeXMLEscaped(lang);
+				_out.write('"');
+			}
+			_out.write('>');
+			writeXMLEscaped(object.getLiteralLexicalForm());
+			_out.write("</");
+			_out.write(name);
+			_out.write(">\n");
+		}
+		else
+		{
+			_out.write(' ');
+			writeXMLReference(object, "rdf:resource");
+			_out.write("/>\n");
+		}
+		_last = subject;
+		_count++;
+	}
+
+	/**
+	 * Writes the attribute that identifies a resource: the given one for URIs, rdf:nodeID for blank nodes
+	 */
+	private void writeXMLReference(Node n, String attribute) throws IOException
+	{
+		if(n.isURI())
+		{
+			_out.write(attribute);
+			_out.write("=\"");
+			writeXMLEscaped(n.getURI());
+		}
+		else if(n.isBlank())
+		{
+			_out.write("rdf:nodeID=\"b");
+			writeBlankLabel(n.getBlankNodeLabel());
+		}
+		else
+			throw new IOException("Node cannot be written: " + n);
+		_out.write('"');
+	}
+
+	private void writeXMLEscaped(String s) throws IOException
+	{
+		_out.write(xmlEscape(s));
+	}
+
+	private static String xmlEscape(String s)
+	{
+		StringBuilder sb = null;
+		for(int i=0; i<s.length(); i++)
+		{
+			char c = s.charAt(i);
+			String escaped;
+			switch(c)
+			{
+				case '&':  escaped = "&amp;"; break;
+				case '<':  escaped = "&lt;"; break;
+				case '>':  escaped = "&gt;"; break;
+				case '"':  escaped = "&quot;"; break;
+				case '\r': escaped = "&#13;"; break;
+				default:   escaped = null;
+			}
+			if(escaped != null && sb == null)
+				sb = new StringBuilder(s.length() + 16).append(s, 0, i);
+			if(sb != null)
+			{
+				if(escaped != null)
+					sb.append(escaped);
+				else
+					sb.append(c);
+			}
+		}
+		return (sb == null) ? s : sb.toString();
+	}
+
+	private void writeNode(Node n) throws IOException
+	{
+		if(n.isURI())
+			writeURI(n.getURI());
+		else if(n.isBlank())
+		{
+			_out.write("_:b");
+			writeBlankLabel(n.getBlankNodeLabel());
+		}
+		else if(n.isLiteral())
+		{
+			_out.write('"');
+			writeEscaped(n.getLiteralLexicalForm());
+			_out.write('"');
+			String lang = n.getLiteralLanguage();
+			String datatype = n.getLiteralDatatypeURI();
+			if(datatype != null)
+			{
+				_out.write("^^");
+				writeURI(datatype);
+			}
+			else if(lang != null && lang.length() > 0)
+			{
+				_out.write('@');
+				_out.write(lang);
+			}
+		}
+		else
+			throw new IOException("Node cannot be written: " + n);
+	}
+
+	private void writeURI(String uri) throws IOException
+	{
+		if(_turtle)
+			for(int i=0; i<_namespaces.length; i++)
+				if(uri.startsWith(_namespaces[i]) && isLocalName(uri, _namespaces[i].length()))
+				{
+					_out.write(_prefixes[i]);
+					_out.write(':');
+					_out.write(uri, _namespaces[i].length(), uri.length()-_namespaces[i].length());
+					return;
+				}
+		_out.write('<');
+		writeEscaped(uri);
+		_out.write('>');
+	}
+
+	/**
+	 * Checks if the end of a URI can be written as the local part of a prefixed name
+	 */
+	private static boolean isLocalName(String uri, int start)
+	{
+		for(int i=start; i<uri.length(); i++)
+		{
+			char c = uri.charAt(i);
+			boolean letter = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+			if(!letter && (i == start || !((c >= '0' && c <= '9') || c == '-')))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Writes a blank node label with letters and digits only. Other characters (and 'x')
+	 * are written as 'x' followed by four hex digits, so different labels stay different.
+	 */
+	private void writeBlankLabel(String label) throws IOException
+	{
+		for(int i=0; i<label.length(); i++)
+		{
+			char c = label.charAt(i);
+			if((c >= 'a' && c <= 'z' && c != 'x') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9'))
+				_out.write(c);
+			else
+			{
+				_out.write('x');
+				writeHex(c, 4);
+			}
+		}
+	}
+
+	private void writeEscaped(String s) throws IOException
+	{
+		for(int i=0; i<s.length(); i++)
+		{
+			char c = s.charAt(i);
+			switch(c)
+			{
+				case '\\': _out.write("\\\\"); break;
+				case '"':  _out.write("\\\""); break;
+				case '\n': _out.write("\\n"); break;
+				case '\r': _out.write("\\r"); break;
+				case '\t': _out.write("\\t"); break;
+				default:
+					// Supplementary characters are written as two escaped surrogates, as JENA does
+					if(c < 0x20 || (c > 0x7E && !_turtle))
+					{
+						_out.write("\\u");
+						writeHex(c, 4);
+					}
+					else
+						_out.write(c);
+			}
+		}
+	}
+
+	private void writeHex(char value, int digits) throws IOException
+	{
+		for(int shift = 4*(digits-1); shift >= 0; shift -= 4)
+			_out.write(Character.toUpperCase(Character.forDigit((value >> shift) & 0xF, 16)));
+	}
+}